@@ -0,0 +1,103 @@
+package com.reactiveprogramming.reactive_api.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares a JMH JSON result with a stored baseline and fails (exit status 1)
+ * when any benchmark regressed by more than the threshold. Throughput scores
+ * regress by going down, time-per-operation scores by going up; both are
+ * compared on the primary metric only, so gc.alloc.rate changes are reported but
+ * never fail the run.
+ * <p>
+ * Arguments: {@code <baseline.json> <result.json> [threshold, default 0.10]}. A
+ * missing baseline is created from the result, so the first run records one.
+ */
+public class BaselineComparison {
+
+	public static void main(String[] args) throws IOException {
+		File baselineFile = new File(args[0]);
+		File resultFile = new File(args[1]);
+		double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+
+		ObjectMapper mapper = new ObjectMapper();
+		JsonNode result = mapper.readTree(resultFile);
+		if (!baselineFile.exists()) {
+			mapper.writerWithDefaultPrettyPrinter().writeValue(baselineFile, result);
+			System.out.println("No baseline yet; recorded " + resultFile + " as " + baselineFile);
+			return;
+		}
+		Map<String, JsonNode> baseline = index(mapper.readTree(baselineFile));
+
+		int regressions = 0;
+		for (Map.Entry<String, JsonNode> entry : index(result).entrySet()) {
+			JsonNode before = baseline.get(entry.getKey());
+			if (before == null) {
+				System.out.printf("NEW   %s%n", entry.getKey());
+				continue;
+			}
+			JsonNode after = entry.getValue();
+			double change = relativeChange(before, after);
+			boolean regressed = change < -threshold;
+			if (regressed) {
+				regressions++;
+			}
+			System.out.printf("%-5s %-90s %+7.1f%%  (%.3f -> %.3f %s)%s%n", regressed ? "WORSE" : "ok", entry.getKey(),
+					change * 100, score(before), score(after), after.path("primaryMetric").path("scoreUnit").asText(),
+					allocationChange(before, after));
+		}
+		if (regressions > 0) {
+			System.out.printf("%d benchmark(s) regressed by more than %.0f%%%n", regressions, threshold * 100);
+			System.exit(1);
+		}
+	}
+
+	// Keyed by benchmark, mode and parameters, e.g. "...FileUtilsBenchmark.read thrpt chunkSize=4096,inFlight=4".
+	private static Map<String, JsonNode> index(JsonNode results) {
+		Map<String, JsonNode> byKey = new TreeMap<>();
+		for (JsonNode run : results) {
+			Map<String, String> params = new TreeMap<>();
+			Iterator<Map.Entry<String, JsonNode>> fields = run.path("params").fields();
+			while (fields.hasNext()) {
+				Map.Entry<String, JsonNode> param = fields.next();
+				params.put(param.getKey(), param.getValue().asText());
+			}
+			byKey.put(run.path("benchmark").asText() + " " + run.path("mode").asText() + " " + params, run);
+		}
+		return byKey;
+	}
+
+	// Positive is better, whatever the mode.
+	private static double relativeChange(JsonNode before, JsonNode after) {
+		double old = score(before);
+		double now = score(after);
+		if (old == 0) {
+			return 0;
+		}
+		boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+		return higherIsBetter ? (now - old) / old : (old - now) / old;
+	}
+
+	private static double score(JsonNode run) {
+		return run.path("primaryMetric").path("score").asDouble();
+	}
+
+	private static String allocationChange(JsonNode before, JsonNode after) {
+		Map<String, Double> allocation = new HashMap<>();
+		for (JsonNode run : new JsonNode[] { before, after }) {
+			JsonNode normalized = run.path("secondaryMetrics").path("gc.alloc.rate.norm");
+			if (normalized.isMissingNode()) {
+				return "";
+			}
+			allocation.put(run == before ? "before" : "after", normalized.path("score").asDouble());
+		}
+		return String.format("  alloc %.0f -> %.0f B/op", allocation.get("before"), allocation.get("after"));
+	}
+}
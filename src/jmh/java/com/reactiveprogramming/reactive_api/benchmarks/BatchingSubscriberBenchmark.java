@@ -0,0 +1,119 @@
+package com.reactiveprogramming.reactive_api.benchmarks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reactivestreams.Subscription;
+
+import com.reactiveprogramming.reactive_api.utils.BatchingSubscriber;
+
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * The request(1)-per-item subscriber from {@code DemandSignallingExample} against
+ * {@link BatchingSubscriber}, consuming {@code items} integers from a synchronous
+ * {@code range} and across a {@code publishOn} boundary, where every request(1)
+ * is an atomic update plus, once the queue is drained, a hand-off back to the
+ * producing side.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchingSubscriberBenchmark {
+
+	public enum Source {
+		RANGE,
+		PUBLISH_ON
+	}
+
+	@Param({ "RANGE", "PUBLISH_ON" })
+	Source source;
+
+	@Param({ "1000000" })
+	int items;
+
+	Scheduler scheduler;
+
+	@Setup
+	public void setUp() {
+		scheduler = Schedulers.newSingle("jmh-publish-on");
+	}
+
+	@TearDown
+	public void tearDown() {
+		scheduler.dispose();
+	}
+
+	@Benchmark
+	public long requestPerItem() throws InterruptedException {
+		CountDownLatch done = new CountDownLatch(1);
+		long[] sum = new long[1];
+		source().subscribe(new BaseSubscriber<Integer>() {
+
+			@Override
+			protected void hookOnSubscribe(Subscription subscription) {
+				request(1);
+			}
+
+			@Override
+			protected void hookOnNext(Integer value) {
+				sum[0] += value;
+				request(1);
+			}
+
+			@Override
+			protected void hookOnComplete() {
+				done.countDown();
+			}
+		});
+		done.await();
+		return sum[0];
+	}
+
+	@Benchmark
+	public long batching() throws InterruptedException {
+		CountDownLatch done = new CountDownLatch(1);
+		long[] sum = new long[1];
+		source().subscribe(new BatchingSubscriber<Integer>(16, 64, 4096, Duration.ofMillis(1)) {
+
+			@Override
+			protected void hookOnNextBatch(List<Integer> batch) {
+				for (int i = 0; i < batch.size(); i++) {
+					sum[0] += batch.get(i);
+				}
+			}
+
+			@Override
+			protected void hookOnBatchesComplete() {
+				done.countDown();
+			}
+		});
+		done.await();
+		return sum[0];
+	}
+
+	private Flux<Integer> source() {
+		Flux<Integer> range = Flux.range(0, items);
+		return source == Source.PUBLISH_ON ? range.publishOn(scheduler, 256) : range;
+	}
+}
@@ -0,0 +1,91 @@
+package com.reactiveprogramming.reactive_api.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.reactiveprogramming.reactive_api.utils.BlockingSchedulers;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * {@code concurrency} short blocking file operations at once (read a small file,
+ * plus {@code blockMicros} of simulated device latency), each moved off the
+ * caller with {@code subscribeOn} the way the copy engine moves its
+ * {@code transferTo} calls. Compares boundedElastic's capped pool with a virtual
+ * thread per task.
+ * <p>
+ * VIRTUAL falls back to boundedElastic before JDK 21, so run this on a 21+ JVM,
+ * e.g. {@code -Djmh.args="BlockingScheduler -jvm /path/to/jdk-21/bin/java"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlockingSchedulerBenchmark {
+
+	@Param({ "BOUNDED_ELASTIC", "VIRTUAL" })
+	BlockingSchedulers.Mode mode;
+
+	@Param({ "100", "1000", "10000" })
+	int concurrency;
+
+	@Param({ "0", "1000" })
+	long blockMicros;
+
+	BlockingSchedulers schedulers;
+
+	Scheduler scheduler;
+
+	Path file;
+
+	@Setup
+	public void setUp() throws IOException {
+		schedulers = new BlockingSchedulers(mode, Map.of());
+		scheduler = schedulers.forMode(mode);
+		file = Files.createTempFile("jmh-blocking", ".txt");
+		Files.writeString(file, "a short line of text\n".repeat(20));
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		schedulers.close();
+		Files.deleteIfExists(file);
+	}
+
+	@Benchmark
+	public Long blockingFileOperations() {
+		return Flux.range(0, concurrency)
+				.flatMap(i -> Mono.fromCallable(this::readFile).subscribeOn(scheduler), concurrency)
+				.count()
+				.block();
+	}
+
+	private int readFile() throws IOException {
+		int length = Files.readAllBytes(file).length;
+		if (blockMicros > 0) {
+			LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(blockMicros));
+		}
+		return length;
+	}
+}
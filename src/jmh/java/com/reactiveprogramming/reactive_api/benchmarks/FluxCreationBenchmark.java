@@ -0,0 +1,71 @@
+package com.reactiveprogramming.reactive_api.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * The creation variants from {@code FluxCreationExamples}, each emitting
+ * {@code size} integers to a subscriber that requests everything. {@code range}
+ * is the floor the others are measured against.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FluxCreationBenchmark {
+
+	@Param({ "1", "1000", "100000" })
+	int size;
+
+	@Benchmark
+	public void range(Blackhole blackhole) {
+		Flux.range(0, size).subscribe(blackhole::consume);
+	}
+
+	@Benchmark
+	public void generate(Blackhole blackhole) {
+		Flux.<Integer, int[]>generate(() -> new int[1], (state, sink) -> {
+			if (state[0] == size) {
+				sink.complete();
+			} else {
+				sink.next(state[0]++);
+			}
+			return state;
+		}).subscribe(blackhole::consume);
+	}
+
+	@Benchmark
+	public void create(Blackhole blackhole) {
+		Flux.<Integer>create(sink -> {
+			for (int i = 0; i < size; i++) {
+				sink.next(i);
+			}
+			sink.complete();
+		}).subscribe(blackhole::consume);
+	}
+
+	@Benchmark
+	public void push(Blackhole blackhole) {
+		Flux.<Integer>push(sink -> {
+			for (int i = 0; i < size; i++) {
+				sink.next(i);
+			}
+			sink.complete();
+		}).subscribe(blackhole::consume);
+	}
+}
@@ -0,0 +1,72 @@
+package com.reactiveprogramming.reactive_api.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.reactiveprogramming.reactive_api.utils.SlidingWindow;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Moving averages over {@code prices} ticks, one tick per millisecond of
+ * synthetic time, each published once per tick. {@code buffer} is the approach
+ * {@code RealTimeStockTicker} used before {@link SlidingWindow}: every overlapping
+ * window is materialised as its own list and averaged from scratch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovingAverageBenchmark {
+
+	@Param({ "60", "300", "3600" })
+	int window;
+
+	@Param({ "10000" })
+	int prices;
+
+	@Benchmark
+	public void buffer(Blackhole blackhole) {
+		Flux.range(0, prices)
+				.map(i -> 100 + (i % 50) * 0.5)
+				.buffer(window, 1)
+				.map(MovingAverageBenchmark::average)
+				.subscribe(blackhole::consume);
+	}
+
+	@Benchmark
+	public void slidingWindow(Blackhole blackhole) {
+		SlidingWindow moving = new SlidingWindow(window, 1, window);
+		for (int i = 0; i < prices; i++) {
+			moving.add(100 + (i % 50) * 0.5, i);
+			blackhole.consume(moving.mean(i));
+		}
+	}
+
+	@Benchmark
+	public void slidingWindowInFlux(Blackhole blackhole) {
+		SlidingWindow moving = new SlidingWindow(window, 1, window);
+		Flux.range(0, prices).map(i -> {
+			moving.add(100 + (i % 50) * 0.5, i);
+			return moving.mean(i);
+		}).subscribe(blackhole::consume);
+	}
+
+	private static double average(List<Double> values) {
+		return values.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
+	}
+}
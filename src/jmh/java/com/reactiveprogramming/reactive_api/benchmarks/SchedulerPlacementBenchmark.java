@@ -0,0 +1,80 @@
+package com.reactiveprogramming.reactive_api.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * The pipeline from {@code PublishVsSubscribeExample} with the thread hop in
+ * different places: {@code subscribeOn} runs the whole chain on one worker,
+ * {@code publishOn} adds a queue between the two maps, sized by {@code prefetch}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchedulerPlacementBenchmark {
+
+	@Param({ "parallel", "boundedElastic", "single" })
+	String scheduler;
+
+	@Param({ "32", "256" })
+	int prefetch;
+
+	@Param({ "100000" })
+	int items;
+
+	Scheduler workers;
+
+	@Setup
+	public void createScheduler() {
+		workers = switch (scheduler) {
+		case "parallel" -> Schedulers.newParallel("jmh-parallel");
+		case "boundedElastic" -> Schedulers.newBoundedElastic(10, 100_000, "jmh-elastic");
+		case "single" -> Schedulers.newSingle("jmh-single");
+		default -> throw new IllegalArgumentException(scheduler);
+		};
+	}
+
+	@TearDown
+	public void disposeScheduler() {
+		workers.dispose();
+	}
+
+	@Benchmark
+	public Integer subscribeOn() {
+		return Flux.range(0, items).map(i -> i + 1).subscribeOn(workers).map(i -> i * 2).blockLast();
+	}
+
+	@Benchmark
+	public Integer publishOn() {
+		return Flux.range(0, items).map(i -> i + 1).publishOn(workers, prefetch).map(i -> i * 2).blockLast();
+	}
+
+	@Benchmark
+	public Integer subscribeOnThenPublishOn() {
+		return Flux.range(0, items)
+				.map(i -> i + 1)
+				.subscribeOn(workers)
+				.publishOn(Schedulers.parallel(), prefetch)
+				.map(i -> i * 2)
+				.blockLast();
+	}
+}
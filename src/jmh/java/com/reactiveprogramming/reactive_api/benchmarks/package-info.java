@@ -0,0 +1 @@
+package com.reactiveprogramming.reactive_api.benchmarks;
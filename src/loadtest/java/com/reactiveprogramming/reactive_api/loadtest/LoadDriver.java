@@ -0,0 +1,128 @@
+package com.reactiveprogramming.reactive_api.loadtest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.LongStream;
+
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.reactiveprogramming.reactive_api.metrics.LatencyTimer;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs one {@link Scenario} for a warm-up period and then a measured one.
+ * <ul>
+ * <li>Closed loop: {@code concurrency} workers each send the next request as
+ * soon as the previous one finished, so it measures capacity but slows down
+ * with the server (and under-reports queueing).</li>
+ * <li>Open loop: requests are due at a fixed {@code rate} whatever the server
+ * does, and latency is measured from when a request was due, not when it
+ * could be sent, so a stall shows up in the percentiles instead of being
+ * hidden by fewer requests (no coordinated omission). Requests that are due
+ * while {@code maxInFlight} are outstanding are counted as dropped.</li>
+ * </ul>
+ */
+final class LoadDriver {
+
+	private static final double[] PERCENTILES = { 10, 25, 50, 75, 90, 95, 99, 99.9, 99.99, 100 };
+
+	/** Outcome of one measured run; latencies are in milliseconds. */
+	record Result(String scenario, String mode, int concurrency, double targetRate, long requests, long errors,
+			long dropped, double seconds, double throughput, LatencyTimer.Snapshot latency,
+			Map<String, Double> percentiles) {
+	}
+
+	private final WebClient client;
+
+	private final Duration warmup;
+
+	private final Duration duration;
+
+	LoadDriver(WebClient client, Duration warmup, Duration duration) {
+		this.client = client;
+		this.warmup = warmup;
+		this.duration = duration;
+	}
+
+	Result closedLoop(Scenario scenario, int concurrency) {
+		Window window = new Window();
+		Flux.range(0, concurrency)
+				.flatMap(worker -> Mono.defer(() -> send(scenario, System.nanoTime(), window))
+						.repeat(() -> System.nanoTime() < window.end), concurrency)
+				.blockLast();
+		return window.result(scenario, "closed", concurrency, 0);
+	}
+
+	Result openLoop(Scenario scenario, double rate, int maxInFlight) {
+		Window window = new Window();
+		long periodNanos = (long) (1_000_000_000L / rate);
+		AtomicLong issued = new AtomicLong();
+		// A 1ms tick releases every request that has come due since the last one, each with its own due time
+		Flux.interval(Duration.ofMillis(1))
+				.takeWhile(tick -> System.nanoTime() < window.end)
+				.concatMapIterable(tick -> {
+					long due = (System.nanoTime() - window.start) / periodNanos;
+					long from = issued.get();
+					issued.set(Math.max(from, due));
+					return LongStream.range(from, due).mapToObj(i -> window.start + i * periodNanos).toList();
+				})
+				.onBackpressureDrop(dueAt -> {
+					if (dueAt >= window.measureFrom) {
+						window.dropped.increment();
+					}
+				})
+				.flatMap(dueAt -> send(scenario, dueAt, window), maxInFlight)
+				.blockLast();
+		return window.result(scenario, "open", maxInFlight, rate);
+	}
+
+	private Mono<Void> send(Scenario scenario, long startNanos, Window window) {
+		return scenario.request().apply(client)
+				.then(Mono.fromRunnable(() -> window.success(startNanos)))
+				.onErrorResume(error -> Mono.fromRunnable(() -> window.error(startNanos)))
+				.then();
+	}
+
+	/** Warm-up then measurement; only requests that start in the measured part count. */
+	private final class Window {
+
+		final long start = System.nanoTime();
+
+		final long measureFrom = start + warmup.toNanos();
+
+		final long end = measureFrom + duration.toNanos();
+
+		final LatencyTimer latency = new LatencyTimer();
+
+		final LongAdder errors = new LongAdder();
+
+		final LongAdder dropped = new LongAdder();
+
+		void success(long startNanos) {
+			if (startNanos >= measureFrom) {
+				latency.recordSince(startNanos);
+			}
+		}
+
+		void error(long startNanos) {
+			if (startNanos >= measureFrom) {
+				errors.increment();
+			}
+		}
+
+		Result result(Scenario scenario, String mode, int concurrency, double rate) {
+			double seconds = duration.toNanos() / 1e9;
+			Map<String, Double> percentiles = new LinkedHashMap<>();
+			for (double percentile : PERCENTILES) {
+				percentiles.put(String.valueOf(percentile), latency.valueAtPercentile(percentile) / 1e6);
+			}
+			return new Result(scenario.name(), mode, concurrency, rate, latency.count(), errors.sum(),
+					dropped.sum(), seconds, latency.count() / seconds, latency.snapshot(), percentiles);
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package com.reactiveprogramming.reactive_api.loadtest;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactiveprogramming.reactive_api.ReactiveApiApplication;
+import com.reactiveprogramming.reactive_api.metrics.MetricsRegistry;
+
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Starts the application on a random port next to an {@link UpstreamStub},
+ * with its files root in a temporary directory holding a generated video and
+ * NDJSON file, then drives each scenario closed-loop and/or open-loop and
+ * writes a JSON report (per run: throughput, errors, latency percentiles, plus
+ * the server's own {@code http.*} metrics) that {@link ReportComparison} can
+ * diff against a baseline. Needs no network.
+ * <p>
+ * Options, all {@code --name=value}: {@code scenarios}
+ * (hello,users,posts,video,read_upload,copy,generate_file), {@code modes}
+ * (closed,open), {@code warmup} (5s), {@code duration} (20s),
+ * {@code concurrency} (32), {@code rate} (open-loop requests/s, 200),
+ * {@code scenario-rates} (per-scenario rates that override it, e.g.
+ * {@code read_upload:1,copy:5}), {@code max-in-flight} (1024),
+ * {@code stub-latency} (20ms), {@code stub-posts} (100),
+ * {@code stub-body-size} (200), {@code video-size} (64MB), {@code lines} (2000)
+ * and {@code report} (target/loadtest/report.json). Anything else starting with
+ * {@code --app.} is passed on to the application without the prefix.
+ */
+public class LoadTest {
+
+	public static void main(String[] args) throws IOException {
+		Map<String, String> options = defaults();
+		Map<String, String> appProperties = new LinkedHashMap<>();
+		for (String arg : args) {
+			int eq = arg.indexOf('=');
+			if (!arg.startsWith("--") || eq < 0) {
+				throw new IllegalArgumentException("Expected --name=value but got " + arg);
+			}
+			String name = arg.substring(2, eq);
+			if (name.startsWith("app.")) {
+				appProperties.put(name.substring(4), arg.substring(eq + 1));
+			} else if (options.containsKey(name)) {
+				options.put(name, arg.substring(eq + 1));
+			} else {
+				throw new IllegalArgumentException("Unknown option --" + name);
+			}
+		}
+
+		long videoSize = DataSize.parse(options.get("video-size")).toBytes();
+		Path filesRoot = Files.createTempDirectory("loadtest");
+		writeVideo(filesRoot.resolve(Scenario.VIDEO), videoSize);
+		writeLines(filesRoot.resolve(Scenario.LINES), Integer.parseInt(options.get("lines")));
+
+		int maxConnections = Math.max(Integer.parseInt(options.get("concurrency")),
+				Integer.parseInt(options.get("max-in-flight")));
+		ConnectionProvider connections = ConnectionProvider.builder("loadtest")
+				.maxConnections(maxConnections)
+				.pendingAcquireMaxCount(-1)
+				.build();
+		try (UpstreamStub stub = new UpstreamStub(duration(options.get("stub-latency")),
+				Integer.parseInt(options.get("stub-posts")), Integer.parseInt(options.get("stub-body-size")))) {
+			appProperties.putIfAbsent("server.port", "0");
+			appProperties.putIfAbsent("logging.level.root", "WARN");
+			appProperties.put("upstream.base-url", stub.baseUrl());
+			appProperties.put("files.root", filesRoot.toString());
+			appProperties.put("video.media-root", filesRoot.toString());
+			// As command-line arguments, so they win over application.properties
+			String[] appArgs = appProperties.entrySet().stream()
+					.map(property -> "--" + property.getKey() + "=" + property.getValue())
+					.toArray(String[]::new);
+			try (ConfigurableApplicationContext app = new SpringApplicationBuilder(ReactiveApiApplication.class)
+					.run(appArgs)) {
+				int port = app.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+				WebClient client = WebClient.builder()
+						.baseUrl("http://127.0.0.1:" + port)
+						.clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+						.build();
+
+				List<LoadDriver.Result> results = run(client, options, videoSize);
+
+				Map<String, Object> report = new LinkedHashMap<>();
+				report.put("timestamp", Instant.now().toString());
+				report.put("options", options);
+				report.put("app", appProperties);
+				report.put("results", results);
+				report.put("server", app.getBean(MetricsRegistry.class).snapshot("http."));
+				report.put("stub", Map.of("gets", stub.gets(), "posts", stub.posts()));
+				Path reportFile = Path.of(options.get("report"));
+				Files.createDirectories(reportFile.toAbsolutePath().getParent());
+				new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+				System.out.println("Report written to " + reportFile);
+			}
+		} finally {
+			connections.dispose();
+			FileSystemUtils.deleteRecursively(filesRoot);
+		}
+		// Reactor's schedulers keep non-daemon threads around
+		System.exit(0);
+	}
+
+	private static List<LoadDriver.Result> run(WebClient client, Map<String, String> options, long videoSize) {
+		LoadDriver driver = new LoadDriver(client, duration(options.get("warmup")), duration(options.get("duration")));
+		double rate = Double.parseDouble(options.get("rate"));
+		Map<String, Double> rates = new LinkedHashMap<>();
+		for (String scenarioRate : options.get("scenario-rates").split(",")) {
+			String[] parts = scenarioRate.split(":");
+			rates.put(parts[0].trim(), Double.parseDouble(parts[1]));
+		}
+		List<LoadDriver.Result> results = new ArrayList<>();
+		for (String name : options.get("scenarios").split(",")) {
+			Scenario scenario = Scenario.named(name.trim(), videoSize);
+			for (String mode : options.get("modes").split(",")) {
+				LoadDriver.Result result = switch (mode.trim()) {
+					case "closed" -> driver.closedLoop(scenario, Integer.parseInt(options.get("concurrency")));
+					case "open" -> driver.openLoop(scenario, rates.getOrDefault(scenario.name(), rate),
+							Integer.parseInt(options.get("max-in-flight")));
+					default -> throw new IllegalArgumentException("Unknown mode " + mode);
+				};
+				System.out.printf("%-14s %-6s %8d req %6d err %6d dropped %9.1f/s  p50 %8.2f  p99 %8.2f  p99.9 %8.2f"
+						+ "  max %8.2f ms%n", result.scenario(), result.mode(), result.requests(), result.errors(),
+						result.dropped(), result.throughput(), result.latency().p50Millis(),
+						result.latency().p99Millis(), result.latency().p999Millis(), result.latency().maxMillis());
+				results.add(result);
+			}
+		}
+		return results;
+	}
+
+	private static Map<String, String> defaults() {
+		Map<String, String> options = new LinkedHashMap<>();
+		options.put("scenarios", "hello,users,posts,video,read_upload,copy,generate_file");
+		options.put("modes", "closed,open");
+		options.put("warmup", "5s");
+		options.put("duration", "20s");
+		options.put("concurrency", "32");
+		options.put("rate", "200");
+		// Whole-file and streaming endpoints take seconds per request, so they get their own, lower rates
+		options.put("scenario-rates", "users:20,posts:20,read_upload:1,copy:5,generate_file:20");
+		options.put("max-in-flight", "1024");
+		options.put("stub-latency", "20ms");
+		options.put("stub-posts", "100");
+		options.put("stub-body-size", "200");
+		options.put("video-size", "64MB");
+		options.put("lines", "2000");
+		options.put("report", "target/loadtest/report.json");
+		return options;
+	}
+
+	private static Duration duration(String value) {
+		return DurationStyle.detectAndParse(value);
+	}
+
+	private static void writeVideo(Path path, long size) throws IOException {
+		Random random = new Random(42);
+		byte[] block = new byte[64 * 1024];
+		try (OutputStream out = Files.newOutputStream(path)) {
+			for (long written = 0; written < size; written += block.length) {
+				random.nextBytes(block);
+				out.write(block, 0, (int) Math.min(block.length, size - written));
+			}
+		}
+	}
+
+	private static void writeLines(Path path, int count) throws IOException {
+		try (BufferedWriter out = Files.newBufferedWriter(path)) {
+			for (int i = 0; i < count; i++) {
+				out.write("{\"id\":" + i + ",\"title\":\"load test line " + i + "\"}\n");
+			}
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.reactiveprogramming.reactive_api.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares a {@link LoadTest} report with a stored baseline and fails (exit
+ * status 1) when any run regressed by more than the threshold: throughput
+ * down, or p99 latency up. Runs are matched by scenario and mode.
+ * <p>
+ * Arguments: {@code <baseline.json> <report.json> [threshold, default 0.10]}. A
+ * missing baseline is created from the report, so the first run records one.
+ */
+public class ReportComparison {
+
+	public static void main(String[] args) throws IOException {
+		File baselineFile = new File(args[0]);
+		File reportFile = new File(args[1]);
+		double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+
+		ObjectMapper mapper = new ObjectMapper();
+		JsonNode report = mapper.readTree(reportFile);
+		if (!baselineFile.exists()) {
+			mapper.writerWithDefaultPrettyPrinter().writeValue(baselineFile, report);
+			System.out.println("No baseline yet; recorded " + reportFile + " as " + baselineFile);
+			return;
+		}
+		Map<String, JsonNode> baseline = index(mapper.readTree(baselineFile));
+
+		int regressions = 0;
+		for (Map.Entry<String, JsonNode> entry : index(report).entrySet()) {
+			JsonNode before = baseline.get(entry.getKey());
+			if (before == null) {
+				System.out.printf("NEW   %s%n", entry.getKey());
+				continue;
+			}
+			JsonNode after = entry.getValue();
+			double throughputChange = change(before.path("throughput").asDouble(), after.path("throughput").asDouble());
+			// Lower latency is better, so measure the drop to keep "positive is better"
+			double p99Change = p99(before) == 0 ? 0 : (p99(before) - p99(after)) / p99(before);
+			boolean regressed = throughputChange < -threshold || p99Change < -threshold;
+			if (regressed) {
+				regressions++;
+			}
+			System.out.printf("%-5s %-22s throughput %+7.1f%% (%.1f -> %.1f/s)  p99 %+7.1f%% (%.2f -> %.2f ms)%n",
+					regressed ? "WORSE" : "ok", entry.getKey(), throughputChange * 100,
+					before.path("throughput").asDouble(), after.path("throughput").asDouble(), p99Change * 100,
+					p99(before), p99(after));
+		}
+		if (regressions > 0) {
+			System.out.printf("%d run(s) regressed by more than %.0f%%%n", regressions, threshold * 100);
+			System.exit(1);
+		}
+	}
+
+	// Keyed by scenario and mode, e.g. "video open".
+	private static Map<String, JsonNode> index(JsonNode report) {
+		Map<String, JsonNode> byKey = new TreeMap<>();
+		for (JsonNode run : report.path("results")) {
+			byKey.put(run.path("scenario").asText() + " " + run.path("mode").asText(), run);
+		}
+		return byKey;
+	}
+
+	private static double change(double before, double after) {
+		return before == 0 ? 0 : (after - before) / before;
+	}
+
+	private static double p99(JsonNode run) {
+		return run.path("latency").path("p99Millis").asDouble();
+	}
+}
@@ -0,0 +1,58 @@
+package com.reactiveprogramming.reactive_api.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * One endpoint under load: a name and how to make one request, completing when
+ * the response counts as received. Streaming endpoints count from their first
+ * event; endpoints that report progress count once the last report arrives.
+ */
+record Scenario(String name, Function<WebClient, Mono<?>> request) {
+
+	static final String VIDEO = "loadtest.mp4";
+
+	static final String LINES = "loadtest-lines.txt";
+
+	static Scenario named(String name, long videoSize) {
+		return switch (name) {
+			case "hello" -> new Scenario(name, client -> client.get().uri("/hello").retrieve().bodyToMono(String.class));
+			case "users" -> new Scenario(name,
+					client -> client.get().uri("/users").retrieve().bodyToFlux(String.class).next());
+			case "posts" -> new Scenario(name,
+					client -> client.get().uri("/posts").retrieve().bodyToFlux(String.class).next());
+			case "video" -> new Scenario(name, client -> {
+				// A random range of up to 1 MB, like a player seeking around
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				long start = random.nextLong(videoSize);
+				long end = Math.min(videoSize - 1, start + random.nextLong(1024 * 1024));
+				return client.get().uri("/video?name=" + VIDEO)
+						.header(HttpHeaders.RANGE, "bytes=" + start + "-" + end)
+						.retrieve()
+						.bodyToFlux(DataBuffer.class)
+						.doOnNext(DataBufferUtils::release)
+						.then();
+			});
+			case "read_upload" -> new Scenario(name, client -> client.get()
+					.uri("/read_upload?file=" + LINES + "&batch=50")
+					.retrieve()
+					.bodyToFlux(String.class)
+					.last());
+			case "copy" -> new Scenario(name, client -> client.get()
+					.uri("/copy?source=" + LINES + "&target=copy-" + ThreadLocalRandom.current().nextInt(64) + ".txt")
+					.retrieve()
+					.bodyToFlux(String.class)
+					.last());
+			case "generate_file" -> new Scenario(name,
+					client -> client.get().uri("/generate_file").retrieve().bodyToMono(String.class));
+			default -> throw new IllegalArgumentException("Unknown scenario " + name);
+		};
+	}
+}
@@ -0,0 +1,78 @@
+package com.reactiveprogramming.reactive_api.loadtest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * In-process stand-in for the upstream API, so load tests need no network:
+ * {@code GET /posts} answers with a JSON array of {@code posts} posts whose
+ * bodies are {@code bodySize} characters long, and {@code POST /posts} accepts
+ * anything with a 201. Every response is delayed by {@code latency}.
+ */
+final class UpstreamStub implements AutoCloseable {
+
+	private final DisposableServer server;
+
+	private final LongAdder gets = new LongAdder();
+
+	private final LongAdder posts = new LongAdder();
+
+	UpstreamStub(Duration latency, int postCount, int bodySize) {
+		byte[] array = postsArray(postCount, bodySize);
+		this.server = HttpServer.create()
+				.host("127.0.0.1")
+				.port(0)
+				.route(routes -> routes
+						.get("/posts", (request, response) -> {
+							gets.increment();
+							return response.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+									.sendByteArray(Mono.delay(latency).thenReturn(array));
+						})
+						.post("/posts", (request, response) -> {
+							posts.increment();
+							return request.receive().then().then(Mono.delay(latency))
+									.then(response.status(HttpResponseStatus.CREATED)
+											.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+											.sendString(Mono.just("{}"))
+											.then());
+						}))
+				.bindNow();
+	}
+
+	String baseUrl() {
+		return "http://127.0.0.1:" + server.port();
+	}
+
+	long gets() {
+		return gets.sum();
+	}
+
+	long posts() {
+		return posts.sum();
+	}
+
+	@Override
+	public void close() {
+		server.disposeNow();
+	}
+
+	private static byte[] postsArray(int count, int bodySize) {
+		StringBuilder json = new StringBuilder("[\n");
+		String body = "x".repeat(bodySize);
+		for (int i = 1; i <= count; i++) {
+			json.append("  {\"userId\": ").append(i % 10).append(", \"id\": ").append(i)
+					.append(", \"title\": \"post ").append(i).append("\", \"body\": \"").append(body).append("\"}")
+					.append(i < count ? ",\n" : "\n");
+		}
+		return json.append("]").toString().getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,140 @@
+package com.reactiveprogramming.reactive_api.client;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.reactiveprogramming.reactive_api.metrics.LatencyTimer;
+import com.reactiveprogramming.reactive_api.metrics.MetricsRegistry;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * POSTs lines to the upstream API with a fixed number of requests in flight.
+ * Each line is a JSON record, sent one per request as JSON or
+ * {@code batchSize} per request as newline-delimited JSON. 5xx responses and connection errors are retried
+ * with exponential backoff; a request that still fails is counted and skipped,
+ * so one bad batch does not stop the upload.
+ */
+@Component
+public class BulkUploader {
+
+	/** A progress report; the last one has {@code done} set. */
+	public record UploadProgress(long linesSent, long requestsSucceeded, long requestsFailed, long retries,
+			double linesPerSecond, double p50Millis, double p99Millis, boolean done) {
+	}
+
+	private static final MediaType NDJSON = MediaType.APPLICATION_NDJSON;
+
+	private final WebClient webClient;
+
+	private final String uri;
+
+	private final int maxRetries;
+
+	private final Duration retryBackoff;
+
+	private final Duration progressInterval;
+
+	private final LatencyTimer requestTimer;
+
+	public BulkUploader(WebClient webClient, MetricsRegistry metricsRegistry,
+			@Value("${upload.uri:/posts}") String uri,
+			@Value("${upload.max-retries:3}") int maxRetries,
+			@Value("${upload.retry-backoff:200ms}") Duration retryBackoff,
+			@Value("${upload.progress-interval:1s}") Duration progressInterval) {
+		this.webClient = webClient;
+		this.uri = uri;
+		this.maxRetries = maxRetries;
+		this.retryBackoff = retryBackoff;
+		this.progressInterval = progressInterval;
+		this.requestTimer = metricsRegistry.timer("upload.request");
+	}
+
+	/**
+	 * Upload every line of {@code lines}, {@code batchSize} lines per request and at
+	 * most {@code maxInFlight} requests at a time. Lines are only pulled from the
+	 * source as request slots free up. Emits progress every progress interval and
+	 * a final report when the source is exhausted.
+	 */
+	public Flux<UploadProgress> upload(Flux<String> lines, int batchSize, int maxInFlight) {
+		return Flux.defer(() -> {
+			Tally tally = new Tally();
+			Mono<Void> work = lines.buffer(Math.max(1, batchSize))
+					.flatMap(batch -> send(batch, tally), Math.max(1, maxInFlight))
+					.then()
+					.cache();
+
+			Flux<UploadProgress> ticks = Flux.interval(progressInterval)
+					.map(tick -> tally.progress(false))
+					.takeUntilOther(work.onErrorResume(e -> Mono.empty()).then(Mono.just(true)));
+			return Flux.merge(ticks, work.then(Mono.fromSupplier(() -> tally.progress(true))));
+		});
+	}
+
+	private Mono<Void> send(List<String> batch, Tally tally) {
+		WebClient.RequestBodySpec request = webClient.post().uri(uri);
+		// A line is one JSON record; without an explicit type a String body would go out as text/plain
+		WebClient.RequestHeadersSpec<?> withBody = batch.size() == 1
+				? request.contentType(MediaType.APPLICATION_JSON).bodyValue(batch.get(0))
+				: request.contentType(NDJSON).bodyValue(String.join("\n", batch));
+
+		return Mono.defer(() -> {
+			long start = System.nanoTime();
+			return withBody.retrieve().toBodilessEntity().doOnSuccess(response -> {
+				requestTimer.recordSince(start);
+				tally.latency.recordSince(start);
+			});
+		}).retryWhen(Retry.backoff(maxRetries, retryBackoff)
+				.filter(BulkUploader::isRetryable)
+				.doBeforeRetry(signal -> tally.retries.increment()))
+				.doOnSuccess(response -> {
+					tally.succeeded.increment();
+					tally.lines.add(batch.size());
+				})
+				.onErrorResume(error -> {
+					tally.failed.increment();
+					return Mono.empty();
+				})
+				.then();
+	}
+
+	private static boolean isRetryable(Throwable error) {
+		if (error instanceof WebClientResponseException response) {
+			return response.getStatusCode().is5xxServerError();
+		}
+		// Connection refused/reset, timeouts and the like
+		return !(error instanceof IllegalArgumentException);
+	}
+
+	/** Per-upload counters. */
+	private static final class Tally {
+
+		final long startNanos = System.nanoTime();
+
+		final LongAdder lines = new LongAdder();
+
+		final LongAdder succeeded = new LongAdder();
+
+		final LongAdder failed = new LongAdder();
+
+		final LongAdder retries = new LongAdder();
+
+		final LatencyTimer latency = new LatencyTimer();
+
+		UploadProgress progress(boolean done) {
+			double seconds = Math.max(System.nanoTime() - startNanos, 1) / 1_000_000_000.0;
+			LatencyTimer.Snapshot snapshot = latency.snapshot();
+			return new UploadProgress(lines.sum(), succeeded.sum(), failed.sum(), retries.sum(),
+					lines.sum() / seconds, snapshot.p50Millis(), snapshot.p99Millis(), done);
+		}
+	}
+}
@@ -0,0 +1,5 @@
+package com.reactiveprogramming.reactive_api.client;
+
+/** One element of the upstream {@code /posts} array. Unknown fields are ignored. */
+public record Post(long id, long userId, String title, String body) {
+}
@@ -0,0 +1,206 @@
+package com.reactiveprogramming.reactive_api.client;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactiveprogramming.reactive_api.metrics.MetricsRegistry;
+import com.reactiveprogramming.reactive_api.utils.JsonArraySplitter;
+import com.reactiveprogramming.reactive_api.utils.SingleFlightCache;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Read-only calls to the upstream API, which answers with JSON arrays. The
+ * response is split into elements as it streams in (see
+ * {@link JsonArraySplitter}), never held as a whole unless it is small enough to
+ * cache. Arrays up to {@code upstream.cache.max-entry-bytes} are answered from
+ * a {@link SingleFlightCache} so identical concurrent requests (every
+ * {@code /posts} subscriber, every {@code /generate_file}) collapse into one
+ * outbound call. Larger ones are streamed from upstream on every call with
+ * memory bounded by the largest element; the call whose miss found out gets
+ * the prefix it read plus the rest of that same response, so it costs one
+ * upstream request like any other. Cache counters are published under
+ * {@code upstream.cache.*}.
+ */
+@Component
+public class UpstreamClient {
+
+	// Cached in place of the elements of an array too large to cache, so later calls stream straight away
+	private static final List<String> TOO_LARGE = Collections.unmodifiableList(new ArrayList<>());
+
+	// Elements of an oversized response buffered while its prefix is handed over to the caller that loaded it
+	private static final int REMAINDER_PREFETCH = 16;
+
+	private final WebClient webClient;
+
+	private final SingleFlightCache<String, List<String>> cache;
+
+	private final ObjectMapper objectMapper;
+
+	private final int maxElementSize;
+
+	private final long maxEntryBytes;
+
+	public UpstreamClient(WebClient webClient, ObjectMapper objectMapper, MetricsRegistry metricsRegistry,
+			@Value("${upstream.max-element-size:262144}") int maxElementSize,
+			@Value("${upstream.cache.max-bytes:16777216}") long maxBytes,
+			@Value("${upstream.cache.max-entry-bytes:1048576}") long maxEntryBytes,
+			@Value("${upstream.cache.ttl:30s}") Duration ttl,
+			@Value("${upstream.cache.stale-while-revalidate:30s}") Duration staleWhileRevalidate) {
+		this.webClient = webClient;
+		this.objectMapper = objectMapper;
+		this.maxElementSize = maxElementSize;
+		this.maxEntryBytes = maxEntryBytes;
+		this.cache = new SingleFlightCache<>(maxBytes, UpstreamClient::weigh, ttl, staleWhileRevalidate);
+
+		metricsRegistry.gauge("upstream.cache.hits", () -> cache.stats().hits());
+		metricsRegistry.gauge("upstream.cache.stale-hits", () -> cache.stats().staleHits());
+		metricsRegistry.gauge("upstream.cache.misses", () -> cache.stats().misses());
+		metricsRegistry.gauge("upstream.cache.loads", () -> cache.stats().loads());
+		metricsRegistry.gauge("upstream.cache.load-failures", () -> cache.stats().loadFailures());
+		metricsRegistry.gauge("upstream.cache.evictions", () -> cache.stats().evictions());
+		metricsRegistry.gauge("upstream.cache.size", () -> cache.stats().size());
+		metricsRegistry.gauge("upstream.cache.bytes", () -> cache.stats().weight());
+	}
+
+	/**
+	 * GET the JSON array at {@code uri} and stream the raw JSON of its elements,
+	 * one compact element per item, for callers that pass them through untouched.
+	 */
+	public Flux<String> get(String uri) {
+		return Flux.defer(() -> {
+			Remainder remainder = new Remainder();
+			return cache.get(uri, key -> loadCacheable(key, remainder))
+					.flatMapMany(elements -> {
+						if (elements != TOO_LARGE) {
+							remainder.close();
+							return Flux.fromIterable(elements);
+						}
+						Flux<String> rest = remainder.claim();
+						return rest != null ? rest : stream(uri);
+					})
+					.doFinally(signal -> remainder.close());
+		});
+	}
+
+	/** GET the JSON array at {@code uri} and bind each element to {@code type} as soon as it has arrived. */
+	public <T> Flux<T> get(String uri, Class<T> type) {
+		return get(uri).map(json -> read(json, type));
+	}
+
+	public Flux<Post> posts() {
+		return get("/posts", Post.class);
+	}
+
+	private Flux<String> stream(String uri) {
+		return JsonArraySplitter.split(webClient.get().uri(uri).retrieve().bodyToFlux(DataBuffer.class),
+				maxElementSize);
+	}
+
+	// Collects the elements while they fit in one cache entry, and gives up on the first one that doesn't. The
+	// response is then left connected and offered, behind the prefix, to the caller whose miss started the load.
+	private Mono<List<String>> loadCacheable(String uri, Remainder remainder) {
+		return Mono.defer(() -> {
+			long[] weight = new long[1];
+			AtomicReference<Disposable> connection = new AtomicReference<>();
+			Flux<String> response = stream(uri).publish(REMAINDER_PREFETCH).autoConnect(1, connection::set);
+			return response.takeUntil(element -> (weight[0] += weigh(element)) > maxEntryBytes)
+					.collectList()
+					.map(elements -> {
+						if (weight[0] <= maxEntryBytes) {
+							return elements;
+						}
+						Disposable upstream = connection.get();
+						remainder.offer(Flux.fromIterable(elements).concatWith(response)
+								.doFinally(signal -> upstream.dispose()), upstream);
+						return TOO_LARGE;
+					})
+					// A failed or cancelled load leaves nothing to hand over
+					.doOnCancel(() -> {
+						Disposable upstream = connection.get();
+						if (upstream != null) {
+							upstream.dispose();
+						}
+					});
+		});
+	}
+
+	/**
+	 * The rest of an oversized response, passed from a load to the call that
+	 * started it. Whichever of {@link #offer} and {@link #close} comes second
+	 * cancels the response if the call did not {@link #claim} it.
+	 */
+	private static final class Remainder {
+
+		// Guarded by this
+		private Flux<String> rest;
+
+		private Disposable upstream;
+
+		private boolean closed;
+
+		synchronized void offer(Flux<String> rest, Disposable upstream) {
+			if (closed) {
+				upstream.dispose();
+				return;
+			}
+			this.rest = rest;
+			this.upstream = upstream;
+		}
+
+		/** The rest, or null if the load has not offered one (yet); the rest then disposes the response itself. */
+		synchronized Flux<String> claim() {
+			Flux<String> claimed = rest;
+			closed = true;
+			rest = null;
+			upstream = null;
+			return claimed;
+		}
+
+		void close() {
+			Disposable unclaimed;
+			synchronized (this) {
+				closed = true;
+				unclaimed = upstream;
+				rest = null;
+				upstream = null;
+			}
+			if (unclaimed != null) {
+				unclaimed.dispose();
+			}
+		}
+	}
+
+	private <T> T read(String json, Class<T> type) {
+		try {
+			return objectMapper.readValue(json, type);
+		} catch (JsonProcessingException e) {
+			throw new DecodingException("Cannot bind upstream element to " + type.getSimpleName(), e);
+		}
+	}
+
+	private static long weigh(String element) {
+		return 2L * element.length();
+	}
+
+	private static long weigh(List<String> elements) {
+		long bytes = 0;
+		for (String element : elements) {
+			bytes += weigh(element);
+		}
+		return bytes;
+	}
+}
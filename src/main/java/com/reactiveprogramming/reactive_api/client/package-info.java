@@ -0,0 +1 @@
+package com.reactiveprogramming.reactive_api.client;
\ No newline at end of file
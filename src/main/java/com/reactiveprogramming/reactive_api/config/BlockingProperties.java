@@ -0,0 +1,26 @@
+package com.reactiveprogramming.reactive_api.config;
+
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import com.reactiveprogramming.reactive_api.utils.BlockingSchedulers;
+
+/**
+ * Where blocking stages run ({@code blocking.*}).
+ *
+ * @param mode      default for every pipeline
+ * @param pipelines per-pipeline overrides, e.g. {@code blocking.pipelines.copy=BOUNDED_ELASTIC};
+ *                  the pipelines are {@code copy}, {@code generate-file}, {@code video-cache},
+ *                  {@code ingest} and {@code compression}
+ */
+@ConfigurationProperties("blocking")
+public record BlockingProperties(
+		@DefaultValue("AUTO") BlockingSchedulers.Mode mode,
+		Map<String, BlockingSchedulers.Mode> pipelines) {
+
+	public BlockingProperties {
+		pipelines = pipelines == null ? Map.of() : pipelines;
+	}
+}
@@ -0,0 +1,70 @@
+package com.reactiveprogramming.reactive_api.config;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import com.reactiveprogramming.reactive_api.controller.ContentEncoding;
+import com.reactiveprogramming.reactive_api.metrics.MetricsRegistry;
+import com.reactiveprogramming.reactive_api.utils.BlockingSchedulers;
+import com.reactiveprogramming.reactive_api.utils.GzipEncoder;
+import com.reactiveprogramming.reactive_api.utils.PrecompressedFiles;
+
+@Configuration
+@EnableConfigurationProperties(CompressionProperties.class)
+public class CompressionConfiguration {
+
+	@Bean
+	public ContentEncoding contentEncoding(CompressionProperties properties, BlockingSchedulers blockingSchedulers,
+			MetricsRegistry metricsRegistry) {
+		GzipEncoder encoder = new GzipEncoder(properties.level(), (int) properties.bufferSize().toBytes(),
+				properties.deflaterPoolSize());
+		CompressionProperties.Sidecars sidecarProperties = properties.sidecars();
+		PrecompressedFiles sidecars = sidecarProperties.enabled()
+				? new PrecompressedFiles(sidecarDirectory(sidecarProperties), sidecarProperties.level(),
+						sidecarProperties.maxRatio(), sidecarProperties.minAge(),
+						blockingSchedulers.forPipeline("compression"))
+				: null;
+		ContentEncoding contentEncoding = new ContentEncoding(properties.enabled(), properties.minSize().toBytes(),
+				properties.skipTypes(), encoder, sidecars);
+
+		// On the fly
+		metricsRegistry.gauge("compression.gzip.responses", () -> encoder.stats().encodings());
+		metricsRegistry.gauge("compression.gzip.bytes-in", () -> encoder.stats().bytesIn());
+		metricsRegistry.gauge("compression.gzip.bytes-out", () -> encoder.stats().bytesOut());
+		metricsRegistry.gauge("compression.gzip.cpu-millis-per-mb", () -> encoder.stats().cpuMillisPerMegabyte());
+		metricsRegistry.gauge("compression.gzip.deflaters-created", () -> encoder.stats().deflatersCreated());
+		metricsRegistry.gauge("compression.gzip.deflaters-idle", () -> encoder.stats().deflatersIdle());
+		// From sidecars
+		metricsRegistry.gauge("compression.precompressed.responses",
+				() -> contentEncoding.stats().precompressedResponses());
+		if (sidecars != null) {
+			metricsRegistry.gauge("compression.precompressed.hits", () -> sidecars.stats().hits());
+			metricsRegistry.gauge("compression.precompressed.misses", () -> sidecars.stats().misses());
+			metricsRegistry.gauge("compression.precompressed.generated", () -> sidecars.stats().generated());
+			metricsRegistry.gauge("compression.precompressed.reused", () -> sidecars.stats().reused());
+			metricsRegistry.gauge("compression.precompressed.invalidations", () -> sidecars.stats().invalidations());
+			metricsRegistry.gauge("compression.precompressed.incompressible",
+					() -> sidecars.stats().incompressible());
+			metricsRegistry.gauge("compression.precompressed.too-recent", () -> sidecars.stats().tooRecent());
+			metricsRegistry.gauge("compression.precompressed.failures", () -> sidecars.stats().failures());
+		}
+		// Egress saved by either path
+		metricsRegistry.gauge("compression.bytes-saved", () -> {
+			GzipEncoder.Stats onTheFly = encoder.stats();
+			ContentEncoding.Stats precompressed = contentEncoding.stats();
+			return onTheFly.bytesIn() - onTheFly.bytesOut() + precompressed.precompressedBytesIn()
+					- precompressed.precompressedBytesOut();
+		});
+		return contentEncoding;
+	}
+
+	private static Path sidecarDirectory(CompressionProperties.Sidecars properties) {
+		return StringUtils.hasText(properties.directory()) ? Paths.get(properties.directory())
+				: Paths.get(System.getProperty("java.io.tmpdir"), "reactive-api", "gzip");
+	}
+}
@@ -0,0 +1,49 @@
+package com.reactiveprogramming.reactive_api.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.http.MediaType;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Content-encoding negotiation for file responses ({@code compression.*}).
+ *
+ * @param enabled          gzip responses for clients that accept it; off means always identity
+ * @param level            deflate level for on-the-fly compression, where speed matters most
+ * @param minSize          smaller files are sent as they are
+ * @param skipTypes        media types that are already compressed (wildcards allowed)
+ * @param bufferSize       size of the compressed chunks sent on the fly
+ * @param deflaterPoolSize idle deflaters kept for reuse
+ * @param sidecars         precompressed copies generated in the background
+ */
+@ConfigurationProperties("compression")
+public record CompressionProperties(
+		@DefaultValue("true") boolean enabled,
+		@DefaultValue("6") int level,
+		@DefaultValue("1KB") DataSize minSize,
+		@DefaultValue({ "video/*", "audio/*", "image/*", "font/woff", "font/woff2", "application/zip",
+				"application/gzip", "application/x-gzip", "application/zstd", "application/x-7z-compressed",
+				"application/x-rar-compressed", "application/pdf" }) List<MediaType> skipTypes,
+		@DefaultValue("32KB") DataSize bufferSize,
+		@DefaultValue("32") int deflaterPoolSize,
+		@DefaultValue Sidecars sidecars) {
+
+	/**
+	 * @param enabled   serve (and generate) precompressed sidecars when present
+	 * @param directory where sidecars are kept, mirroring the absolute paths of their sources; defaults to
+	 *                  {@code reactive-api/gzip} under the system temp directory
+	 * @param level     deflate level for sidecars, which are compressed once
+	 * @param maxRatio  sources that do not shrink below this fraction are served as they are
+	 * @param minAge    sources modified more recently than this (still being written) are only compressed on the fly
+	 */
+	public record Sidecars(
+			@DefaultValue("true") boolean enabled,
+			String directory,
+			@DefaultValue("9") int level,
+			@DefaultValue("0.9") double maxRatio,
+			@DefaultValue("30s") Duration minAge) {
+	}
+}
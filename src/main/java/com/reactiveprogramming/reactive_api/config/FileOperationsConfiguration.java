@@ -0,0 +1,87 @@
+package com.reactiveprogramming.reactive_api.config;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.reactiveprogramming.reactive_api.metrics.MetricsRegistry;
+import com.reactiveprogramming.reactive_api.utils.BlockingSchedulers;
+import com.reactiveprogramming.reactive_api.utils.DirectoryIngest;
+import com.reactiveprogramming.reactive_api.utils.DirectoryIngest.RecordTransform;
+import com.reactiveprogramming.reactive_api.utils.FileCopyEngine;
+import com.reactiveprogramming.reactive_api.utils.LineSink;
+
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+@EnableConfigurationProperties(BlockingProperties.class)
+public class FileOperationsConfiguration {
+
+	@Bean(destroyMethod = "close")
+	public BlockingSchedulers blockingSchedulers(BlockingProperties properties, MetricsRegistry metricsRegistry) {
+		BlockingSchedulers schedulers = new BlockingSchedulers(properties.mode(), properties.pipelines());
+		metricsRegistry.gauge("blocking.virtual-threads-supported",
+				() -> BlockingSchedulers.virtualThreadsSupported() ? 1 : 0);
+		return schedulers;
+	}
+
+	@Bean
+	public FileCopyEngine fileCopyEngine(@Value("${files.copy.parallelism:4}") int parallelism,
+			@Value("${files.copy.chunk-size:1048576}") int chunkSize,
+			@Value("${files.copy.mode:AUTO}") FileCopyEngine.Mode mode,
+			@Value("${files.copy.progress-interval:500ms}") Duration progressInterval,
+			BlockingSchedulers blockingSchedulers) {
+		return new FileCopyEngine(parallelism, chunkSize, mode, progressInterval,
+				blockingSchedulers.forPipeline("copy"));
+	}
+
+	@Bean(destroyMethod = "close")
+	public LineSink outputLineSink(@Value("${files.root:.}") String filesRoot,
+			@Value("${files.output.name:output.txt}") String name,
+			@Value("${files.output.batch-size:1024}") int batchSize,
+			@Value("${files.output.batch-delay:50ms}") Duration batchDelay,
+			@Value("${files.output.force-interval:0s}") Duration forceInterval,
+			@Value("${files.output.sequenced:false}") boolean sequenced, BlockingSchedulers blockingSchedulers) {
+		// Opened on the first write, so starting the application creates no file
+		return LineSink.open(Paths.get(filesRoot).resolve(name), batchSize, batchDelay, forceInterval, sequenced,
+				blockingSchedulers.forPipeline("generate-file"));
+	}
+
+	@Bean
+	public DirectoryIngest directoryIngest(@Value("${files.ingest.parallelism:0}") int parallelism,
+			@Value("${files.ingest.concurrency-per-disk:4}") int concurrencyPerDisk,
+			@Value("${files.ingest.batch-size:1024}") int batchSize,
+			@Value("${files.lines.chunk-size:65536}") int chunkSize,
+			@Value("${files.lines.max-length:1048576}") int maxLineLength, BlockingSchedulers blockingSchedulers,
+			MetricsRegistry metricsRegistry) {
+		DirectoryIngest ingest = new DirectoryIngest(parallelism, concurrencyPerDisk, batchSize, chunkSize,
+				maxLineLength, blockingSchedulers.forPipeline("ingest"), Schedulers.parallel());
+		metricsRegistry.gauge("ingest.files", () -> ingest.stats().files());
+		metricsRegistry.gauge("ingest.failed-files", () -> ingest.stats().failedFiles());
+		metricsRegistry.gauge("ingest.bytes", () -> ingest.stats().bytes());
+		metricsRegistry.gauge("ingest.records", () -> ingest.stats().records());
+		metricsRegistry.gauge("ingest.written", () -> ingest.stats().written());
+		return ingest;
+	}
+
+	// Record transforms for /ingest, picked with ?transform= by the bean name after the prefix
+	@Bean(RecordTransform.BEAN_NAME_PREFIX + "identity")
+	public RecordTransform identityTransform() {
+		return (file, record) -> record;
+	}
+
+	// Prefixes each record with its file, so unordered output can still be attributed
+	@Bean(RecordTransform.BEAN_NAME_PREFIX + "tagged")
+	public RecordTransform taggedTransform() {
+		return (file, record) -> file + "\t" + record;
+	}
+
+	@Bean(RecordTransform.BEAN_NAME_PREFIX + "nonBlank")
+	public RecordTransform nonBlankTransform() {
+		return (file, record) -> record.isBlank() ? null : record.strip();
+	}
+}
@@ -0,0 +1,68 @@
+package com.reactiveprogramming.reactive_api.config;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+import com.reactiveprogramming.reactive_api.metrics.HttpMetricsFilter;
+import com.reactiveprogramming.reactive_api.metrics.MetricsRegistry;
+import com.reactiveprogramming.reactive_api.metrics.PipelineMetrics;
+import com.reactiveprogramming.reactive_api.metrics.SchedulerMetrics;
+import com.reactiveprogramming.reactive_api.utils.ByteBufferPool;
+
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocatorMetric;
+
+@Configuration
+public class MetricsConfiguration {
+
+	/**
+	 * Measures Reactor's schedulers. Created before the registry, and so before any
+	 * bean that records metrics and might create a scheduler; removed on shutdown.
+	 */
+	@Bean
+	public SchedulerMetrics schedulerMetrics() {
+		return SchedulerMetrics.install();
+	}
+
+	@Bean
+	@DependsOn("schedulerMetrics")
+	public MetricsRegistry metricsRegistry() {
+		MetricsRegistry registry = new MetricsRegistry();
+		SchedulerMetrics.bindTo(registry);
+		registerBufferGauges(registry);
+		return registry;
+	}
+
+	@Bean
+	public PipelineMetrics pipelineMetrics(MetricsRegistry metricsRegistry) {
+		return new PipelineMetrics(metricsRegistry);
+	}
+
+	@Bean
+	public HttpMetricsFilter httpMetricsFilter(MetricsRegistry metricsRegistry) {
+		return new HttpMetricsFilter(metricsRegistry);
+	}
+
+	private static void registerBufferGauges(MetricsRegistry registry) {
+		// Our own pooled file buffers
+		registry.gauge("buffers.file-pool.in-use-bytes", ByteBufferPool::totalInUseBytes);
+		registry.gauge("buffers.file-pool.allocated-bytes", ByteBufferPool::totalAllocatedBytes);
+
+		// Netty's pooled allocator, which backs request and response buffers
+		PooledByteBufAllocatorMetric netty = PooledByteBufAllocator.DEFAULT.metric();
+		registry.gauge("buffers.netty.used-direct-bytes", netty::usedDirectMemory);
+		registry.gauge("buffers.netty.used-heap-bytes", netty::usedHeapMemory);
+		registry.gauge("buffers.netty.thread-caches", netty::numThreadLocalCaches);
+
+		// Everything the JVM has handed out off-heap: "direct" and "mapped"
+		for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+			String prefix = "buffers.jvm." + pool.getName().replaceAll("[^A-Za-z0-9]+", "-");
+			registry.gauge(prefix + ".count", pool::getCount);
+			registry.gauge(prefix + ".used-bytes", pool::getMemoryUsed);
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package com.reactiveprogramming.reactive_api.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.reactiveprogramming.reactive_api.controller.SseCoalescingFilter;
+import com.reactiveprogramming.reactive_api.metrics.MetricsRegistry;
+
+@Configuration
+@EnableConfigurationProperties(SseProperties.class)
+public class SseConfiguration {
+
+	@Bean
+	public SseCoalescingFilter sseCoalescingFilter(SseProperties properties, MetricsRegistry metricsRegistry) {
+		return new SseCoalescingFilter(properties.enabled(), properties.maxDelay(), properties.maxBytes().toBytes(),
+				properties.maxEvents(), metricsRegistry);
+	}
+}
@@ -0,0 +1,23 @@
+package com.reactiveprogramming.reactive_api.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * How server-sent events are coalesced into frames ({@code sse.coalescing.*}).
+ *
+ * @param enabled   coalesce; when off every event is flushed on its own (events-per-flush is still recorded)
+ * @param maxDelay  how long the first event of a frame may wait for company
+ * @param maxBytes  a frame is flushed as soon as it holds at least this much, so it exceeds it by less than one event
+ * @param maxEvents a frame is flushed once it holds this many events
+ */
+@ConfigurationProperties("sse.coalescing")
+public record SseProperties(
+		@DefaultValue("true") boolean enabled,
+		@DefaultValue("10ms") Duration maxDelay,
+		@DefaultValue("16KB") DataSize maxBytes,
+		@DefaultValue("256") int maxEvents) {
+}
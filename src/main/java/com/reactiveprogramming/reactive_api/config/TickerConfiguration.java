@@ -0,0 +1,68 @@
+package com.reactiveprogramming.reactive_api.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.reactiveprogramming.reactive_api.metrics.MetricsRegistry;
+import com.reactiveprogramming.reactive_api.utils.BroadcastHub;
+import com.reactiveprogramming.reactive_api.utils.HashedTimerWheel;
+import com.reactiveprogramming.reactive_api.utils.KeyedTickerEngine;
+import com.reactiveprogramming.reactive_api.utils.KeyedTickerEngine.TickerUpdate;
+import com.reactiveprogramming.reactive_api.utils.SimulatedPriceFeed;
+
+@Configuration
+public class TickerConfiguration {
+
+	@Bean(destroyMethod = "close")
+	public HashedTimerWheel tickerTimerWheel(@Value("${ticker.wheel.tick:100ms}") Duration tick,
+			@Value("${ticker.wheel.size:512}") int size) {
+		return new HashedTimerWheel("ticker-wheel", tick, size);
+	}
+
+	@Bean(destroyMethod = "close")
+	public KeyedTickerEngine keyedTickerEngine(HashedTimerWheel tickerTimerWheel,
+			@Value("${ticker.slide:1s}") Duration slide,
+			@Value("${ticker.buckets-per-window:60}") int bucketsPerWindow,
+			@Value("${ticker.idle-timeout:1h}") Duration idleTimeout,
+			@Value("${ticker.max-symbols:10000}") int maxSymbols, MetricsRegistry metricsRegistry) {
+		KeyedTickerEngine engine = new KeyedTickerEngine(tickerTimerWheel, slide, bucketsPerWindow, idleTimeout,
+				maxSymbols);
+		metricsRegistry.gauge("ticker.symbols", engine::symbolCount);
+		metricsRegistry.gauge("ticker.symbols-evicted", engine::symbolsEvicted);
+		metricsRegistry.gauge("ticker.prices-received", engine::pricesReceived);
+		metricsRegistry.gauge("ticker.prices-rejected", engine::pricesRejected);
+		metricsRegistry.gauge("ticker.wheel.failures", tickerTimerWheel::failures);
+		return engine;
+	}
+
+	// One engine subscription per symbol, however many dashboards are watching it
+	@Bean(destroyMethod = "close")
+	public BroadcastHub<String, TickerUpdate> tickerHub(KeyedTickerEngine keyedTickerEngine,
+			@Value("${ticker.hub.replay:5}") int replay, MetricsRegistry metricsRegistry) {
+		BroadcastHub<String, TickerUpdate> hub = new BroadcastHub<>("ticker.hub",
+				symbol -> keyedTickerEngine.updates(List.of(symbol)), replay, metricsRegistry);
+		metricsRegistry.gauge("ticker.hub.topics", hub::topicCount);
+		metricsRegistry.gauge("ticker.hub.subscribers", hub::subscriberCount);
+		return hub;
+	}
+
+	@Bean(destroyMethod = "close")
+	public SimulatedPriceFeed simulatedPriceFeed(KeyedTickerEngine keyedTickerEngine,
+			HashedTimerWheel tickerTimerWheel,
+			@Value("${ticker.simulation.symbols:}") List<String> symbols,
+			@Value("${ticker.simulation.updates-per-second:20}") int updatesPerSecond) {
+		return new SimulatedPriceFeed(keyedTickerEngine, tickerTimerWheel, symbols, updatesPerSecond);
+	}
+
+	// The feed starts publishing when it is constructed, and no other bean depends on it. It stays eager under
+	// spring.main.lazy-initialization=true so prices flow (and averages warm up) before the first /ticker client.
+	@Bean
+	public static LazyInitializationExcludeFilter eagerPriceFeed() {
+		return LazyInitializationExcludeFilter.forBeanTypes(SimulatedPriceFeed.class);
+	}
+}
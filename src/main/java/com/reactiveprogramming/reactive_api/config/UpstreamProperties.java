@@ -0,0 +1,36 @@
+package com.reactiveprogramming.reactive_api.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the shared outbound WebClient ({@code upstream.*}).
+ *
+ * @param baseUrl                 base URL of the upstream API; point it at a local stub in tests
+ * @param maxConnections          connections per remote address
+ * @param pendingAcquireMaxCount  requests allowed to queue for a connection before failing fast
+ * @param pendingAcquireTimeout   how long a request may wait for a connection
+ * @param maxIdleTime             idle connections older than this are closed
+ * @param maxLifeTime             connections older than this are closed after their current request
+ * @param evictionInterval        how often idle/expired connections are evicted in the background
+ * @param connectTimeout          TCP connect timeout
+ * @param responseTimeout         maximum time between request sent and response received
+ * @param http2                   prefer HTTP/2 (h2 over TLS, h2c otherwise), falling back to HTTP/1.1
+ * @param keepAlive               keep HTTP/1.1 connections alive between requests
+ */
+@ConfigurationProperties("upstream")
+public record UpstreamProperties(
+		@DefaultValue("https://jsonplaceholder.typicode.com") String baseUrl,
+		@DefaultValue("200") int maxConnections,
+		@DefaultValue("1000") int pendingAcquireMaxCount,
+		@DefaultValue("5s") Duration pendingAcquireTimeout,
+		@DefaultValue("30s") Duration maxIdleTime,
+		@DefaultValue("5m") Duration maxLifeTime,
+		@DefaultValue("30s") Duration evictionInterval,
+		@DefaultValue("3s") Duration connectTimeout,
+		@DefaultValue("10s") Duration responseTimeout,
+		@DefaultValue("false") boolean http2,
+		@DefaultValue("true") boolean keepAlive) {
+}
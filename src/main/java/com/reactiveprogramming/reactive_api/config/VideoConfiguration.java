@@ -0,0 +1,32 @@
+package com.reactiveprogramming.reactive_api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import com.reactiveprogramming.reactive_api.metrics.MetricsRegistry;
+import com.reactiveprogramming.reactive_api.utils.BlockingSchedulers;
+import com.reactiveprogramming.reactive_api.utils.SegmentCache;
+
+@Configuration
+public class VideoConfiguration {
+
+	@Bean
+	public SegmentCache videoSegmentCache(@Value("${video.cache.max-size:256MB}") DataSize maxSize,
+			@Value("${video.cache.segment-size:1MB}") DataSize segmentSize,
+			@Value("${video.cache.eviction:LFU}") SegmentCache.Eviction eviction,
+			@Value("${video.cache.storage:DIRECT}") SegmentCache.Storage storage,
+			BlockingSchedulers blockingSchedulers, MetricsRegistry metricsRegistry) {
+		SegmentCache cache = new SegmentCache(maxSize.toBytes(), (int) segmentSize.toBytes(), eviction, storage,
+				blockingSchedulers.forPipeline("video-cache"));
+		metricsRegistry.gauge("video.cache.hits", () -> cache.stats().hits());
+		metricsRegistry.gauge("video.cache.misses", () -> cache.stats().misses());
+		metricsRegistry.gauge("video.cache.evictions", () -> cache.stats().evictions());
+		metricsRegistry.gauge("video.cache.invalidations", () -> cache.stats().invalidations());
+		metricsRegistry.gauge("video.cache.hit-ratio", () -> cache.stats().hitRatio());
+		metricsRegistry.gauge("video.cache.segments", () -> cache.stats().segments());
+		metricsRegistry.gauge("video.cache.resident-bytes", () -> cache.stats().residentBytes());
+		return cache;
+	}
+}
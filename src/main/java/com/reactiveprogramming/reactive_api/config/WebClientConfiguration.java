@@ -0,0 +1,86 @@
+package com.reactiveprogramming.reactive_api.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.reactiveprogramming.reactive_api.metrics.ConnectionPoolGauges;
+import com.reactiveprogramming.reactive_api.metrics.LatencyTimer;
+import com.reactiveprogramming.reactive_api.metrics.MetricsRegistry;
+
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * The one outbound WebClient the application uses. Building a WebClient per
+ * request throws away pooled connections and TLS sessions every time; this one
+ * shares a tuned connection pool and records pool gauges plus
+ * {@code upstream.acquire} (exchange start until the request goes out on a
+ * connection) and {@code upstream.request} (exchange start until the response
+ * arrives) latencies.
+ */
+@Configuration
+@EnableConfigurationProperties(UpstreamProperties.class)
+public class WebClientConfiguration {
+
+	private static final String EXCHANGE_START = WebClientConfiguration.class.getName() + ".EXCHANGE_START";
+
+	@Bean(destroyMethod = "dispose")
+	public ConnectionProvider upstreamConnectionProvider(UpstreamProperties properties,
+			MetricsRegistry metricsRegistry) {
+		ConnectionPoolGauges gauges = new ConnectionPoolGauges(metricsRegistry, "upstream.pool");
+		return ConnectionProvider.builder("upstream")
+				.maxConnections(properties.maxConnections())
+				.pendingAcquireMaxCount(properties.pendingAcquireMaxCount())
+				.pendingAcquireTimeout(properties.pendingAcquireTimeout())
+				.maxIdleTime(properties.maxIdleTime())
+				.maxLifeTime(properties.maxLifeTime())
+				.evictInBackground(properties.evictionInterval())
+				.metrics(true, () -> gauges)
+				.build();
+	}
+
+	@Bean
+	public WebClient upstreamWebClient(WebClient.Builder builder, ConnectionProvider upstreamConnectionProvider,
+			UpstreamProperties properties, MetricsRegistry metricsRegistry) {
+		LatencyTimer acquireTimer = metricsRegistry.timer("upstream.acquire");
+		LatencyTimer requestTimer = metricsRegistry.timer("upstream.request");
+
+		HttpClient httpClient = HttpClient.create(upstreamConnectionProvider)
+				.protocol(protocols(properties))
+				.keepAlive(properties.keepAlive())
+				.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.connectTimeout().toMillis())
+				.responseTimeout(properties.responseTimeout())
+				.doOnRequest((request, connection) -> {
+					Long start = request.currentContextView().getOrDefault(EXCHANGE_START, null);
+					if (start != null) {
+						acquireTimer.recordSince(start);
+					}
+				});
+
+		ExchangeFilterFunction timing = (request, next) -> {
+			long start = System.nanoTime();
+			return next.exchange(request)
+					.doOnNext(response -> requestTimer.recordSince(start))
+					.contextWrite(context -> context.put(EXCHANGE_START, start));
+		};
+
+		return builder.baseUrl(properties.baseUrl())
+				.clientConnector(new ReactorClientHttpConnector(httpClient))
+				.filter(timing)
+				.build();
+	}
+
+	private static HttpProtocol[] protocols(UpstreamProperties properties) {
+		if (!properties.http2()) {
+			return new HttpProtocol[] { HttpProtocol.HTTP11 };
+		}
+		HttpProtocol h2 = properties.baseUrl().startsWith("https") ? HttpProtocol.H2 : HttpProtocol.H2C;
+		return new HttpProtocol[] { h2, HttpProtocol.HTTP11 };
+	}
+}
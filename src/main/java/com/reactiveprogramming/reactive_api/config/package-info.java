@@ -0,0 +1 @@
+package com.reactiveprogramming.reactive_api.config;
\ No newline at end of file
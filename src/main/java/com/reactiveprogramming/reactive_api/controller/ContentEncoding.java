@@ -0,0 +1,145 @@
+package com.reactiveprogramming.reactive_api.controller;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ZeroCopyHttpOutputMessage;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.StringUtils;
+
+import com.reactiveprogramming.reactive_api.utils.GzipEncoder;
+import com.reactiveprogramming.reactive_api.utils.PrecompressedFiles;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Gzip negotiation for whole-file responses. A file is gzipped when the client
+ * accepts it, it is at least {@code minSize} and its media type is not in
+ * {@code skipTypes} (already compressed media gains nothing). A precompressed
+ * sidecar is preferred and goes out through zero-copy like the file itself;
+ * without one the body is compressed on the fly, and the sidecar is generated
+ * in the background for the next request.
+ * <p>
+ * Only full bodies are negotiated: a byte range refers to the identity bytes,
+ * so range responses are never encoded.
+ */
+public class ContentEncoding {
+
+	/** Totals since startup for bodies served from sidecars. */
+	public record Stats(long precompressedResponses, long precompressedBytesIn, long precompressedBytesOut) {
+	}
+
+	private static final String GZIP = "gzip";
+
+	private final boolean enabled;
+
+	private final long minSize;
+
+	private final List<MediaType> skipTypes;
+
+	private final GzipEncoder encoder;
+
+	// Null when sidecars are disabled
+	private final PrecompressedFiles sidecars;
+
+	private final LongAdder precompressedResponses = new LongAdder();
+
+	private final LongAdder precompressedBytesIn = new LongAdder();
+
+	private final LongAdder precompressedBytesOut = new LongAdder();
+
+	public ContentEncoding(boolean enabled, long minSize, List<MediaType> skipTypes, GzipEncoder encoder,
+			PrecompressedFiles sidecars) {
+		this.enabled = enabled;
+		this.minSize = minSize;
+		this.skipTypes = List.copyOf(skipTypes);
+		this.encoder = encoder;
+		this.sidecars = sidecars;
+	}
+
+	/**
+	 * Whether this file's full body should be gzipped for this request. Adds
+	 * {@code Vary: Accept-Encoding} to every response whose encoding depends on it.
+	 */
+	public boolean negotiate(ServerHttpRequest request, ServerHttpResponse response, MediaType mediaType, long size) {
+		if (!enabled || size < minSize || skipTypes.stream().anyMatch(type -> type.includes(mediaType))) {
+			return false;
+		}
+		response.getHeaders().setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+		return acceptsGzip(request.getHeaders().get(HttpHeaders.ACCEPT_ENCODING));
+	}
+
+	/**
+	 * Writes {@code file} gzipped after a successful {@link #negotiate}: from its
+	 * sidecar if there is one, otherwise {@code identityBody} compressed on the
+	 * fly. A file known not to compress well goes out through the caller's own
+	 * {@code identityWrite} instead. Content type and status are the caller's;
+	 * this sets the encoding and, for sidecars, the length.
+	 */
+	public Mono<Void> writeGzip(ServerHttpResponse response, Path file, BasicFileAttributes attributes,
+			Supplier<Flux<DataBuffer>> identityBody, Supplier<Mono<Void>> identityWrite) {
+		HttpHeaders headers = response.getHeaders();
+		PrecompressedFiles.Sidecar sidecar = sidecars == null ? null : sidecars.lookup(file, attributes);
+		if (sidecar == PrecompressedFiles.INCOMPRESSIBLE) {
+			return identityWrite.get();
+		}
+		headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+		if (sidecar == null) {
+			return response.writeWith(encoder.encode(identityBody.get(), response.bufferFactory()));
+		}
+		headers.setContentLength(sidecar.size());
+		precompressedResponses.increment();
+		precompressedBytesIn.add(attributes.size());
+		precompressedBytesOut.add(sidecar.size());
+		if (response instanceof ZeroCopyHttpOutputMessage zeroCopyResponse) {
+			return zeroCopyResponse.writeWith(sidecar.path(), 0, sidecar.size());
+		}
+		return response.writeWith(DataBufferUtils.read(sidecar.path(), response.bufferFactory(), 65536));
+	}
+
+	public Stats stats() {
+		return new Stats(precompressedResponses.sum(), precompressedBytesIn.sum(), precompressedBytesOut.sum());
+	}
+
+	/** True if gzip is listed (or covered by {@code *}) with a non-zero quality. */
+	static boolean acceptsGzip(List<String> acceptEncoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		Boolean wildcard = null;
+		for (String header : acceptEncoding) {
+			for (String coding : StringUtils.tokenizeToStringArray(header, ",")) {
+				String[] parts = StringUtils.tokenizeToStringArray(coding, ";");
+				boolean acceptable = parts.length < 2 || !isZeroQuality(parts[1]);
+				if (parts[0].equalsIgnoreCase(GZIP) || parts[0].equalsIgnoreCase("x-gzip")) {
+					return acceptable;
+				}
+				if (parts[0].equals("*")) {
+					wildcard = acceptable;
+				}
+			}
+		}
+		return Boolean.TRUE.equals(wildcard);
+	}
+
+	private static boolean isZeroQuality(String parameter) {
+		String[] nameAndValue = StringUtils.tokenizeToStringArray(parameter, "=");
+		if (nameAndValue.length != 2 || !nameAndValue[0].equalsIgnoreCase("q")) {
+			return false;
+		}
+		try {
+			return Double.parseDouble(nameAndValue[1]) == 0;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+}
@@ -1,105 +1,245 @@
 package com.reactiveprogramming.reactive_api.controller;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
-
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ZeroCopyHttpOutputMessage;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.reactive.function.client.WebClient;
-
-import com.reactiveprogramming.reactive_api.utils.FileUtils;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.reactiveprogramming.reactive_api.client.BulkUploader;
+import com.reactiveprogramming.reactive_api.client.UpstreamClient;
+import com.reactiveprogramming.reactive_api.metrics.PipelineMetrics;
+import com.reactiveprogramming.reactive_api.utils.DirectoryIngest;
+import com.reactiveprogramming.reactive_api.utils.FileCopyEngine;
+import com.reactiveprogramming.reactive_api.utils.Line;
+import com.reactiveprogramming.reactive_api.utils.LineDecoder;
+import com.reactiveprogramming.reactive_api.utils.LineSink;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
+@RestController
 public class FileOperationsController {
 
-	private static final int CHUNK_SIZE = 1024;
+	private final Path filesRoot;
 
-	@GetMapping(value = "/generate_file", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-	public Mono<String> genearateFile() {
-		WebClient webClient = WebClient.builder().baseUrl("https://jsonplaceholder.typicode.com") // Sample public API
-				.build();
-
-		Flux<String> dataMap = webClient.get().uri("/posts") // Example endpoint returning JSON array
-				.retrieve().bodyToFlux(String.class);
-
-		Flux<String> testdata = dataMap.flatMap(item -> {
-			return Mono.fromCallable(() -> {
-				Files.writeString(Path.of("output.txt"), item + System.lineSeparator(), StandardOpenOption.CREATE,
-						StandardOpenOption.APPEND);
-				return item;
-			}).subscribeOn(Schedulers.boundedElastic());
-		});
-		testdata.subscribe(item -> System.out.println(item));
+	private final FileCopyEngine fileCopyEngine;
+
+	private final LineSink outputSink;
+
+	private final UpstreamClient upstreamClient;
+
+	private final BulkUploader bulkUploader;
+
+	private final PipelineMetrics pipelineMetrics;
+
+	private final int lineChunkSize;
+
+	private final int maxLineLength;
+
+	private final DirectoryIngest directoryIngest;
+
+	// By name without the bean name prefix
+	private final Map<String, DirectoryIngest.RecordTransform> recordTransforms = new TreeMap<>();
+
+	// Where outputSink writes; never ingested into itself
+	private final Path outputPath;
+
+	// Besides the output file, the only place /download serves from; null when not configured
+	private final Path exportsDir;
+
+	private final ContentEncoding contentEncoding;
 
-		return Mono.just("success");
+	public FileOperationsController(@Value("${files.root:.}") String filesRoot, FileCopyEngine fileCopyEngine,
+			LineSink outputSink, UpstreamClient upstreamClient, BulkUploader bulkUploader,
+			PipelineMetrics pipelineMetrics, @Value("${files.lines.chunk-size:65536}") int lineChunkSize,
+			@Value("${files.lines.max-length:1048576}") int maxLineLength, DirectoryIngest directoryIngest,
+			Map<String, DirectoryIngest.RecordTransform> recordTransforms,
+			@Value("${files.output.name:output.txt}") String outputName,
+			@Value("${files.exports.dir:}") String exportsDir, ContentEncoding contentEncoding) {
+		this.filesRoot = Paths.get(filesRoot).toAbsolutePath().normalize();
+		this.directoryIngest = directoryIngest;
+		recordTransforms.forEach((beanName, recordTransform) -> {
+			if (beanName.startsWith(DirectoryIngest.RecordTransform.BEAN_NAME_PREFIX)) {
+				this.recordTransforms.put(
+						beanName.substring(DirectoryIngest.RecordTransform.BEAN_NAME_PREFIX.length()), recordTransform);
+			}
+		});
+		this.outputPath = this.filesRoot.resolve(outputName).normalize();
+		this.exportsDir = exportsDir.isBlank() ? null : this.filesRoot.resolve(exportsDir).normalize();
+		this.contentEncoding = contentEncoding;
+		this.fileCopyEngine = fileCopyEngine;
+		this.outputSink = outputSink;
+		this.upstreamClient = upstreamClient;
+		this.bulkUploader = bulkUploader;
+		this.pipelineMetrics = pipelineMetrics;
+		this.lineChunkSize = lineChunkSize;
+		this.maxLineLength = maxLineLength;
 	}
 
 	@GetMapping(value = "/generate_file", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-	public Mono<String> copyFiles() {
-
-		String inputPath = "input.txt";
-		// Path to the destination (output) file
-		String outputPath = "output.txt";
-
-		// 1. Open file channels in try-with-resources so they auto-close
-		try (AsynchronousFileChannel inChannel = AsynchronousFileChannel.open(Paths.get(inputPath),
-				StandardOpenOption.READ);
-				AsynchronousFileChannel outChannel = AsynchronousFileChannel.open(Paths.get(outputPath),
-						StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
-			// 2. Create a Flux of ByteBuffer that reads the file in chunks
-			Flux<ByteBuffer> readFlux = FileUtils.readFileAsFlux(inChannel, CHUNK_SIZE);
-
-			// 3. Write each chunk to the output file in order
-			// - concatMap ensures sequential writes (one after another)
-			// - if you used flatMap, writes could interleave or race
-			Mono<Void> copyPipeline = readFlux.concatMap(buffer -> FileUtils.writeFileAsync(outChannel, buffer)).then(); // completes
-																															// when
-																															// the
-																															// whole
-																															// Flux
-																															// is
-																															// done
-
-			// 4. Trigger the pipeline (we block here just so the demo app can finish)
-			copyPipeline.block();
-
-			System.out.println("File copy completed (reactive, non-blocking NIO).");
+	public Mono<String> genearateFile() {
+		// Raw element JSON, passed through without binding: the file ends up as NDJSON, one post per line
+		Flux<String> dataMap = upstreamClient.get("/posts") // Example endpoint returning JSON array
+				.transform(pipelineMetrics.flux("generate-file.source"));
+
+		// One open file, lines batched into large sequential appends
+		return outputSink.write(dataMap)
+				.transform(pipelineMetrics.mono("generate-file.write"))
+				.map(lines -> "success: " + lines + " lines written");
+	}
 
-		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+	/**
+	 * Copies a file under the files root by splitting it into ranges that are copied
+	 * concurrently. Returns immediately and streams progress until the copy is done.
+	 */
+	@GetMapping(value = "/copy", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public Flux<FileCopyEngine.CopyProgress> copyFiles(@RequestParam(defaultValue = "input.txt") String source,
+			@RequestParam(defaultValue = "input_copy.txt") String target) {
+		Path sourcePath = resolve(source);
+		Path targetPath = resolve(target);
+		if (sourcePath == null || targetPath == null) {
+			return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "path outside of files root"));
 		}
-		return Mono.just("success");
+		// The output file is held open for appends by the output sink; copying over it would corrupt it
+		if (sourcePath.equals(outputPath) || targetPath.equals(outputPath)) {
+			return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "the output file cannot be copied"));
+		}
+		return fileCopyEngine.copy(sourcePath, targetPath)
+				.onErrorMap(IllegalArgumentException.class,
+						e -> new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage()))
+				.transform(pipelineMetrics.flux("copy"));
 	}
 
+	/**
+	 * Uploads the lines of a file under the files root to the upstream API with
+	 * bounded concurrency and optional batching, streaming progress back. With
+	 * {@code partitions > 1} a newline-delimited file is split into byte ranges
+	 * that are decoded concurrently, and lines are uploaded in no particular order.
+	 */
 	@GetMapping(value = "/read_upload", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-	public Mono<String> readAndPost() {
+	public Flux<BulkUploader.UploadProgress> readAndPost(@RequestParam(defaultValue = "input.txt") String file,
+			@RequestParam(defaultValue = "1") int batch, @RequestParam(defaultValue = "16") int concurrency,
+			@RequestParam(defaultValue = "1") int partitions) {
+
+		Path inputPath = resolve(file);
+		if (inputPath == null) {
+			return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "path outside of files root"));
+		}
+
+		// Read and split asynchronously; no thread waits on the disk
+		Flux<Line> source = partitions > 1
+				? LineDecoder.partitioned(inputPath, partitions, lineChunkSize, maxLineLength).sequential()
+				: LineDecoder.lines(inputPath, lineChunkSize, maxLineLength);
+		Flux<String> lines = source.map(Line::releaseAsString)
+				.doOnDiscard(Line.class, Line::release)
+				.transform(pipelineMetrics.flux("read-upload.lines"));
 
-		String inputPath = "input.txt";
+		return bulkUploader.upload(lines, batch, concurrency).transform(pipelineMetrics.flux("read-upload"));
+	}
 
-		WebClient webClient = WebClient.builder().baseUrl("https://jsonplaceholder.typicode.com") // Sample public API
-				.build();
+	/**
+	 * Appends the lines of every file under {@code dir} whose path (relative to
+	 * {@code dir}) matches {@code glob} to the output file, through the
+	 * {@link DirectoryIngest.RecordTransform} named {@code transform}. Files
+	 * are read concurrently; with {@code ordered} the lines of each file keep
+	 * their order. Streams one result per file as it completes.
+	 */
+	@GetMapping(value = "/ingest", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public Flux<DirectoryIngest.FileResult> ingest(@RequestParam(defaultValue = ".") String dir,
+			@RequestParam(defaultValue = "**") String glob, @RequestParam(defaultValue = "identity") String transform,
+			@RequestParam(defaultValue = "false") boolean ordered) {
+		Path root = resolve(dir);
+		if (root == null || !Files.isDirectory(root)) {
+			return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "not a directory under files root"));
+		}
+		DirectoryIngest.RecordTransform recordTransform = recordTransforms.get(transform);
+		if (recordTransform == null) {
+			return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"unknown transform, expected one of " + recordTransforms.keySet()));
+		}
+		PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+		return directoryIngest
+				.ingest(root, path -> !path.equals(outputPath) && matcher.matches(root.relativize(path)),
+						recordTransform,
+						ordered ? DirectoryIngest.Ordering.PER_FILE : DirectoryIngest.Ordering.UNORDERED, outputSink)
+				.transform(pipelineMetrics.flux("ingest"));
+	}
 
+	/**
+	 * Downloads an export, gzipped when the client accepts it (see
+	 * {@link ContentEncoding}): the output file, or a file under
+	 * {@code files.exports.dir} if that is set. Nothing else under the files root
+	 * is served. A file that is still growing, like the output file, is sent as it
+	 * was when the request came in.
+	 */
+	@GetMapping("/download")
+	public Mono<Void> download(@RequestParam(defaultValue = "output.txt") String name, ServerHttpRequest request,
+			ServerHttpResponse response) {
+		Path path = resolve(name);
+		if (path == null) {
+			return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "path outside of files root"));
+		}
+		if (!path.equals(outputPath) && (exportsDir == null || !path.startsWith(exportsDir))) {
+			return Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "no such export"));
+		}
+		BasicFileAttributes attributes;
 		try {
-			Flux.fromStream(Files.lines(Path.of(inputPath))).subscribeOn(Schedulers.boundedElastic())
-					.subscribe(line -> webClient.post().uri("/posts").bodyValue(line)          // send the JSON as the request body
-		                    .retrieve()
-		                    .bodyToMono(String.class)); // expecting a String response; adjust if needed);
+			attributes = Files.readAttributes(path, BasicFileAttributes.class);
+			if (!path.equals(outputPath) && !path.toRealPath().startsWith(exportsDir.toRealPath())) {
+				attributes = null; // a link out of the exports directory
+			}
 		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			attributes = null;
+		}
+		if (attributes == null || !attributes.isRegularFile()) {
+			return Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "no such file"));
 		}
 
-		return Mono.just("success");
+		long size = attributes.size();
+		MediaType mediaType = MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM);
+		HttpHeaders headers = response.getHeaders();
+		headers.setContentType(mediaType);
+		headers.setContentDisposition(ContentDisposition.attachment().filename(path.getFileName().toString()).build());
+		Supplier<Flux<DataBuffer>> body = () -> DataBufferUtils
+				.takeUntilByteCount(DataBufferUtils.read(path, response.bufferFactory(), lineChunkSize), size);
+		Supplier<Mono<Void>> identity = () -> {
+			headers.setContentLength(size);
+			return response instanceof ZeroCopyHttpOutputMessage zeroCopyResponse
+					? zeroCopyResponse.writeWith(path, 0, size)
+					: response.writeWith(body.get());
+		};
+		Mono<Void> write = contentEncoding.negotiate(request, response, mediaType, size)
+				? contentEncoding.writeGzip(response, path, attributes, body, identity)
+				: identity.get();
+		return write.transform(pipelineMetrics.mono("download"));
+	}
 
+	/** Resolves a request-supplied file name under the files root, or null if it escapes it. */
+	private Path resolve(String name) {
+		Path path = filesRoot.resolve(name).normalize();
+		return path.startsWith(filesRoot) ? path : null;
 	}
 
 }
@@ -5,7 +5,10 @@ import java.time.Duration;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.reactive.function.client.WebClient;
+
+import com.reactiveprogramming.reactive_api.client.Post;
+import com.reactiveprogramming.reactive_api.client.UpstreamClient;
+import com.reactiveprogramming.reactive_api.metrics.PipelineMetrics;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -13,6 +16,15 @@ import reactor.core.publisher.Mono;
 @RestController
 public class HelloController {
 
+	private final UpstreamClient upstreamClient;
+
+	private final PipelineMetrics pipelineMetrics;
+
+	public HelloController(UpstreamClient upstreamClient, PipelineMetrics pipelineMetrics) {
+		this.upstreamClient = upstreamClient;
+		this.pipelineMetrics = pipelineMetrics;
+	}
+
 	@GetMapping("/hello")
 	public Mono<String> sayHello() {
 		// "Mono.just" creates a publisher with a single "Hello, World!" message
@@ -22,18 +34,19 @@ public class HelloController {
 	@GetMapping(value = "/users", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
 	public Flux<String> getUsers() {
 		// "Mono.just" creates a publisher with a single "Hello, World!" message
-		return Flux.just("Apple", "banana", "Grapes", "Mango").delayElements(Duration.ofMillis(2000));
+		return Flux.just("Apple", "banana", "Grapes", "Mango").delayElements(Duration.ofMillis(2000))
+				.transform(pipelineMetrics.flux("users"));
 	}
 
 	@GetMapping(value = "/posts", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-	public Flux<String> getPosts() {
-
-		// 1. Create a WebClient instance (point to any test API)
-		WebClient webClient = WebClient.builder().baseUrl("https://jsonplaceholder.typicode.com") // Sample public API
-				.build();
-
-		return webClient.get().uri("/posts") // Example endpoint returning JSON array
-				.retrieve().bodyToFlux(String.class).delayElements(Duration.ofMillis(2000));
+	public Flux<Post> getPosts() {
+
+		// 1. Concurrent subscribers share one cached upstream call (see upstream.cache.* properties);
+		// each array element is bound to a Post as soon as it has arrived
+		return upstreamClient.posts() // Example endpoint returning JSON array
+				.transform(pipelineMetrics.flux("posts.upstream"))
+				.delayElements(Duration.ofMillis(2000))
+				.transform(pipelineMetrics.flux("posts"));
 
 	}
 
@@ -0,0 +1,32 @@
+package com.reactiveprogramming.reactive_api.controller;
+
+import java.util.Map;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.reactiveprogramming.reactive_api.metrics.MetricsRegistry;
+
+import reactor.core.publisher.Mono;
+
+@RestController
+public class MetricsController {
+
+	private final MetricsRegistry metricsRegistry;
+
+	public MetricsController(MetricsRegistry metricsRegistry) {
+		this.metricsRegistry = metricsRegistry;
+	}
+
+	@GetMapping("/metrics")
+	public Mono<Map<String, Object>> metrics() {
+		return Mono.fromSupplier(metricsRegistry::snapshot);
+	}
+
+	// e.g. /metrics/upstream for everything under "upstream."
+	@GetMapping("/metrics/{prefix}")
+	public Mono<Map<String, Object>> metrics(@PathVariable String prefix) {
+		return Mono.fromSupplier(() -> metricsRegistry.snapshot(prefix + "."));
+	}
+}
@@ -0,0 +1,59 @@
+package com.reactiveprogramming.reactive_api.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.reactiveprogramming.reactive_api.metrics.PipelineMetrics;
+import com.reactiveprogramming.reactive_api.utils.BroadcastHub;
+import com.reactiveprogramming.reactive_api.utils.BroadcastHub.OverflowPolicy;
+import com.reactiveprogramming.reactive_api.utils.KeyedTickerEngine;
+import com.reactiveprogramming.reactive_api.utils.KeyedTickerEngine.PriceTick;
+import com.reactiveprogramming.reactive_api.utils.KeyedTickerEngine.TickerUpdate;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+public class TickerController {
+
+	private final KeyedTickerEngine tickerEngine;
+
+	private final BroadcastHub<String, TickerUpdate> tickerHub;
+
+	private final int queueSize;
+
+	private final PipelineMetrics pipelineMetrics;
+
+	public TickerController(KeyedTickerEngine tickerEngine, BroadcastHub<String, TickerUpdate> tickerHub,
+			@Value("${ticker.hub.queue-size:16}") int queueSize, PipelineMetrics pipelineMetrics) {
+		this.tickerEngine = tickerEngine;
+		this.tickerHub = tickerHub;
+		this.queueSize = queueSize;
+		this.pipelineMetrics = pipelineMetrics;
+	}
+
+	// e.g. /ticker?symbols=AAPL,MSFT streams 1m/5m/1h moving averages for just those two.
+	// A client that can't keep up gets the latest update per symbol, or use overflow=DROP_OLDEST|DISCONNECT.
+	@GetMapping(value = "/ticker", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public Flux<TickerUpdate> ticker(@RequestParam List<String> symbols,
+			@RequestParam(defaultValue = "LATEST") OverflowPolicy overflow) {
+		return Flux.fromIterable(symbols)
+				.flatMap(symbol -> tickerHub.subscribe(symbol, overflow, queueSize), Math.max(1, symbols.size()))
+				.transform(pipelineMetrics.flux("ticker"));
+	}
+
+	// Accepts a JSON array or NDJSON stream of {symbol, price, timestamp}; returns how many were applied.
+	// Timestamps are epoch millis within one slide of now (omit for now); others are skipped, as are new
+	// symbols beyond ticker.max-symbols.
+	@PostMapping("/ticker/prices")
+	public Mono<Long> ingest(@RequestBody Flux<PriceTick> ticks) {
+		return ticks.transform(pipelineMetrics.flux("ticker.ingest")).filter(tickerEngine::onPrice).count();
+	}
+}
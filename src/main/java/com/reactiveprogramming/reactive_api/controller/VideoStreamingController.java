@@ -1,68 +1,188 @@
 package com.reactiveprogramming.reactive_api.controller;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.*;
-import org.springframework.util.StringUtils;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+
+import com.reactiveprogramming.reactive_api.utils.SegmentCache;
+
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 public class VideoStreamingController {
 
-    private static final String VIDEO_FILE_PATH = "videos/sample.mp4"; // adjust path accordingly
+    private final Path mediaRoot;
+
+    // Only used when the transport cannot do zero-copy (e.g. not Reactor Netty) or for multipart ranges.
+    private final int bufferSize;
+
+    // Null when video.cache.enabled=false; every request then goes back to the file.
+    private final SegmentCache segmentCache;
+
+    // Gzips full responses for compressible media (subtitles, manifests); video itself is skipped
+    private final ContentEncoding contentEncoding;
+
+    public VideoStreamingController(@Value("${video.media-root:videos}") String mediaRoot,
+                                    @Value("${video.buffer-size:65536}") int bufferSize,
+                                    @Value("${video.cache.enabled:true}") boolean cacheEnabled,
+                                    SegmentCache videoSegmentCache, ContentEncoding contentEncoding) {
+        this.mediaRoot = Paths.get(mediaRoot).toAbsolutePath().normalize();
+        this.bufferSize = bufferSize;
+        this.segmentCache = cacheEnabled ? videoSegmentCache : null;
+        this.contentEncoding = contentEncoding;
+    }
+
+    @GetMapping("/video")
+    public Mono<Void> streamVideo(@RequestParam(defaultValue = "sample.mp4") String name,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        Path videoPath = mediaRoot.resolve(name).normalize();
+        if (!videoPath.startsWith(mediaRoot) || !Files.isRegularFile(videoPath)) {
+            response.setStatusCode(HttpStatus.NOT_FOUND);
+            return response.setComplete();
+        }
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(videoPath, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return Mono.error(e);
+        }
+        long fileSize = attributes.size();
+        MediaType mediaType = MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        HttpHeaders responseHeaders = response.getHeaders();
+        responseHeaders.set(HttpHeaders.ACCEPT_RANGES, "bytes");
 
-    @GetMapping(value = "/video", produces = "video/mp4")
-    public Mono<ResponseEntity<Flux<DataBuffer>>> streamVideo(@RequestHeader HttpHeaders headers) {
+        // Parse the Range header if present; a malformed or unsatisfiable range is a 416, not a full body.
+        // Like HttpRange.toResourceRegions, several ranges must add up to less than the file, so that
+        // "bytes=0-,0-,..." cannot make one request stream the whole file over and over.
+        List<HttpRange> httpRanges;
+        long[] starts;
+        long[] ends;
         try {
-            Path videoPath = Paths.get(VIDEO_FILE_PATH);
-            long fileSize = videoPath.toFile().length();
-
-            // Parse the Range header if present.
-            List<HttpRange> httpRanges = headers.getRange();
-            long start = 0;
-            long end = fileSize - 1;
-            if (httpRanges != null && !httpRanges.isEmpty()) {
-                HttpRange range = httpRanges.get(0);
-                start = range.getRangeStart(fileSize);
-                end = range.getRangeEnd(fileSize);
+            httpRanges = request.getHeaders().getRange();
+            starts = new long[httpRanges.size()];
+            ends = new long[httpRanges.size()];
+            long requested = 0;
+            for (int i = 0; i < httpRanges.size(); i++) {
+                starts[i] = httpRanges.get(i).getRangeStart(fileSize);
+                ends[i] = httpRanges.get(i).getRangeEnd(fileSize);
+                if (starts[i] >= fileSize || ends[i] < starts[i]) {
+                    throw new IllegalArgumentException("Range starts past the end of the file");
+                }
+                requested += ends[i] - starts[i] + 1;
+            }
+            if (httpRanges.size() > 1 && requested >= fileSize) {
+                throw new IllegalArgumentException("Ranges add up to " + requested + " of " + fileSize + " bytes");
+            }
+        } catch (IllegalArgumentException e) {
+            response.setStatusCode(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+            responseHeaders.set(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize);
+            return response.setComplete();
+        }
+
+        if (httpRanges.isEmpty()) {
+            response.setStatusCode(HttpStatus.OK);
+            responseHeaders.setContentType(mediaType);
+            Supplier<Mono<Void>> identity = () -> {
+                responseHeaders.setContentLength(fileSize);
+                return writeRegion(response, videoPath, 0, fileSize);
+            };
+            if (contentEncoding.negotiate(request, response, mediaType, fileSize)) {
+                return contentEncoding.writeGzip(response, videoPath, attributes,
+                        () -> readRegion(response.bufferFactory(), videoPath, 0, fileSize), identity);
             }
-            long contentLength = end - start + 1;
-
-            // Create a Flux that reads the video file in non-blocking way.
-            Flux<DataBuffer> dataBufferFlux = DataBufferUtils.readByteChannel(
-                    () -> java.nio.channels.AsynchronousFileChannel.open(videoPath),
-                    org.springframework.core.io.buffer.DefaultDataBufferFactory.sharedInstance,
-                    4096)
-                // Skip bytes before the start offset
-                .skipUntil(buffer -> {
-                    // NOTE: For a production implementation, you must adjust the buffer
-                    // to start exactly at the byte offset. Here we assume start is 0 for simplicity.
-                    return start == 0;
-                })
-                // For demonstration, we stream the entire file.
-                .takeUntil(buffer -> false);
-
-            HttpHeaders responseHeaders = new HttpHeaders();
-            responseHeaders.add("Content-Type", "video/mp4");
-            responseHeaders.add("Accept-Ranges", "bytes");
-            responseHeaders.add("Content-Length", String.valueOf(contentLength));
-            responseHeaders.add("Content-Range", "bytes " + start + "-" + end + "/" + fileSize);
-
-            HttpStatus status = (httpRanges != null && !httpRanges.isEmpty()) ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK;
-
-            return Mono.just(ResponseEntity.status(status)
-                    .headers(responseHeaders)
-                    .body(dataBufferFlux));
-        } catch (Exception e) {
-            return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+            return identity.get();
         }
+
+        response.setStatusCode(HttpStatus.PARTIAL_CONTENT);
+        if (httpRanges.size() == 1) {
+            responseHeaders.setContentType(mediaType);
+            responseHeaders.setContentLength(ends[0] - starts[0] + 1);
+            responseHeaders.set(HttpHeaders.CONTENT_RANGE, contentRange(starts[0], ends[0], fileSize));
+            return writeRegion(response, videoPath, starts[0], ends[0] - starts[0] + 1);
+        }
+        return writeMultipartRanges(response, videoPath, mediaType, starts, ends, fileSize);
+    }
+
+    /**
+     * Writes {@code count} bytes of the file starting at {@code position}. With the segment cache on, the region
+     * is served from cached off-heap segments. Otherwise, on Reactor Netty the response is a
+     * {@link ZeroCopyHttpOutputMessage} and the region goes out through sendfile without touching the heap;
+     * failing that we read into buffers from the response's own factory, which is pooled and direct on Netty.
+     */
+    private Mono<Void> writeRegion(ServerHttpResponse response, Path path, long position, long count) {
+        if (segmentCache == null && response instanceof ZeroCopyHttpOutputMessage zeroCopyResponse) {
+            return zeroCopyResponse.writeWith(path, position, count);
+        }
+        return response.writeWith(readRegion(response.bufferFactory(), path, position, count));
+    }
+
+    private Flux<DataBuffer> readRegion(DataBufferFactory bufferFactory, Path path, long position, long count) {
+        if (segmentCache != null) {
+            // Wrapping shares the cached memory, so a range is assembled from segment slices without copying.
+            return segmentCache.read(path, position, count).map(bufferFactory::wrap);
+        }
+        return DataBufferUtils.takeUntilByteCount(
+                DataBufferUtils.readAsynchronousFileChannel(() -> AsynchronousFileChannel.open(path),
+                        position, bufferFactory, bufferSize),
+                count);
+    }
+
+    /**
+     * Writes a {@code multipart/byteranges} body. Each part is read straight from the file region (or the cache),
+     * and the exact Content-Length is computed up front so players can trust it.
+     */
+    private Mono<Void> writeMultipartRanges(ServerHttpResponse response, Path path, MediaType mediaType,
+                                            long[] starts, long[] ends, long fileSize) {
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        DataBufferFactory bufferFactory = response.bufferFactory();
+
+        List<byte[]> partHeaders = new ArrayList<>(starts.length);
+        long contentLength = 0;
+        for (int i = 0; i < starts.length; i++) {
+            byte[] partHeader = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + mediaType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": " + contentRange(starts[i], ends[i], fileSize) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(partHeader);
+            contentLength += partHeader.length + (ends[i] - starts[i] + 1);
+        }
+        byte[] closeDelimiter = ("\r\n--" + boundary + "--").getBytes(StandardCharsets.US_ASCII);
+        contentLength += closeDelimiter.length;
+
+        HttpHeaders responseHeaders = response.getHeaders();
+        responseHeaders.setContentType(MediaType.parseMediaType("multipart/byteranges; boundary=" + boundary));
+        responseHeaders.setContentLength(contentLength);
+
+        Flux<DataBuffer> body = Flux.range(0, starts.length)
+                .concatMap(i -> Flux.concat(
+                        Mono.fromSupplier(() -> bufferFactory.wrap(partHeaders.get(i))),
+                        readRegion(bufferFactory, path, starts[i], ends[i] - starts[i] + 1)))
+                .concatWith(Mono.fromSupplier(() -> bufferFactory.wrap(closeDelimiter)));
+        return response.writeWith(body);
+    }
+
+    private static String contentRange(long start, long end, long fileSize) {
+        return "bytes " + start + "-" + end + "/" + fileSize;
     }
 }
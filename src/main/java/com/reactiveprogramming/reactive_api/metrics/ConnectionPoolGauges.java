@@ -0,0 +1,47 @@
+package com.reactiveprogramming.reactive_api.metrics;
+
+import java.net.SocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Reactor Netty creates one pool per remote address behind a ConnectionProvider
+ * and hands each to this registrar. We keep them all and publish gauges summed
+ * over every remote: {@code <prefix>.active}, {@code .idle}, {@code .pending},
+ * {@code .allocated} and {@code .max-allocated}. No Micrometer needed.
+ */
+public class ConnectionPoolGauges implements ConnectionProvider.MeterRegistrar {
+
+	private final Map<String, ConnectionPoolMetrics> pools = new ConcurrentHashMap<>();
+
+	public ConnectionPoolGauges(MetricsRegistry registry, String prefix) {
+		registry.gauge(prefix + ".active", () -> sum(ConnectionPoolMetrics::acquiredSize));
+		registry.gauge(prefix + ".idle", () -> sum(ConnectionPoolMetrics::idleSize));
+		registry.gauge(prefix + ".pending", () -> sum(ConnectionPoolMetrics::pendingAcquireSize));
+		registry.gauge(prefix + ".allocated", () -> sum(ConnectionPoolMetrics::allocatedSize));
+		registry.gauge(prefix + ".max-allocated", () -> sum(ConnectionPoolMetrics::maxAllocatedSize));
+	}
+
+	@Override
+	public void registerMetrics(String poolName, String id, SocketAddress remoteAddress,
+			ConnectionPoolMetrics metrics) {
+		pools.put(id, metrics);
+	}
+
+	@Override
+	public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+		pools.remove(id);
+	}
+
+	private int sum(ToIntFunction<ConnectionPoolMetrics> metric) {
+		int total = 0;
+		for (ConnectionPoolMetrics pool : pools.values()) {
+			total += metric.applyAsInt(pool);
+		}
+		return total;
+	}
+}
@@ -0,0 +1,158 @@
+package com.reactiveprogramming.reactive_api.metrics;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ZeroCopyHttpOutputMessage;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Per-endpoint request metrics, keyed by the matched route rather than the raw
+ * path so that {@code /metrics/{prefix}} is one series: under
+ * {@code http.<route>} (e.g. {@code http.video}, {@code http.ticker.prices})
+ * this records requests, server errors, bytes served and a {@code .latency}
+ * timer, plus a global {@code http.in-flight} gauge.
+ * <p>
+ * A request whose handler fails counts by the error's status (a
+ * {@link ResponseStatusException} keeps its own, anything else is a 500): the
+ * status the error handler writes is only set after this filter's chain has
+ * finished. Bytes are counted as buffers are written. Responses that go out through
+ * sendfile are counted too: the decorator stays a
+ * {@link ZeroCopyHttpOutputMessage} whenever the real response is one, so
+ * controllers that check for zero-copy support still get it.
+ */
+public class HttpMetricsFilter implements WebFilter {
+
+	private final MetricsRegistry registry;
+
+	private final ConcurrentMap<String, Route> routes = new ConcurrentHashMap<>();
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	public HttpMetricsFilter(MetricsRegistry registry) {
+		this.registry = registry;
+		registry.gauge("http.in-flight", inFlight::get);
+	}
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		long start = System.nanoTime();
+		LongAdder bytes = new LongAdder();
+		ServerHttpResponse original = exchange.getResponse();
+		ServerHttpResponse counting = original instanceof ZeroCopyHttpOutputMessage
+				? new ZeroCopyCountingResponse(original, bytes)
+				: new CountingResponse(original, bytes);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		inFlight.incrementAndGet();
+		return chain.filter(exchange.mutate().response(counting).build())
+				.doOnError(failure::set)
+				.doFinally(signal -> {
+					inFlight.decrementAndGet();
+					Route route = route(exchange);
+					route.requests.increment();
+					route.bytes.add(bytes.sum());
+					HttpStatusCode status = signal == SignalType.ON_ERROR ? statusOf(failure.get())
+							: original.getStatusCode();
+					if (status != null && status.is5xxServerError()) {
+						route.serverErrors.increment();
+					}
+					route.latency.recordSince(start);
+				});
+	}
+
+	// The status the error will be rendered with
+	private static HttpStatusCode statusOf(Throwable error) {
+		return error instanceof ErrorResponse response ? response.getStatusCode() : HttpStatus.INTERNAL_SERVER_ERROR;
+	}
+
+	private Route route(ServerWebExchange exchange) {
+		PathPattern pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		String name = pattern == null ? "unmatched" : metricName(pattern.getPatternString());
+		return routes.computeIfAbsent(name, key -> new Route(registry, "http." + key));
+	}
+
+	// "/ticker/prices" -> "ticker.prices", "/metrics/{prefix}" -> "metrics.{prefix}", "/" -> "root"
+	private static String metricName(String pattern) {
+		String trimmed = pattern.startsWith("/") ? pattern.substring(1) : pattern;
+		return trimmed.isEmpty() ? "root" : trimmed.replace('/', '.');
+	}
+
+	private static final class Route {
+
+		final LongAdder requests;
+
+		final LongAdder serverErrors;
+
+		final LongAdder bytes;
+
+		final LatencyTimer latency;
+
+		Route(MetricsRegistry registry, String prefix) {
+			requests = registry.counter(prefix + ".requests");
+			serverErrors = registry.counter(prefix + ".server-errors");
+			bytes = registry.counter(prefix + ".bytes");
+			latency = registry.timer(prefix + ".latency");
+		}
+	}
+
+	private static class CountingResponse extends ServerHttpResponseDecorator {
+
+		final LongAdder bytes;
+
+		CountingResponse(ServerHttpResponse delegate, LongAdder bytes) {
+			super(delegate);
+			this.bytes = bytes;
+		}
+
+		@Override
+		public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+			return super.writeWith(Flux.from(body).doOnNext(buffer -> bytes.add(buffer.readableByteCount())));
+		}
+
+		@Override
+		public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+			return super.writeAndFlushWith(Flux.from(body)
+					.map(chunk -> Flux.from(chunk).doOnNext(buffer -> bytes.add(buffer.readableByteCount()))));
+		}
+	}
+
+	private static final class ZeroCopyCountingResponse extends CountingResponse
+			implements ZeroCopyHttpOutputMessage {
+
+		ZeroCopyCountingResponse(ServerHttpResponse delegate, LongAdder bytes) {
+			super(delegate, bytes);
+		}
+
+		@Override
+		public Mono<Void> writeWith(Path file, long position, long count) {
+			return ((ZeroCopyHttpOutputMessage) getDelegate()).writeWith(file, position, count)
+					.doOnSuccess(done -> bytes.add(count));
+		}
+
+		@Override
+		public Mono<Void> writeWith(File file, long position, long count) {
+			return writeWith(file.toPath(), position, count);
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package com.reactiveprogramming.reactive_api.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with log-linear buckets, in the spirit of
+ * HdrHistogram: every power of two is split into 16 linear sub-buckets, so any
+ * recorded value is reported within about 6% of its true value while the whole
+ * nanosecond range fits in under a thousand counters. Recording is a couple of
+ * atomic increments and is safe from any thread.
+ */
+public class LatencyTimer {
+
+	private static final int SUB_BITS = 4;
+
+	private static final int SUB_COUNT = 1 << SUB_BITS;
+
+	private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_COUNT;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+	private final LongAdder count = new LongAdder();
+
+	private final LongAdder totalNanos = new LongAdder();
+
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	/** Count, mean and percentiles in milliseconds. */
+	public record Snapshot(long count, double meanMillis, double p50Millis, double p90Millis, double p99Millis,
+			double p999Millis, double maxMillis) {
+	}
+
+	public void record(long duration, TimeUnit unit) {
+		recordNanos(unit.toNanos(duration));
+	}
+
+	public void recordNanos(long nanos) {
+		if (nanos < 0) {
+			return;
+		}
+		buckets.incrementAndGet(indexOf(nanos));
+		count.increment();
+		totalNanos.add(nanos);
+		maxNanos.accumulateAndGet(nanos, Math::max);
+	}
+
+	/** Record the time elapsed since {@code startNanos}, a value from {@link System#nanoTime()}. */
+	public void recordSince(long startNanos) {
+		recordNanos(System.nanoTime() - startNanos);
+	}
+
+	public long count() {
+		return count.sum();
+	}
+
+	/** The value, in nanoseconds, below which {@code percentile} percent of recordings fall. */
+	public long valueAtPercentile(double percentile) {
+		long total = 0;
+		long[] counts = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= target) {
+				return Math.min(highestValueIn(i), maxNanos.get());
+			}
+		}
+		return maxNanos.get();
+	}
+
+	public Snapshot snapshot() {
+		long n = count.sum();
+		double mean = n == 0 ? 0 : totalNanos.sum() / (double) n;
+		return new Snapshot(n, toMillis(mean), toMillis(valueAtPercentile(50)), toMillis(valueAtPercentile(90)),
+				toMillis(valueAtPercentile(99)), toMillis(valueAtPercentile(99.9)), toMillis(maxNanos.get()));
+	}
+
+	/** Add every recording of {@code other} to this timer. */
+	public void add(LatencyTimer other) {
+		for (int i = 0; i < BUCKETS; i++) {
+			long c = other.buckets.get(i);
+			if (c != 0) {
+				buckets.addAndGet(i, c);
+			}
+		}
+		count.add(other.count.sum());
+		totalNanos.add(other.totalNanos.sum());
+		maxNanos.accumulateAndGet(other.maxNanos.get(), Math::max);
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets.set(i, 0);
+		}
+		count.reset();
+		totalNanos.reset();
+		maxNanos.set(0);
+	}
+
+	static int indexOf(long value) {
+		if (value < SUB_COUNT) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+		return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+	}
+
+	static long highestValueIn(int index) {
+		if (index < SUB_COUNT) {
+			return index;
+		}
+		int exponent = index / SUB_COUNT + SUB_BITS - 1;
+		int sub = index % SUB_COUNT;
+		long lowest = (long) (SUB_COUNT + sub) << (exponent - SUB_BITS);
+		return lowest + (1L << (exponent - SUB_BITS)) - 1;
+	}
+
+	private static double toMillis(double nanos) {
+		return nanos / 1_000_000.0;
+	}
+}
@@ -0,0 +1,74 @@
+package com.reactiveprogramming.reactive_api.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Application-wide home for counters, gauges and latency timers, keyed by dotted
+ * names such as {@code upstream.pool.pending}. Components keep hold of the
+ * counters and timers they record into; gauges are read only when a snapshot is
+ * taken, so registering one costs nothing on the hot path.
+ */
+public class MetricsRegistry {
+
+	private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, LatencyTimer> timers = new ConcurrentHashMap<>();
+
+	public LongAdder counter(String name) {
+		return counters.computeIfAbsent(name, key -> new LongAdder());
+	}
+
+	/** Register (or replace) a gauge that is sampled whenever a snapshot is taken. */
+	public void gauge(String name, Supplier<? extends Number> value) {
+		gauges.put(name, value);
+	}
+
+	public void removeGauge(String name) {
+		gauges.remove(name);
+	}
+
+	public void removeCounter(String name) {
+		counters.remove(name);
+	}
+
+	public LatencyTimer timer(String name) {
+		return timers.computeIfAbsent(name, key -> new LatencyTimer());
+	}
+
+	public void removeTimer(String name) {
+		timers.remove(name);
+	}
+
+	/** Current value of every metric, sorted by name. */
+	public Map<String, Object> snapshot() {
+		return snapshot("");
+	}
+
+	/** Current value of every metric whose name starts with {@code prefix}, sorted by name. */
+	public Map<String, Object> snapshot(String prefix) {
+		Map<String, Object> values = new TreeMap<>();
+		counters.forEach((name, counter) -> {
+			if (name.startsWith(prefix)) {
+				values.put(name, counter.sum());
+			}
+		});
+		gauges.forEach((name, gauge) -> {
+			if (name.startsWith(prefix)) {
+				values.put(name, gauge.get());
+			}
+		});
+		timers.forEach((name, timer) -> {
+			if (name.startsWith(prefix)) {
+				values.put(name, timer.snapshot());
+			}
+		});
+		return values;
+	}
+}
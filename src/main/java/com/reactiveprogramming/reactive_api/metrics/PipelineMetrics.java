@@ -0,0 +1,129 @@
+package com.reactiveprogramming.reactive_api.metrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import reactor.core.observability.DefaultSignalListener;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Names a reactive pipeline and records what flows through it. Apply with
+ * {@code transform}:
+ *
+ * <pre>
+ * return upstreamClient.get("/posts").transform(pipelineMetrics.flux("posts"));
+ * </pre>
+ *
+ * Under {@code pipeline.<name>} this records items, subscriptions, errors and
+ * cancels as counters, in-flight subscriptions as a gauge, and two timers:
+ * {@code .first-item} (subscribe to first onNext) and {@code .latency}
+ * (subscribe to onComplete or onError). The hot path is one
+ * {@code LongAdder} increment per item.
+ */
+public class PipelineMetrics {
+
+	private final MetricsRegistry registry;
+
+	private final ConcurrentMap<String, Stage> stages = new ConcurrentHashMap<>();
+
+	public PipelineMetrics(MetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	public <T> Function<Flux<T>, Flux<T>> flux(String name) {
+		Stage stage = stage(name);
+		return flux -> flux.tap(() -> new StageListener<>(stage));
+	}
+
+	public <T> Function<Mono<T>, Mono<T>> mono(String name) {
+		Stage stage = stage(name);
+		return mono -> mono.tap(() -> new StageListener<>(stage));
+	}
+
+	private Stage stage(String name) {
+		return stages.computeIfAbsent(name, key -> new Stage(registry, "pipeline." + key));
+	}
+
+	private static final class Stage {
+
+		final LongAdder items;
+
+		final LongAdder subscriptions;
+
+		final LongAdder errors;
+
+		final LongAdder cancels;
+
+		final AtomicInteger inFlight = new AtomicInteger();
+
+		final LatencyTimer firstItem;
+
+		final LatencyTimer latency;
+
+		Stage(MetricsRegistry registry, String prefix) {
+			items = registry.counter(prefix + ".items");
+			subscriptions = registry.counter(prefix + ".subscriptions");
+			errors = registry.counter(prefix + ".errors");
+			cancels = registry.counter(prefix + ".cancels");
+			firstItem = registry.timer(prefix + ".first-item");
+			latency = registry.timer(prefix + ".latency");
+			registry.gauge(prefix + ".in-flight", inFlight::get);
+		}
+	}
+
+	// One per subscription; signals of a subscription are serialized, so plain fields do.
+	private static final class StageListener<T> extends DefaultSignalListener<T> {
+
+		final Stage stage;
+
+		long subscribedAt;
+
+		boolean seenItem;
+
+		StageListener(Stage stage) {
+			this.stage = stage;
+		}
+
+		@Override
+		public void doFirst() {
+			subscribedAt = System.nanoTime();
+			stage.subscriptions.increment();
+			stage.inFlight.incrementAndGet();
+		}
+
+		@Override
+		public void doOnNext(T value) {
+			stage.items.increment();
+			if (!seenItem) {
+				seenItem = true;
+				stage.firstItem.recordSince(subscribedAt);
+			}
+		}
+
+		@Override
+		public void doOnComplete() {
+			stage.latency.recordSince(subscribedAt);
+		}
+
+		@Override
+		public void doOnError(Throwable error) {
+			stage.errors.increment();
+			stage.latency.recordSince(subscribedAt);
+		}
+
+		@Override
+		public void doOnCancel() {
+			stage.cancels.increment();
+		}
+
+		@Override
+		public void doFinally(SignalType terminationType) {
+			stage.inFlight.decrementAndGet();
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package com.reactiveprogramming.reactive_api.metrics;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.ToLongFunction;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Queue depth and thread usage of Reactor's schedulers ({@code parallel},
+ * {@code boundedElastic}, {@code single} and any created with
+ * {@code Schedulers.newXxx}).
+ * <p>
+ * Reactor builds every scheduler's executors through its executor service
+ * decorators, so {@link #install()} registers one that remembers each executor
+ * under its scheduler's name. Nothing is wrapped: the gauges read the executors'
+ * own counters when a snapshot is taken, so running tasks costs nothing extra.
+ * Only executors created after {@code install()} are seen, so the application
+ * installs it as a bean that the metrics registry depends on, ahead of every
+ * bean that records metrics; closing it removes the decorator again.
+ * <p>
+ * Per scheduler name: {@code scheduler.<name>.queued}, {@code .active},
+ * {@code .threads}, {@code .completed} and {@code .executors}.
+ */
+public final class SchedulerMetrics implements AutoCloseable {
+
+	private static final String DECORATOR_KEY = SchedulerMetrics.class.getName();
+
+	// Scheduler name -> its live executors. boundedElastic retires executors as workers expire.
+	private static final Map<String, Set<ThreadPoolExecutor>> EXECUTORS = new ConcurrentHashMap<>();
+
+	private static final SchedulerMetrics INSTANCE = new SchedulerMetrics();
+
+	private static volatile MetricsRegistry registry;
+
+	private SchedulerMetrics() {
+	}
+
+	/** Start remembering executors; installing again is harmless. */
+	public static SchedulerMetrics install() {
+		Schedulers.addExecutorServiceDecorator(DECORATOR_KEY, (scheduler, executor) -> {
+			if (executor instanceof ThreadPoolExecutor threadPool) {
+				String name = nameOf(scheduler);
+				EXECUTORS.computeIfAbsent(name, key -> {
+					MetricsRegistry current = registry;
+					if (current != null) {
+						registerGauges(current, key);
+					}
+					return ConcurrentHashMap.newKeySet();
+				}).add(threadPool);
+			}
+			return executor;
+		});
+		return INSTANCE;
+	}
+
+	/** Stop remembering executors and stop publishing gauges for new ones. */
+	@Override
+	public void close() {
+		Schedulers.removeExecutorServiceDecorator(DECORATOR_KEY);
+		registry = null;
+		EXECUTORS.clear();
+	}
+
+	/** Publish gauges for every scheduler seen so far, and for any created later. */
+	public static void bindTo(MetricsRegistry metricsRegistry) {
+		registry = metricsRegistry;
+		EXECUTORS.keySet().forEach(name -> registerGauges(metricsRegistry, name));
+	}
+
+	private static void registerGauges(MetricsRegistry metricsRegistry, String name) {
+		String prefix = "scheduler." + name;
+		metricsRegistry.gauge(prefix + ".queued", () -> sum(name, executor -> executor.getQueue().size()));
+		metricsRegistry.gauge(prefix + ".active", () -> sum(name, ThreadPoolExecutor::getActiveCount));
+		metricsRegistry.gauge(prefix + ".threads", () -> sum(name, ThreadPoolExecutor::getPoolSize));
+		metricsRegistry.gauge(prefix + ".completed", () -> sum(name, ThreadPoolExecutor::getCompletedTaskCount));
+		metricsRegistry.gauge(prefix + ".executors", () -> sum(name, executor -> 1));
+	}
+
+	private static long sum(String name, ToLongFunction<ThreadPoolExecutor> value) {
+		Set<ThreadPoolExecutor> executors = EXECUTORS.getOrDefault(name, Set.of());
+		executors.removeIf(ThreadPoolExecutor::isTerminated);
+		long total = 0;
+		for (ThreadPoolExecutor executor : executors) {
+			total += value.applyAsLong(executor);
+		}
+		return total;
+	}
+
+	// toString() is e.g. parallel(8,"parallel") or single("ticker"); the quoted part is the thread name prefix.
+	private static String nameOf(Scheduler scheduler) {
+		String description = scheduler.toString();
+		int open = description.indexOf('"');
+		int close = open < 0 ? -1 : description.indexOf('"', open + 1);
+		if (close > open) {
+			return description.substring(open + 1, close);
+		}
+		int paren = description.indexOf('(');
+		return paren > 0 ? description.substring(0, paren) : description;
+	}
+}
@@ -0,0 +1 @@
+package com.reactiveprogramming.reactive_api.metrics;
\ No newline at end of file
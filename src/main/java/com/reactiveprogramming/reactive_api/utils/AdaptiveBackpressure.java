@@ -0,0 +1,427 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.reactivestreams.Subscription;
+
+import com.reactiveprogramming.reactive_api.metrics.LatencyTimer;
+import com.reactiveprogramming.reactive_api.metrics.MetricsRegistry;
+
+import reactor.core.CoreSubscriber;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.context.Context;
+
+/**
+ * A {@code publishOn} whose buffer sizes itself. Use with {@code transform}:
+ *
+ * <pre>
+ * source.transform(new AdaptiveBackpressure&lt;&gt;("orders", options, scheduler, metrics))
+ * </pre>
+ *
+ * Items are queued and handed to the subscriber on {@code scheduler}. The
+ * operator tracks how long items wait in the queue and how long the subscriber
+ * takes per item, and adjusts the queue's capacity AIMD-style between
+ * {@link Options#minCapacity} and {@link Options#maxCapacity}: a queue wait
+ * above {@link Options#targetLatency} halves it (a deeper queue would only add
+ * latency), while a queue that keeps filling up within the target grows it by
+ * {@code minCapacity} to absorb larger bursts.
+ * <p>
+ * What happens to the producer depends on the {@link Policy}.
+ * <p>
+ * Under {@code <name>.*} the registry gets counters for received, emitted,
+ * dropped and conflated items and for capacity increases and decreases, gauges
+ * for the current queue depth and capacity, and a {@code .wait} timer.
+ */
+public class AdaptiveBackpressure<T> implements Function<Flux<T>, Flux<T>> {
+
+	public enum Policy {
+
+		/**
+		 * Lossless: upstream demand is capped at the current capacity, so the
+		 * producer is paced by the consumer. Needs a source that honours
+		 * backpressure; one that overflows anyway gets an overflow error, never a
+		 * silent drop.
+		 */
+		BUFFER,
+
+		/**
+		 * Requests unbounded and, when the queue is full, replaces the newest
+		 * queued item with the incoming one. For hot sources where only the
+		 * latest value matters.
+		 */
+		CONFLATE,
+
+		/** Requests unbounded and discards incoming items while the queue is full. */
+		DROP
+	}
+
+	/**
+	 * @param targetLatency longest acceptable queue wait before capacity is cut
+	 */
+	public record Options(Policy policy, int minCapacity, int initialCapacity, int maxCapacity,
+			Duration targetLatency) {
+
+		public Options {
+			if (minCapacity < 1 || initialCapacity < minCapacity || maxCapacity < initialCapacity) {
+				throw new IllegalArgumentException(
+						"Need 1 <= minCapacity <= initialCapacity <= maxCapacity, got " + minCapacity + ", "
+								+ initialCapacity + ", " + maxCapacity);
+			}
+		}
+	}
+
+	// Weight of the newest sample in the latency averages.
+	private static final double EWMA_ALPHA = 0.2;
+
+	private final Options options;
+
+	private final Scheduler scheduler;
+
+	private final LongAdder received;
+
+	private final LongAdder emitted;
+
+	private final LongAdder dropped;
+
+	private final LongAdder conflated;
+
+	private final LongAdder increases;
+
+	private final LongAdder decreases;
+
+	private final LatencyTimer queueWait;
+
+	private final AtomicInteger queued = new AtomicInteger();
+
+	private volatile int lastCapacity;
+
+	public AdaptiveBackpressure(String name, Options options, Scheduler scheduler, MetricsRegistry metrics) {
+		this.options = options;
+		this.scheduler = scheduler;
+		this.lastCapacity = options.initialCapacity();
+		this.received = metrics.counter(name + ".received");
+		this.emitted = metrics.counter(name + ".emitted");
+		this.dropped = metrics.counter(name + ".dropped");
+		this.conflated = metrics.counter(name + ".conflated");
+		this.increases = metrics.counter(name + ".capacity-increases");
+		this.decreases = metrics.counter(name + ".capacity-decreases");
+		this.queueWait = metrics.timer(name + ".wait");
+		metrics.gauge(name + ".queued", queued::get);
+		metrics.gauge(name + ".capacity", () -> lastCapacity);
+	}
+
+	@Override
+	public Flux<T> apply(Flux<T> source) {
+		return Flux.from(actual -> source.subscribe(new AdaptiveSubscriber(Operators.toCoreSubscriber(actual))));
+	}
+
+	/** Capacity most recently chosen by any subscription. */
+	public int capacity() {
+		return lastCapacity;
+	}
+
+	private final class AdaptiveSubscriber implements CoreSubscriber<T>, Subscription, Runnable {
+
+		final CoreSubscriber<? super T> actual;
+
+		final Scheduler.Worker worker = scheduler.createWorker();
+
+		final AtomicLong requested = new AtomicLong();
+
+		final AtomicInteger wip = new AtomicInteger();
+
+		Subscription upstream;
+
+		// Guarded by this: the ring of queued items with their enqueue times,
+		// and the upstream demand that has not been delivered yet.
+		Object[] items = new Object[Integer.highestOneBit(options.initialCapacity() * 2 - 1)];
+
+		long[] enqueuedAt = new long[items.length];
+
+		int head;
+
+		int size;
+
+		long outstanding;
+
+		// Only touched by the drain loop.
+		long emittedCount;
+
+		int capacity = options.initialCapacity();
+
+		int sinceAdjust;
+
+		boolean filledUp;
+
+		double waitEwma;
+
+		volatile boolean done;
+
+		Throwable error;
+
+		volatile boolean cancelled;
+
+		AdaptiveSubscriber(CoreSubscriber<? super T> actual) {
+			this.actual = actual;
+		}
+
+		@Override
+		public Context currentContext() {
+			return actual.currentContext();
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.validate(upstream, s)) {
+				upstream = s;
+				actual.onSubscribe(this);
+				if (options.policy() == Policy.BUFFER) {
+					synchronized (this) {
+						outstanding = capacity;
+					}
+					s.request(capacity);
+				} else {
+					s.request(Long.MAX_VALUE);
+				}
+			}
+		}
+
+		@Override
+		public void onNext(T item) {
+			if (done) {
+				Operators.onNextDropped(item, actual.currentContext());
+				return;
+			}
+			received.increment();
+			Object discarded = null;
+			boolean overflow = false;
+			synchronized (this) {
+				if (options.policy() == Policy.BUFFER) {
+					outstanding--;
+				}
+				if (size < capacity || options.policy() == Policy.BUFFER && size < options.maxCapacity()) {
+					offer(item);
+				} else if (options.policy() == Policy.CONFLATE) {
+					int tail = (head + size - 1) & (items.length - 1);
+					discarded = items[tail];
+					items[tail] = item;
+					enqueuedAt[tail] = System.nanoTime();
+					conflated.increment();
+					filledUp = true;
+				} else if (options.policy() == Policy.DROP) {
+					discarded = item;
+					dropped.increment();
+					filledUp = true;
+				} else {
+					discarded = item;
+					overflow = true;
+				}
+			}
+			if (discarded != null) {
+				Operators.onDiscard(discarded, actual.currentContext());
+			}
+			if (overflow) {
+				upstream.cancel();
+				onError(Exceptions.failWithOverflow("Source ignored backpressure: more than "
+						+ options.maxCapacity() + " items outstanding"));
+				return;
+			}
+			schedule();
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			if (done) {
+				Operators.onErrorDropped(t, actual.currentContext());
+				return;
+			}
+			error = t;
+			done = true;
+			schedule();
+		}
+
+		@Override
+		public void onComplete() {
+			if (!done) {
+				done = true;
+				schedule();
+			}
+		}
+
+		@Override
+		public void request(long n) {
+			if (Operators.validate(n)) {
+				requested.getAndUpdate(r -> Operators.addCap(r, n));
+				schedule();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			if (!cancelled) {
+				cancelled = true;
+				upstream.cancel();
+				schedule();
+			}
+		}
+
+		private void schedule() {
+			if (wip.getAndIncrement() == 0) {
+				worker.schedule(this);
+			}
+		}
+
+		// The drain loop, always on the worker.
+		@Override
+		public void run() {
+			int missed = 1;
+			for (;;) {
+				if (cancelled) {
+					clear();
+					worker.dispose();
+					return;
+				}
+				emitQueued();
+				if (cancelled) {
+					continue;
+				}
+				if (done && isEmpty()) {
+					cancelled = true;
+					worker.dispose();
+					if (error != null) {
+						actual.onError(error);
+					} else {
+						actual.onComplete();
+					}
+					return;
+				}
+				replenish();
+
+				missed = wip.addAndGet(-missed);
+				if (missed == 0) {
+					break;
+				}
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private void emitQueued() {
+			long r = requested.get();
+			while (emittedCount != r && !cancelled) {
+				T item;
+				long wait;
+				synchronized (this) {
+					if (size == 0) {
+						return;
+					}
+					item = (T) items[head];
+					wait = System.nanoTime() - enqueuedAt[head];
+					items[head] = null;
+					head = (head + 1) & (items.length - 1);
+					size--;
+				}
+				queued.decrementAndGet();
+				queueWait.recordNanos(wait);
+				waitEwma += EWMA_ALPHA * (wait - waitEwma);
+				emittedCount++;
+				emitted.increment();
+				actual.onNext(item);
+				if (++sinceAdjust >= Math.max(1, capacity / 4)) {
+					adapt();
+				}
+			}
+		}
+
+		// AIMD: halve when items wait longer than the target, grow by one step when
+		// the queue keeps filling up while waits are within it.
+		private void adapt() {
+			sinceAdjust = 0;
+			boolean full;
+			synchronized (this) {
+				full = filledUp || size >= capacity * 3 / 4;
+				filledUp = false;
+			}
+			int next = capacity;
+			if (waitEwma > options.targetLatency().toNanos()) {
+				next = Math.max(options.minCapacity(), capacity / 2);
+			} else if (full) {
+				next = Math.min(options.maxCapacity(), capacity + options.minCapacity());
+			}
+			if (next != capacity) {
+				(next > capacity ? increases : decreases).increment();
+				synchronized (this) {
+					capacity = next;
+				}
+				lastCapacity = next;
+			}
+		}
+
+		// BUFFER only: top upstream demand back up to capacity once a quarter of it has been used.
+		private void replenish() {
+			if (options.policy() != Policy.BUFFER || done) {
+				return;
+			}
+			long toRequest;
+			synchronized (this) {
+				long room = capacity - size - outstanding;
+				if (room < Math.max(1, capacity / 4)) {
+					return;
+				}
+				toRequest = room;
+				outstanding += room;
+			}
+			upstream.request(toRequest);
+		}
+
+		// Caller holds the lock.
+		private void offer(Object item) {
+			if (size == items.length) {
+				int length = items.length;
+				Object[] grownItems = new Object[length * 2];
+				long[] grownTimes = new long[length * 2];
+				for (int i = 0; i < size; i++) {
+					grownItems[i] = items[(head + i) & (length - 1)];
+					grownTimes[i] = enqueuedAt[(head + i) & (length - 1)];
+				}
+				items = grownItems;
+				enqueuedAt = grownTimes;
+				head = 0;
+			}
+			int tail = (head + size) & (items.length - 1);
+			items[tail] = item;
+			enqueuedAt[tail] = System.nanoTime();
+			size++;
+			queued.incrementAndGet();
+			if (size >= capacity) {
+				filledUp = true;
+			}
+		}
+
+		private synchronized boolean isEmpty() {
+			return size == 0;
+		}
+
+		private void clear() {
+			Object[] toDiscard;
+			synchronized (this) {
+				toDiscard = Arrays.copyOf(items, items.length);
+				Arrays.fill(items, null);
+				queued.addAndGet(-size);
+				size = 0;
+			}
+			for (Object item : toDiscard) {
+				if (item != null) {
+					Operators.onDiscard(item, actual.currentContext());
+				}
+			}
+		}
+	}
+}
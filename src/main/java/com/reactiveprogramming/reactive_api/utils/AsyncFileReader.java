@@ -0,0 +1,208 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import reactor.core.publisher.Operators;
+
+/**
+ * Subscription behind {@link FileUtils#readFileAsFlux}. Reads are only issued
+ * against outstanding demand, with up to {@code readAhead} reads in flight at
+ * once. Reads may complete out of order, so they are queued in issue order and
+ * emitted from the head of the queue only.
+ * <p>
+ * All state except the completion flags is confined to {@link #drain()}, which is
+ * serialized with the usual work-in-progress counter.
+ */
+final class AsyncFileReader implements Subscription {
+
+	private final Subscriber<? super FileChunk> actual;
+
+	private final AsynchronousFileChannel channel;
+
+	private final ByteBufferPool pool;
+
+	private final int readAhead;
+
+	private final AtomicLong requested = new AtomicLong();
+
+	private final AtomicInteger wip = new AtomicInteger();
+
+	private final ArrayDeque<PendingRead> pending = new ArrayDeque<>();
+
+	private long nextPosition;
+
+	private long end;
+
+	private long emitted;
+
+	private boolean done;
+
+	private volatile boolean cancelled;
+
+	AsyncFileReader(Subscriber<? super FileChunk> actual, AsynchronousFileChannel channel, ByteBufferPool pool,
+			int readAhead, long start, long end) {
+		this.actual = actual;
+		this.channel = channel;
+		this.pool = pool;
+		this.readAhead = readAhead;
+		this.nextPosition = start;
+		this.end = end;
+	}
+
+	void start() {
+		if (end == Long.MAX_VALUE) {
+			try {
+				end = channel.size();
+			} catch (IOException e) {
+				Operators.error(actual, e);
+				return;
+			}
+		}
+		actual.onSubscribe(this);
+	}
+
+	@Override
+	public void request(long n) {
+		if (Operators.validate(n)) {
+			requested.getAndUpdate(r -> Operators.addCap(r, n));
+			drain();
+		}
+	}
+
+	@Override
+	public void cancel() {
+		cancelled = true;
+		drain();
+	}
+
+	private void drain() {
+		if (wip.getAndIncrement() != 0) {
+			return;
+		}
+		int missed = 1;
+		for (;;) {
+			if (cancelled || done) {
+				releaseCompleted();
+			} else {
+				emitCompleted();
+				if (!done && !cancelled) {
+					if (pending.isEmpty() && nextPosition >= end) {
+						done = true;
+						actual.onComplete();
+					} else {
+						issueReads();
+					}
+				}
+			}
+
+			missed = wip.addAndGet(-missed);
+			if (missed == 0) {
+				break;
+			}
+		}
+	}
+
+	private void emitCompleted() {
+		long r = requested.get();
+		while (emitted != r && !cancelled) {
+			PendingRead head = pending.peek();
+			if (head == null || !head.completed) {
+				return;
+			}
+			pending.poll();
+			if (head.error != null) {
+				pool.release(head.buffer);
+				terminate(head.error);
+				return;
+			}
+			head.buffer.flip();
+			if (!head.buffer.hasRemaining()) {
+				// The file got shorter than it was when we sized the read.
+				pool.release(head.buffer);
+				terminate(null);
+				return;
+			}
+			emitted++;
+			actual.onNext(new FileChunk(head.position, head.buffer, pool));
+		}
+	}
+
+	private void issueReads() {
+		// Never read more than has been requested, and never more than readAhead at once.
+		while (nextPosition < end && pending.size() < readAhead
+				&& pending.size() < requested.get() - emitted && !cancelled) {
+			ByteBuffer buffer = pool.acquire();
+			buffer.limit((int) Math.min(buffer.capacity(), end - nextPosition));
+			PendingRead read = new PendingRead(nextPosition, buffer);
+			nextPosition += buffer.limit();
+			pending.offer(read);
+			channel.read(buffer, read.position, null, read);
+		}
+	}
+
+	private void terminate(Throwable error) {
+		done = true;
+		releaseCompleted();
+		if (error != null) {
+			actual.onError(error);
+		} else {
+			actual.onComplete();
+		}
+	}
+
+	private void releaseCompleted() {
+		// Reads still in flight are released by a later drain() once they complete.
+		Iterator<PendingRead> it = pending.iterator();
+		while (it.hasNext()) {
+			PendingRead read = it.next();
+			if (read.completed) {
+				it.remove();
+				pool.release(read.buffer);
+			}
+		}
+	}
+
+	private final class PendingRead implements CompletionHandler<Integer, Void> {
+
+		final long position;
+
+		final ByteBuffer buffer;
+
+		Throwable error;
+
+		volatile boolean completed;
+
+		PendingRead(long position, ByteBuffer buffer) {
+			this.position = position;
+			this.buffer = buffer;
+		}
+
+		@Override
+		public void completed(Integer bytesRead, Void attachment) {
+			if (bytesRead >= 0 && buffer.hasRemaining() && !cancelled) {
+				// Short read: keep filling this buffer so chunks stay contiguous.
+				channel.read(buffer, position + buffer.position(), null, this);
+				return;
+			}
+			completed = true;
+			drain();
+		}
+
+		@Override
+		public void failed(Throwable exc, Void attachment) {
+			error = exc;
+			completed = true;
+			drain();
+		}
+	}
+}
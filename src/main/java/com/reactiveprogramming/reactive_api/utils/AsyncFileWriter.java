@@ -0,0 +1,218 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Publisher;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Appends to one AsynchronousFileChannel with many writes in flight at once.
+ * <p>
+ * The writer owns its own offset. Every append reserves its byte range from that
+ * offset when it is subscribed, so writes can complete in any order and still land
+ * exactly where they were reserved. Small buffers passed to {@link #writeAll} are
+ * coalesced into pooled buffers of {@code coalesceSize} bytes first, which keeps
+ * the number of syscalls down without giving up queue depth.
+ */
+public class AsyncFileWriter {
+
+	public static final int DEFAULT_COALESCE_SIZE = 256 * 1024;
+
+	public static final int DEFAULT_MAX_IN_FLIGHT = 16;
+
+	private final AsynchronousFileChannel channel;
+
+	private final AtomicLong position;
+
+	private final int coalesceSize;
+
+	private final int maxInFlight;
+
+	private final ByteBufferPool pool;
+
+	private final Set<CompletableFuture<Void>> inFlight = ConcurrentHashMap.newKeySet();
+
+	public AsyncFileWriter(AsynchronousFileChannel channel) {
+		this(channel, 0, DEFAULT_COALESCE_SIZE, DEFAULT_MAX_IN_FLIGHT);
+	}
+
+	public AsyncFileWriter(AsynchronousFileChannel channel, long startPosition, int coalesceSize, int maxInFlight) {
+		this.channel = channel;
+		this.position = new AtomicLong(startPosition);
+		this.coalesceSize = coalesceSize;
+		this.maxInFlight = maxInFlight;
+		this.pool = new ByteBufferPool(coalesceSize, maxInFlight);
+	}
+
+	/** The offset the next append will be reserved at. */
+	public long position() {
+		return position.get();
+	}
+
+	public AsynchronousFileChannel channel() {
+		return channel;
+	}
+
+	/**
+	 * Append the remaining bytes of {@code buffer}. The offset is reserved on
+	 * subscription, so appends subscribed in order land in order even though they
+	 * complete concurrently. The buffer must not be touched until the Mono completes.
+	 */
+	public Mono<Void> write(ByteBuffer buffer) {
+		return Mono.defer(() -> writeAt(buffer, position.getAndAdd(buffer.remaining())));
+	}
+
+	/**
+	 * Write at an explicit offset without touching the append offset, e.g. for
+	 * copies that already know where each chunk goes. Cancelling the Mono does not
+	 * stop a write the channel has started; {@link #flush()} still waits for it.
+	 */
+	public Mono<Void> writeAt(ByteBuffer buffer, long offset) {
+		return writeAt(buffer, offset, () -> {
+		});
+	}
+
+	// onLanded runs once the channel is done with the buffer, which may be after the Mono was cancelled
+	private Mono<Void> writeAt(ByteBuffer buffer, long offset, Runnable onLanded) {
+		return Mono.defer(() -> {
+			// Subscribed here, not by the caller, so only the completion handler can end it
+			CompletableFuture<Void> write = FileUtils.writeFileAsync(channel, buffer, offset).toFuture();
+			CompletableFuture<Void> landed = write.handle((done, error) -> null);
+			inFlight.add(landed);
+			landed.thenRun(() -> {
+				inFlight.remove(landed);
+				onLanded.run();
+			});
+			return Mono.fromFuture(write, true);
+		});
+	}
+
+	/**
+	 * Append every buffer of {@code source} in order, coalescing small ones, with up
+	 * to {@code maxInFlight} writes outstanding. Emits the number of bytes written.
+	 * Small source buffers are copied and can be reused as soon as they have been
+	 * handed over; buffers of {@code coalesceSize} or more are written as they are.
+	 */
+	public Mono<Long> writeAll(Publisher<ByteBuffer> source) {
+		return Flux.defer(() -> {
+			Coalescer coalescer = new Coalescer();
+			return Flux.from(source)
+					.concatMapIterable(coalescer::add)
+					.concatWith(Flux.defer(() -> Flux.fromIterable(coalescer.drain())))
+					.doFinally(signal -> coalescer.discard());
+		}).flatMapSequential(block -> {
+			long size = block.buffer.remaining();
+			return Mono.defer(() -> writeAt(block.buffer, position.getAndAdd(size), block::release)).thenReturn(size);
+		}, maxInFlight)
+				// Downstream of flatMapSequential, so blocks it prefetched and then dropped go back to the pool too
+				.doOnDiscard(Block.class, Block::release)
+				.reduce(0L, Long::sum);
+	}
+
+	/**
+	 * Completes once every write issued before this call has landed. Writes issued
+	 * afterwards are not waited for.
+	 */
+	public Mono<Void> flush() {
+		return Mono.defer(() -> Mono
+				.fromFuture(CompletableFuture.allOf(inFlight.toArray(new CompletableFuture<?>[0]))).then());
+	}
+
+	/**
+	 * Flush, then force the file's content (and metadata if asked) to the device.
+	 * {@code force} blocks, so it runs on boundedElastic.
+	 */
+	public Mono<Void> force(boolean metaData) {
+		return force(metaData, Schedulers.boundedElastic());
+	}
+
+	/** As {@link #force(boolean)}, with the blocking call on {@code blockingScheduler}. */
+	public Mono<Void> force(boolean metaData, Scheduler blockingScheduler) {
+		return flush().then(Mono.fromRunnable(() -> {
+			try {
+				channel.force(metaData);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}).subscribeOn(blockingScheduler)).then();
+	}
+
+	/** A buffer queued for writing, remembering whether it came from our pool. */
+	private final class Block {
+
+		final ByteBuffer buffer;
+
+		final boolean pooled;
+
+		Block(ByteBuffer buffer, boolean pooled) {
+			this.buffer = buffer;
+			this.pooled = pooled;
+		}
+
+		void release() {
+			if (pooled) {
+				pool.release(buffer);
+			}
+		}
+	}
+
+	/** Packs small buffers into pooled blocks; only ever used from one writeAll sequence. */
+	private final class Coalescer {
+
+		private ByteBuffer current;
+
+		List<Block> add(ByteBuffer buffer) {
+			if (buffer.remaining() >= coalesceSize) {
+				List<Block> out = new ArrayList<>(2);
+				flushCurrent(out);
+				out.add(new Block(buffer, false));
+				return out;
+			}
+			List<Block> out = Collections.emptyList();
+			if (current != null && current.remaining() < buffer.remaining()) {
+				out = new ArrayList<>(1);
+				flushCurrent(out);
+			}
+			if (current == null) {
+				current = pool.acquire();
+			}
+			current.put(buffer);
+			return out;
+		}
+
+		List<Block> drain() {
+			List<Block> out = new ArrayList<>(1);
+			flushCurrent(out);
+			return out;
+		}
+
+		void discard() {
+			if (current != null) {
+				pool.release(current);
+				current = null;
+			}
+		}
+
+		private void flushCurrent(List<Block> out) {
+			if (current != null) {
+				current.flip();
+				out.add(new Block(current, true));
+				current = null;
+			}
+		}
+	}
+}
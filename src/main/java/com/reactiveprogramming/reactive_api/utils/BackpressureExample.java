@@ -1,5 +1,9 @@
 package com.reactiveprogramming.reactive_api.utils;
 
+import java.time.Duration;
+
+import com.reactiveprogramming.reactive_api.metrics.MetricsRegistry;
+
 import reactor.core.publisher.Flux;
 import reactor.core.scheduler.Schedulers;
 
@@ -28,7 +32,24 @@ public class BackpressureExample {
 					System.out.println("Processed: " + i + ", Thread: " + Thread.currentThread().getName());
 				});
 
+		// The same pipeline without hand-picked numbers: the buffer starts at 16, grows while the
+		// consumer keeps up and shrinks once items wait longer than 500ms. BUFFER paces Flux.range
+		// through demand, so nothing is lost; every decision shows up in the registry.
+		MetricsRegistry metrics = new MetricsRegistry();
+		AdaptiveBackpressure<Integer> adaptive = new AdaptiveBackpressure<>("example",
+				new AdaptiveBackpressure.Options(AdaptiveBackpressure.Policy.BUFFER, 8, 16, 256,
+						Duration.ofMillis(500)),
+				Schedulers.parallel(), metrics);
+		Flux.range(1, 1000).transform(adaptive).subscribe(i -> {
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+
 		// Keep the application alive to see the output
 		Thread.sleep(15000);
+		System.out.println("Adaptive pipeline metrics: " + metrics.snapshot("example."));
 	}
 }
@@ -0,0 +1,155 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.reactivestreams.Subscription;
+
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Operators;
+
+/**
+ * A {@link BaseSubscriber} that handles items a batch at a time and signals
+ * demand a batch at a time, instead of the {@code request(1)} per
+ * {@code hookOnNext} shown in {@link DemandSignallingExample}.
+ * <p>
+ * Demand is topped back up to one batch ahead whenever what is outstanding falls
+ * to the low tide (a quarter of a batch), the same way {@code limitRate}
+ * replenishes, so upstream sees one request per three quarters of a batch. The
+ * batch size follows the measured processing time per item: it is chosen so a
+ * batch takes about {@code targetBatchTime} to handle, within
+ * {@code [minBatchSize, maxBatchSize]}.
+ * <p>
+ * The list handed to {@link #hookOnNextBatch} is reused for the next batch, so
+ * copy it if you need to keep it. A partially filled batch is delivered when the
+ * source terminates; for slow, open-ended sources put {@code bufferTimeout} in
+ * front instead.
+ */
+public abstract class BatchingSubscriber<T> extends BaseSubscriber<T> {
+
+	/** Demand signalled so far, and how it was spread. */
+	public record DemandStats(long items, long batches, long requests, int batchSize, double nanosPerItem) {
+
+		public double itemsPerRequest() {
+			return requests == 0 ? 0 : (double) items / requests;
+		}
+
+		public double averageBatchSize() {
+			return batches == 0 ? 0 : (double) items / batches;
+		}
+	}
+
+	// Weight of the newest batch in the per-item time average.
+	private static final double EWMA_ALPHA = 0.3;
+
+	private final int minBatchSize;
+
+	private final int maxBatchSize;
+
+	private final long targetBatchNanos;
+
+	private final List<T> batch;
+
+	private int batchSize;
+
+	private long outstanding;
+
+	private double nanosPerItem;
+
+	// Written by the subscriber's thread, read by demandStats() from anywhere.
+	private volatile long items;
+
+	private volatile long batches;
+
+	private volatile long requests;
+
+	protected BatchingSubscriber(int minBatchSize, int initialBatchSize, int maxBatchSize,
+			Duration targetBatchTime) {
+		if (minBatchSize < 1 || initialBatchSize < minBatchSize || maxBatchSize < initialBatchSize) {
+			throw new IllegalArgumentException("Need 1 <= minBatchSize <= initialBatchSize <= maxBatchSize, got "
+					+ minBatchSize + ", " + initialBatchSize + ", " + maxBatchSize);
+		}
+		this.minBatchSize = minBatchSize;
+		this.maxBatchSize = maxBatchSize;
+		this.targetBatchNanos = targetBatchTime.toNanos();
+		this.batchSize = initialBatchSize;
+		this.batch = new ArrayList<>(initialBatchSize);
+	}
+
+	/** Handle one batch; the list is cleared and reused once this returns. */
+	protected abstract void hookOnNextBatch(List<T> batch);
+
+	/** Called after the last batch once the source completes. */
+	protected void hookOnBatchesComplete() {
+	}
+
+	/** Called after the last batch if the source fails. */
+	protected void hookOnBatchesError(Throwable throwable) {
+		Operators.onErrorDropped(throwable, currentContext());
+	}
+
+	public DemandStats demandStats() {
+		return new DemandStats(items, batches, requests, batchSize, nanosPerItem);
+	}
+
+	@Override
+	protected final void hookOnSubscribe(Subscription subscription) {
+		replenish();
+	}
+
+	@Override
+	protected final void hookOnNext(T value) {
+		outstanding--;
+		batch.add(value);
+		if (batch.size() >= batchSize) {
+			deliver();
+		}
+		if (outstanding <= batchSize / 4 && !isDisposed()) {
+			replenish();
+		}
+	}
+
+	@Override
+	protected final void hookOnComplete() {
+		if (!batch.isEmpty()) {
+			deliver();
+		}
+		hookOnBatchesComplete();
+	}
+
+	@Override
+	protected final void hookOnError(Throwable throwable) {
+		if (!batch.isEmpty()) {
+			deliver();
+		}
+		hookOnBatchesError(throwable);
+	}
+
+	private void deliver() {
+		int size = batch.size();
+		long start = System.nanoTime();
+		try {
+			hookOnNextBatch(batch);
+		} finally {
+			batch.clear();
+		}
+		double perItem = (double) (System.nanoTime() - start) / size;
+		nanosPerItem = batches == 0 ? perItem : nanosPerItem + EWMA_ALPHA * (perItem - nanosPerItem);
+		items += size;
+		batches++;
+		if (nanosPerItem > 0) {
+			batchSize = (int) Math.max(minBatchSize, Math.min(maxBatchSize, targetBatchNanos / nanosPerItem));
+		}
+	}
+
+	// Bring outstanding demand back up to one full batch.
+	private void replenish() {
+		long toRequest = batchSize - outstanding;
+		if (toRequest > 0) {
+			outstanding += toRequest;
+			requests++;
+			request(toRequest);
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Picks the scheduler that blocking stages ({@code Files.lines}, {@code transferTo},
+ * {@code force}, ...) are moved to, per named pipeline.
+ * <p>
+ * {@link Mode#VIRTUAL} runs every task on its own virtual thread, so thousands
+ * of short blocking file operations are multiplexed onto a few carrier threads
+ * instead of queueing for boundedElastic's capped pool. Virtual threads need
+ * JDK 21+, while this project compiles for 17, so they are created reflectively;
+ * on an older runtime {@code VIRTUAL} and {@code AUTO} both fall back to
+ * {@code boundedElastic}.
+ */
+public class BlockingSchedulers implements AutoCloseable {
+
+	public enum Mode {
+
+		/** Virtual threads when the JDK has them, boundedElastic otherwise. */
+		AUTO,
+
+		/** Virtual threads; falls back to boundedElastic on a JDK without them. */
+		VIRTUAL,
+
+		BOUNDED_ELASTIC
+	}
+
+	private static final ThreadFactory VIRTUAL_THREAD_FACTORY = virtualThreadFactory("blocking-virtual-");
+
+	private final Mode defaultMode;
+
+	private final Map<String, Mode> pipelineModes;
+
+	private volatile Scheduler virtualScheduler;
+
+	/**
+	 * @param pipelineModes overrides for individual pipelines, e.g. {@code copy -> VIRTUAL}
+	 */
+	public BlockingSchedulers(Mode defaultMode, Map<String, Mode> pipelineModes) {
+		this.defaultMode = defaultMode;
+		this.pipelineModes = Map.copyOf(pipelineModes);
+	}
+
+	public static boolean virtualThreadsSupported() {
+		return VIRTUAL_THREAD_FACTORY != null;
+	}
+
+	/** The scheduler for {@code pipeline}'s blocking stages. */
+	public Scheduler forPipeline(String pipeline) {
+		return forMode(modeOf(pipeline));
+	}
+
+	/** The mode {@code pipeline} runs in, after falling back for the running JDK. */
+	public Mode modeOf(String pipeline) {
+		Mode mode = pipelineModes.getOrDefault(pipeline, defaultMode);
+		return mode != Mode.BOUNDED_ELASTIC && virtualThreadsSupported() ? Mode.VIRTUAL : Mode.BOUNDED_ELASTIC;
+	}
+
+	public Scheduler forMode(Mode mode) {
+		if (mode == Mode.BOUNDED_ELASTIC || !virtualThreadsSupported()) {
+			return Schedulers.boundedElastic();
+		}
+		Scheduler scheduler = virtualScheduler;
+		if (scheduler == null) {
+			synchronized (this) {
+				scheduler = virtualScheduler;
+				if (scheduler == null) {
+					scheduler = Schedulers.fromExecutorService(newThreadPerTaskExecutor(VIRTUAL_THREAD_FACTORY),
+							"blocking-virtual");
+					virtualScheduler = scheduler;
+				}
+			}
+		}
+		return scheduler;
+	}
+
+	@Override
+	public void close() {
+		Scheduler scheduler = virtualScheduler;
+		if (scheduler != null) {
+			scheduler.dispose();
+		}
+	}
+
+	// Thread.ofVirtual().name(prefix, 0).factory(), or null before JDK 21.
+	private static ThreadFactory virtualThreadFactory(String prefix) {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+			builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+			return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	// Executors.newThreadPerTaskExecutor(factory), only reached when virtual threads exist.
+	private static ExecutorService newThreadPerTaskExecutor(ThreadFactory factory) {
+		try {
+			Method method = Executors.class.getMethod("newThreadPerTaskExecutor",
+					ThreadFactory.class);
+			return (ExecutorService) method.invoke(null, factory);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Virtual threads are available but newThreadPerTaskExecutor is not", e);
+		}
+	}
+}
@@ -0,0 +1,454 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.reactiveprogramming.reactive_api.metrics.LatencyTimer;
+import com.reactiveprogramming.reactive_api.metrics.MetricsRegistry;
+
+import reactor.core.CoreSubscriber;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+
+/**
+ * Fans one upstream pipeline per topic out to any number of subscribers.
+ * <p>
+ * Unlike {@code share()}, a slow subscriber never holds up the source or the
+ * other subscribers: the upstream is requested unbounded and every subscriber
+ * gets its own bounded queue, with an {@link OverflowPolicy} deciding what
+ * happens once that queue is full. Each topic also keeps a ring of its last
+ * {@code replaySize} events so that late joiners start with recent state.
+ * <p>
+ * Per topic, {@code <name>.<topic>.published}, {@code .dropped},
+ * {@code .disconnected} and {@code .subscribers} are registered with the
+ * {@link MetricsRegistry}, along with a {@code .fan-out} timer measuring how long
+ * an event took from arriving upstream to being handed to a subscriber.
+ * <p>
+ * Topic keys usually come from clients, so a topic only lives while it has
+ * subscribers: when the last one leaves, its upstream is cancelled and its
+ * metrics are unregistered. The next subscriber starts it afresh.
+ *
+ * @param <K> topic key
+ * @param <T> event type
+ */
+public class BroadcastHub<K, T> implements AutoCloseable {
+
+	/** What a subscriber's queue does with a new event once it is full. */
+	public enum OverflowPolicy {
+
+		/** Replace the newest queued event, so the subscriber always ends on the latest value. */
+		LATEST,
+
+		/** Evict the oldest queued event. */
+		DROP_OLDEST,
+
+		/** Fail the subscriber with an overflow error and drop it from the topic. */
+		DISCONNECT
+	}
+
+	private record Stamped<T>(long seq, long nanos, T value) {
+	}
+
+	private final String name;
+
+	private final Function<? super K, ? extends Publisher<T>> upstreamFactory;
+
+	private final int replaySize;
+
+	private final MetricsRegistry metrics;
+
+	private final ConcurrentMap<K, Topic> topics = new ConcurrentHashMap<>();
+
+	/**
+	 * @param name            metric prefix, e.g. {@code ticker.hub}
+	 * @param upstreamFactory source for a topic; subscribed once, on the topic's first subscriber
+	 * @param replaySize      events replayed to each new subscriber, 0 for none
+	 */
+	public BroadcastHub(String name, Function<? super K, ? extends Publisher<T>> upstreamFactory, int replaySize,
+			MetricsRegistry metrics) {
+		this.name = name;
+		this.upstreamFactory = upstreamFactory;
+		this.replaySize = replaySize;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Events of {@code topic}, starting with its replay ring. At most
+	 * {@code queueSize} undelivered events are held for this subscriber.
+	 */
+	public Flux<T> subscribe(K topic, OverflowPolicy policy, int queueSize) {
+		if (queueSize < 1) {
+			throw new IllegalArgumentException("queueSize must be positive: " + queueSize);
+		}
+		return Flux.from(actual -> {
+			Topic target;
+			while (!(target = topics.computeIfAbsent(topic, Topic::new)).reserve()) {
+				topics.remove(topic, target); // closing; make way for a fresh one
+			}
+			HubSubscription subscription = new HubSubscription(actual, target, policy, queueSize);
+			actual.onSubscribe(subscription);
+			target.add(subscription);
+			target.connect();
+		});
+	}
+
+	public int topicCount() {
+		return topics.size();
+	}
+
+	public long subscriberCount() {
+		long count = 0;
+		for (Topic topic : topics.values()) {
+			count += topic.subscribers.size();
+		}
+		return count;
+	}
+
+	/** Cancels every upstream and completes every subscriber. */
+	@Override
+	public void close() {
+		topics.values().forEach(topic -> {
+			Subscription upstream = topic.upstream;
+			if (upstream != null) {
+				upstream.cancel();
+			}
+			topic.onComplete();
+		});
+	}
+
+	private final class Topic implements CoreSubscriber<T> {
+
+		final Set<HubSubscription> subscribers = ConcurrentHashMap.newKeySet();
+
+		final LongAdder published;
+
+		final LongAdder dropped;
+
+		final LongAdder disconnected;
+
+		final LatencyTimer fanOut;
+
+		final AtomicBoolean connected = new AtomicBoolean();
+
+		final K key;
+
+		final String prefix;
+
+		volatile Subscription upstream;
+
+		// Guarded by this: the replay ring, its sequence and the terminal state.
+		final Stamped<T>[] ring;
+
+		long seq;
+
+		boolean done;
+
+		Throwable error;
+
+		// Guarded by this: subscriptions on their way in, and whether the topic has been closed.
+		// Written under the lock, read without it by onSubscribe.
+		int reserved;
+
+		volatile boolean closed;
+
+		@SuppressWarnings("unchecked")
+		Topic(K key) {
+			this.key = key;
+			this.ring = (Stamped<T>[]) new Stamped<?>[replaySize];
+			this.prefix = name + "." + key;
+			this.published = metrics.counter(prefix + ".published");
+			this.dropped = metrics.counter(prefix + ".dropped");
+			this.disconnected = metrics.counter(prefix + ".disconnected");
+			this.fanOut = metrics.timer(prefix + ".fan-out");
+			metrics.gauge(prefix + ".subscribers", subscribers::size);
+		}
+
+		void connect() {
+			if (!closed && connected.compareAndSet(false, true)) {
+				upstreamFactory.apply(key).subscribe(this);
+			}
+		}
+
+		/** Holds the topic open for a subscription about to be {@link #add}ed; false once it is closed. */
+		synchronized boolean reserve() {
+			if (closed) {
+				return false;
+			}
+			reserved++;
+			return true;
+		}
+
+		// Replay and registration happen under the same lock that sequences new
+		// events, so a joiner sees every event exactly once: up to afterSeq from the
+		// ring, and after it from onNext.
+		void add(HubSubscription subscription) {
+			synchronized (this) {
+				reserved--;
+				for (long s = Math.max(1, seq - ring.length + 1); s <= seq; s++) {
+					subscription.enqueue(ring[(int) (s % ring.length)]);
+				}
+				subscription.afterSeq = seq;
+				if (done) {
+					subscription.error = error;
+					subscription.done = true;
+				} else {
+					subscribers.add(subscription);
+				}
+			}
+			if (subscription.cancelled) {
+				// Cancelled in onSubscribe, before it was a member for cancel() to remove
+				subscribers.remove(subscription);
+			}
+			subscription.drain();
+			closeIfUnused();
+		}
+
+		void remove(HubSubscription subscription) {
+			subscribers.remove(subscription);
+			closeIfUnused();
+		}
+
+		private void closeIfUnused() {
+			synchronized (this) {
+				if (closed || reserved > 0 || !subscribers.isEmpty()) {
+					return;
+				}
+				closed = true;
+				// Before the topic leaves the map, so a successor's metrics are never the ones removed here
+				metrics.removeCounter(prefix + ".published");
+				metrics.removeCounter(prefix + ".dropped");
+				metrics.removeCounter(prefix + ".disconnected");
+				metrics.removeTimer(prefix + ".fan-out");
+				metrics.removeGauge(prefix + ".subscribers");
+			}
+			topics.remove(key, this);
+			Subscription current = upstream;
+			if (current != null) {
+				current.cancel();
+			}
+		}
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			if (Operators.validate(upstream, s)) {
+				upstream = s;
+				if (closed) {
+					s.cancel(); // closed while connecting
+				} else {
+					s.request(Long.MAX_VALUE);
+				}
+			}
+		}
+
+		@Override
+		public void onNext(T value) {
+			Stamped<T> event;
+			synchronized (this) {
+				event = new Stamped<>(++seq, System.nanoTime(), value);
+				if (ring.length > 0) {
+					ring[(int) (seq % ring.length)] = event;
+				}
+			}
+			published.increment();
+			for (HubSubscription subscription : subscribers) {
+				subscription.offer(event);
+			}
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			terminate(t);
+		}
+
+		@Override
+		public void onComplete() {
+			terminate(null);
+		}
+
+		private void terminate(Throwable t) {
+			synchronized (this) {
+				if (done) {
+					return;
+				}
+				done = true;
+				error = t;
+			}
+			for (HubSubscription subscription : subscribers) {
+				subscription.error = t;
+				subscription.done = true;
+				subscription.drain();
+			}
+		}
+	}
+
+	/**
+	 * One subscriber's bounded queue. Offers come from the topic's upstream thread,
+	 * delivery is serialized through {@link #drain()} like any other
+	 * work-in-progress loop.
+	 */
+	private final class HubSubscription implements Subscription {
+
+		final Subscriber<? super T> actual;
+
+		final Topic topic;
+
+		final OverflowPolicy policy;
+
+		final AtomicLong requested = new AtomicLong();
+
+		final AtomicInteger wip = new AtomicInteger();
+
+		// Guarded by this
+		final Stamped<T>[] queue;
+
+		int head;
+
+		int size;
+
+		// Written under the topic lock before this subscription becomes visible to onNext.
+		long afterSeq;
+
+		long emitted;
+
+		Throwable error;
+
+		volatile boolean done;
+
+		volatile boolean overflowed;
+
+		volatile boolean cancelled;
+
+		@SuppressWarnings("unchecked")
+		HubSubscription(Subscriber<? super T> actual, Topic topic, OverflowPolicy policy, int queueSize) {
+			this.actual = actual;
+			this.topic = topic;
+			this.policy = policy;
+			this.queue = (Stamped<T>[]) new Stamped<?>[queueSize];
+		}
+
+		void offer(Stamped<T> event) {
+			if (event.seq() > afterSeq && !cancelled) {
+				enqueue(event);
+				drain();
+			}
+		}
+
+		synchronized void enqueue(Stamped<T> event) {
+			if (size < queue.length) {
+				queue[(head + size++) % queue.length] = event;
+				return;
+			}
+			switch (policy) {
+			case LATEST -> {
+				queue[(head + size - 1) % queue.length] = event;
+				topic.dropped.increment();
+			}
+			case DROP_OLDEST -> {
+				// Full, so the tail slot is the head slot.
+				queue[head] = event;
+				head = (head + 1) % queue.length;
+				topic.dropped.increment();
+			}
+			case DISCONNECT -> overflowed = true;
+			}
+		}
+
+		synchronized Stamped<T> poll() {
+			if (size == 0) {
+				return null;
+			}
+			Stamped<T> event = queue[head];
+			queue[head] = null;
+			head = (head + 1) % queue.length;
+			size--;
+			return event;
+		}
+
+		synchronized void clear() {
+			Arrays.fill(queue, null);
+			size = 0;
+		}
+
+		synchronized boolean isEmpty() {
+			return size == 0;
+		}
+
+		@Override
+		public void request(long n) {
+			if (Operators.validate(n)) {
+				requested.getAndUpdate(r -> Operators.addCap(r, n));
+				drain();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			topic.remove(this);
+			drain();
+		}
+
+		void drain() {
+			if (wip.getAndIncrement() != 0) {
+				return;
+			}
+			int missed = 1;
+			for (;;) {
+				if (cancelled) {
+					clear();
+				} else if (overflowed) {
+					cancelled = true;
+					clear();
+					topic.remove(this);
+					topic.disconnected.increment();
+					actual.onError(Exceptions.failWithOverflow(
+							"Subscriber fell more than " + queue.length + " events behind on " + topic.key));
+				} else {
+					emitQueued();
+				}
+
+				missed = wip.addAndGet(-missed);
+				if (missed == 0) {
+					break;
+				}
+			}
+		}
+
+		private void emitQueued() {
+			long r = requested.get();
+			while (emitted != r && !cancelled) {
+				Stamped<T> event = poll();
+				if (event == null) {
+					break;
+				}
+				emitted++;
+				actual.onNext(event.value());
+				if (event.seq() > afterSeq) {
+					// Replayed events would only measure how old the ring is.
+					topic.fanOut.recordSince(event.nanos());
+				}
+			}
+			if (done && !cancelled && isEmpty()) {
+				cancelled = true;
+				topic.remove(this);
+				if (error != null) {
+					actual.onError(error);
+				} else {
+					actual.onComplete();
+				}
+			}
+		}
+	}
+}
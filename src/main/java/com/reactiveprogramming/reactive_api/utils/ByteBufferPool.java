@@ -0,0 +1,104 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A small pool of same-sized direct ByteBuffers. Direct buffers are expensive to
+ * allocate and are only reclaimed by the GC, so readers and writers that move a
+ * lot of file data recycle them through here instead of allocating per chunk.
+ * At most {@code maxPooled} idle buffers are kept; anything above that is left
+ * to the GC.
+ */
+public class ByteBufferPool {
+
+	// Totals over every pool in the process, for metrics; pools are often short-lived (one per copy).
+	private static final LongAdder TOTAL_IN_USE_BYTES = new LongAdder();
+
+	private static final LongAdder TOTAL_ALLOCATED_BYTES = new LongAdder();
+
+	private final int bufferSize;
+
+	private final int maxPooled;
+
+	private final Queue<ByteBuffer> idle = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger idleCount = new AtomicInteger();
+
+	private final AtomicInteger inUse = new AtomicInteger();
+
+	private final AtomicLong allocated = new AtomicLong();
+
+	public ByteBufferPool(int bufferSize, int maxPooled) {
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("bufferSize must be > 0");
+		}
+		this.bufferSize = bufferSize;
+		this.maxPooled = maxPooled;
+	}
+
+	/**
+	 * Take a cleared buffer from the pool, allocating a new direct one if none is idle.
+	 */
+	public ByteBuffer acquire() {
+		inUse.incrementAndGet();
+		TOTAL_IN_USE_BYTES.add(bufferSize);
+		ByteBuffer buffer = idle.poll();
+		if (buffer != null) {
+			idleCount.decrementAndGet();
+			return buffer.clear();
+		}
+		allocated.incrementAndGet();
+		TOTAL_ALLOCATED_BYTES.add(bufferSize);
+		return ByteBuffer.allocateDirect(bufferSize);
+	}
+
+	/**
+	 * Hand a buffer back. Buffers of a different size (e.g. not from this pool) are ignored.
+	 */
+	public void release(ByteBuffer buffer) {
+		if (buffer == null || buffer.capacity() != bufferSize || !buffer.isDirect()) {
+			return;
+		}
+		inUse.decrementAndGet();
+		TOTAL_IN_USE_BYTES.add(-bufferSize);
+		if (idleCount.incrementAndGet() <= maxPooled) {
+			idle.offer(buffer.clear());
+		} else {
+			idleCount.decrementAndGet();
+		}
+	}
+
+	public int bufferSize() {
+		return bufferSize;
+	}
+
+	/** Buffers currently handed out and not yet released. */
+	public int inUse() {
+		return inUse.get();
+	}
+
+	/** Buffers sitting in the pool ready for reuse. */
+	public int idle() {
+		return idleCount.get();
+	}
+
+	/** Total direct buffers ever allocated by this pool. */
+	public long allocated() {
+		return allocated.get();
+	}
+
+	/** Bytes of pooled buffers currently handed out, across all pools. */
+	public static long totalInUseBytes() {
+		return TOTAL_IN_USE_BYTES.sum();
+	}
+
+	/** Bytes of direct buffers ever allocated, across all pools. */
+	public static long totalAllocatedBytes() {
+		return TOTAL_ALLOCATED_BYTES.sum();
+	}
+}
@@ -1,5 +1,8 @@
 package com.reactiveprogramming.reactive_api.utils;
 
+import java.time.Duration;
+import java.util.List;
+
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.BaseSubscriber;
 import org.reactivestreams.Subscription;
@@ -32,5 +35,19 @@ public class DemandSignallingExample {
 				request(1);
 			}
 		});
+
+		// The same consumer without a request per item: BatchingSubscriber asks for a batch at a
+		// time and hands the items over together (see BatchingSubscriberBenchmark for the difference).
+		flux.subscribe(new BatchingSubscriber<Integer>(2, 4, 8, Duration.ofMillis(10)) {
+			@Override
+			protected void hookOnNextBatch(List<Integer> batch) {
+				System.out.println("Received batch: " + batch);
+			}
+
+			@Override
+			protected void hookOnBatchesComplete() {
+				System.out.println("Demand: " + demandStats());
+			}
+		});
 	}
 }
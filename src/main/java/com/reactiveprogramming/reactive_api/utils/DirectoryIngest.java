@@ -0,0 +1,296 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.ParallelFlux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Appends the lines of every file under a directory tree to a {@link LineSink},
+ * passing each line through a {@link RecordTransform} on the way.
+ * <p>
+ * The tree is walked lazily on a blocking-friendly scheduler, so files are
+ * discovered as fast as they are consumed and a huge tree is never listed up
+ * front. Files are grouped by the {@link FileStore} they live on, and at most
+ * {@code concurrencyPerStore} files per store are read at once through the
+ * async chunk reader and {@link LineDecoder}. Their lines are cut into batches
+ * that are transformed on {@code parallelism} rails ({@code parallel().runOn}),
+ * so the CPU work spreads across cores while every disk stays busy.
+ * <p>
+ * {@link Ordering#UNORDERED} writes batches as soon as any rail finishes them.
+ * {@link Ordering#PER_FILE} merges the rails back in read order, so the lines of
+ * each file land in their original order; lines of different files still
+ * interleave. A file that fails to read is reported with its error and the
+ * ingest moves on; the lines it produced before failing stay written.
+ */
+public class DirectoryIngest {
+
+	public enum Ordering {
+		UNORDERED,
+		PER_FILE
+	}
+
+	/**
+	 * A per-record transform; return {@code null} to drop the record. As a bean
+	 * named {@link #BEAN_NAME_PREFIX} plus a name, it is offered by {@code /ingest}
+	 * under that name.
+	 */
+	@FunctionalInterface
+	public interface RecordTransform {
+
+		String BEAN_NAME_PREFIX = "ingestTransform.";
+
+		/** @param file the file the record came from, relative to the ingest root */
+		String apply(Path file, String record);
+	}
+
+	/**
+	 * Emitted once a file's last batch has been written. {@code records} were read,
+	 * {@code written} made it through the transform; {@code error} is null on success.
+	 */
+	public record FileResult(String file, String store, long bytes, long records, long written, long millis,
+			double megabytesPerSecond, String error) {
+	}
+
+	/** Totals since startup. */
+	public record Stats(long files, long failedFiles, long bytes, long records, long written) {
+	}
+
+	// Batches waiting per rail; a batch is already batchSize lines
+	private static final int BATCH_PREFETCH = 4;
+
+	private static final Comparator<Batch> READ_ORDER = Comparator.comparingLong(batch -> batch.sequence);
+
+	private final int parallelism;
+
+	private final int concurrencyPerStore;
+
+	private final int batchSize;
+
+	private final int chunkSize;
+
+	private final int maxLineLength;
+
+	private final Scheduler walkScheduler;
+
+	private final Scheduler workers;
+
+	private final LongAdder files = new LongAdder();
+
+	private final LongAdder failedFiles = new LongAdder();
+
+	private final LongAdder bytes = new LongAdder();
+
+	private final LongAdder records = new LongAdder();
+
+	private final LongAdder written = new LongAdder();
+
+	public DirectoryIngest(int parallelism, int concurrencyPerStore, int batchSize, int chunkSize, int maxLineLength) {
+		this(parallelism, concurrencyPerStore, batchSize, chunkSize, maxLineLength, Schedulers.boundedElastic(),
+				Schedulers.parallel());
+	}
+
+	/**
+	 * @param parallelism   transform rails; 0 means one per core
+	 * @param walkScheduler where the blocking directory walk runs
+	 * @param workers       where the rails run
+	 */
+	public DirectoryIngest(int parallelism, int concurrencyPerStore, int batchSize, int chunkSize, int maxLineLength,
+			Scheduler walkScheduler, Scheduler workers) {
+		this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+		this.concurrencyPerStore = Math.max(1, concurrencyPerStore);
+		this.batchSize = batchSize;
+		this.chunkSize = chunkSize;
+		this.maxLineLength = maxLineLength;
+		this.walkScheduler = walkScheduler;
+		this.workers = workers;
+	}
+
+	/**
+	 * Ingest the regular files under {@code root} that {@code include} accepts
+	 * (it is given absolute paths). Nothing happens until subscription; emits one
+	 * {@link FileResult} per file and completes once every line has been written.
+	 * Must not include the file {@code sink} writes to.
+	 */
+	public Flux<FileResult> ingest(Path root, Predicate<Path> include, RecordTransform transform, Ordering ordering,
+			LineSink sink) {
+		return Flux.defer(() -> {
+			AtomicLong sequence = new AtomicLong();
+			ParallelFlux<Batch> transformed = walk(root, include)
+					.groupBy(FileTask::store)
+					.flatMap(store -> store.flatMap(this::read, concurrencyPerStore, BATCH_PREFETCH))
+					// Read order across all files, which PER_FILE restores after the rails
+					.doOnNext(batch -> batch.sequence = sequence.getAndIncrement())
+					.parallel(parallelism, BATCH_PREFETCH)
+					.runOn(workers, BATCH_PREFETCH)
+					.map(batch -> batch.transform(transform));
+			Flux<Batch> ready = ordering == Ordering.PER_FILE ? transformed.ordered(READ_ORDER, BATCH_PREFETCH)
+					: transformed.sequential(BATCH_PREFETCH);
+			// flatMap subscribes the writes in arrival order and each batch is one append that takes its place in
+			// the file on subscription, so PER_FILE order survives the concurrent writes.
+			return ready.flatMap(batch -> write(batch, sink), AsyncFileWriter.DEFAULT_MAX_IN_FLIGHT)
+					.handle((file, results) -> {
+						FileResult result = file.batchWritten();
+						if (result != null) {
+							results.next(result);
+						}
+					});
+		});
+	}
+
+	public Stats stats() {
+		return new Stats(files.sum(), failedFiles.sum(), bytes.sum(), records.sum(), written.sum());
+	}
+
+	private Flux<FileTask> walk(Path root, Predicate<Path> include) {
+		return Flux.using(() -> Files.walk(root), paths -> {
+			// Looking up the store is costly (it scans the mount table), so do it once per directory
+			Map<Path, FileStore> stores = new HashMap<>();
+			return Flux.fromStream(paths).<FileTask>handle((path, tasks) -> {
+				try {
+					BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+					if (!attributes.isRegularFile() || !include.test(path)) {
+						return;
+					}
+					FileStore store = stores.get(path.getParent());
+					if (store == null) {
+						store = Files.getFileStore(path);
+						stores.put(path.getParent(), store);
+					}
+					tasks.next(new FileTask(path, root.relativize(path), store, attributes.size()));
+				} catch (IOException e) {
+					// Gone between listing and stat; nothing to ingest
+				}
+			});
+		}, Stream::close)
+				// Requests are moved to the walk scheduler too, so later steps of the walk never block a caller
+				.subscribeOn(walkScheduler);
+	}
+
+	private Flux<Batch> read(FileTask task) {
+		return Flux.defer(() -> {
+			FileState file = new FileState(task);
+			return LineDecoder.lines(task.path(), chunkSize, maxLineLength)
+					.map(Line::releaseAsString)
+					.doOnDiscard(Line.class, Line::release)
+					.buffer(batchSize)
+					.map(file::batch)
+					.onErrorResume(e -> {
+						file.error = e;
+						return Mono.empty();
+					})
+					// Carries no lines; completes the file once it and every batch before it is written
+					.concatWith(Mono.fromSupplier(file::last));
+		});
+	}
+
+	private static Mono<FileState> write(Batch batch, LineSink sink) {
+		if (batch.records.isEmpty()) {
+			return Mono.just(batch.file);
+		}
+		// Not sink.write: that splits the batch into appends of its own, only some of which are reserved at once
+		return sink.append(batch.records).map(lines -> {
+			batch.file.written.addAndGet(lines);
+			return batch.file;
+		});
+	}
+
+	private record FileTask(Path path, Path relative, FileStore store, long size) {
+	}
+
+	private static final class Batch {
+
+		final FileState file;
+
+		List<String> records;
+
+		long sequence;
+
+		Batch(FileState file, List<String> records) {
+			this.file = file;
+			this.records = records;
+		}
+
+		Batch transform(RecordTransform transform) {
+			List<String> out = new ArrayList<>(records.size());
+			for (String record : records) {
+				String result = transform.apply(file.task.relative(), record);
+				if (result != null) {
+					out.add(result);
+				}
+			}
+			records = out;
+			return this;
+		}
+	}
+
+	/** Progress of one file. Batches are created serially by its reader, but finish writing in any order. */
+	private final class FileState {
+
+		final FileTask task;
+
+		final long startNanos = System.nanoTime();
+
+		final AtomicLong written = new AtomicLong();
+
+		final AtomicLong batchesWritten = new AtomicLong();
+
+		long records;
+
+		long batches;
+
+		// Set, with records and batches final, before the last batch is emitted
+		volatile long expectedBatches = Long.MAX_VALUE;
+
+		volatile Throwable error;
+
+		FileState(FileTask task) {
+			this.task = task;
+		}
+
+		Batch batch(List<String> lines) {
+			records += lines.size();
+			batches++;
+			return new Batch(this, lines);
+		}
+
+		Batch last() {
+			expectedBatches = batches + 1;
+			return new Batch(this, List.of());
+		}
+
+		/** The result once every batch, including the last, has been written; otherwise null. */
+		FileResult batchWritten() {
+			if (batchesWritten.incrementAndGet() != expectedBatches) {
+				return null;
+			}
+			long nanos = System.nanoTime() - startNanos;
+			files.increment();
+			if (error != null) {
+				failedFiles.increment();
+			}
+			bytes.add(task.size());
+			DirectoryIngest.this.records.add(records);
+			DirectoryIngest.this.written.add(written.get());
+			return new FileResult(task.relative().toString(), task.store().name(), task.size(), records,
+					written.get(), nanos / 1_000_000, task.size() / 1048576.0 / Math.max(nanos, 1) * 1e9,
+					error == null ? null : error.toString());
+		}
+	}
+}
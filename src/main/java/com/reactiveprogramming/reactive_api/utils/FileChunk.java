@@ -0,0 +1,45 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A slice of a file read into a pooled buffer. The buffer is flipped and ready to
+ * be consumed; {@link #position()} is the file offset of its first byte. Whoever
+ * consumes the chunk must call {@link #release()} once done so the buffer goes back
+ * to its pool. Releasing more than once is harmless.
+ */
+public final class FileChunk {
+
+	private final long position;
+
+	private final ByteBuffer buffer;
+
+	private final ByteBufferPool pool;
+
+	private final AtomicBoolean released = new AtomicBoolean();
+
+	FileChunk(long position, ByteBuffer buffer, ByteBufferPool pool) {
+		this.position = position;
+		this.buffer = buffer;
+		this.pool = pool;
+	}
+
+	public long position() {
+		return position;
+	}
+
+	public ByteBuffer buffer() {
+		return buffer;
+	}
+
+	public int size() {
+		return buffer.remaining();
+	}
+
+	public void release() {
+		if (released.compareAndSet(false, true)) {
+			pool.release(buffer);
+		}
+	}
+}
@@ -0,0 +1,181 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Copies a file by splitting it into byte ranges and copying the ranges
+ * concurrently, reporting progress as it goes.
+ * <p>
+ * In {@link Mode#TRANSFER} each range is moved with {@link FileChannel#transferTo},
+ * which the kernel can do without copying through user space (sendfile /
+ * copy_file_range on Linux). That blocks, so ranges run on a blocking-friendly
+ * scheduler. {@link Mode#ASYNC} moves ranges through the pooled async reader and
+ * {@link AsyncFileWriter} instead, which works for any file system provider.
+ */
+public class FileCopyEngine {
+
+	public enum Mode {
+		/** TRANSFER when both files are on the default file system, ASYNC otherwise. */
+		AUTO,
+		TRANSFER,
+		ASYNC
+	}
+
+	/** A progress report; the last one has {@code done} set. */
+	public record CopyProgress(long bytesCopied, long totalBytes, double megabytesPerSecond, boolean done) {
+	}
+
+	/** Ranges smaller than this are not worth a separate worker. */
+	private static final long MIN_RANGE_SIZE = 1024 * 1024;
+
+	private final int parallelism;
+
+	private final int chunkSize;
+
+	private final Mode mode;
+
+	private final Duration progressInterval;
+
+	private final Scheduler blockingScheduler;
+
+	public FileCopyEngine(int parallelism, int chunkSize, Mode mode, Duration progressInterval) {
+		this(parallelism, chunkSize, mode, progressInterval, Schedulers.boundedElastic());
+	}
+
+	public FileCopyEngine(int parallelism, int chunkSize, Mode mode, Duration progressInterval,
+			Scheduler blockingScheduler) {
+		this.parallelism = Math.max(1, parallelism);
+		this.chunkSize = chunkSize;
+		this.mode = mode;
+		this.progressInterval = progressInterval;
+		this.blockingScheduler = blockingScheduler;
+	}
+
+	/**
+	 * Copy {@code source} over {@code target}. Nothing happens until subscription;
+	 * progress is emitted every {@code progressInterval} and once more at the end.
+	 * Fails with {@link IllegalArgumentException} if both are the same file (the
+	 * target is truncated before the source is read), and with
+	 * {@link EOFException} if the source ends before the size it had at the start.
+	 */
+	public Flux<CopyProgress> copy(Path source, Path target) {
+		return Flux.defer(() -> {
+			long size;
+			try {
+				if (Files.exists(target) && Files.isSameFile(source, target)) {
+					return Flux.error(new IllegalArgumentException("source and target are the same file"));
+				}
+				size = Files.size(source);
+			} catch (IOException e) {
+				return Flux.error(e);
+			}
+			AtomicLong copied = new AtomicLong();
+			long startNanos = System.nanoTime();
+
+			Mono<Void> work = (resolveMode(source, target) == Mode.TRANSFER ? transferCopy(source, target, size, copied)
+					: asyncCopy(source, target, size, copied)).then(Mono.defer(() -> checkComplete(copied.get(), size)))
+					.cache();
+
+			Flux<CopyProgress> ticks = Flux.interval(progressInterval)
+					.map(tick -> progress(copied.get(), size, startNanos, false))
+					.takeUntilOther(work.onErrorResume(e -> Mono.empty()).then(Mono.just(true)));
+			return Flux.merge(ticks, work.then(Mono.fromSupplier(() -> progress(copied.get(), size, startNanos, true))));
+		});
+	}
+
+	private Mode resolveMode(Path source, Path target) {
+		if (mode != Mode.AUTO) {
+			return mode;
+		}
+		boolean local = source.getFileSystem() == FileSystems.getDefault()
+				&& target.getFileSystem() == FileSystems.getDefault();
+		return local ? Mode.TRANSFER : Mode.ASYNC;
+	}
+
+	private Mono<Void> transferCopy(Path source, Path target, long size, AtomicLong copied) {
+		return Mono.using(() -> {
+			// Create/truncate once up front; every range then opens its own positioned channel.
+			FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING).close();
+			return FileChannel.open(source, StandardOpenOption.READ);
+		}, in -> ranges(size).flatMap(range -> Mono.fromCallable(() -> {
+			try (FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE)) {
+				out.position(range[0]);
+				long position = range[0];
+				while (position < range[1]) {
+					long transferred = in.transferTo(position, Math.min(range[1] - position, chunkSize), out);
+					if (transferred <= 0) {
+						throw new EOFException("source ended at " + position + " of " + size + " bytes");
+					}
+					position += transferred;
+					copied.addAndGet(transferred);
+				}
+			}
+			return range;
+		}).subscribeOn(blockingScheduler), parallelism).then(), FileCopyEngine::closeQuietly);
+	}
+
+	private Mono<Void> asyncCopy(Path source, Path target, long size, AtomicLong copied) {
+		int readAhead = FileUtils.DEFAULT_READ_AHEAD;
+		ByteBufferPool pool = new ByteBufferPool(chunkSize, parallelism * readAhead);
+		return Mono.using(() -> AsynchronousFileChannel.open(source, StandardOpenOption.READ),
+				in -> Mono.using(() -> AsynchronousFileChannel.open(target, StandardOpenOption.CREATE,
+						StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), out -> {
+							AsyncFileWriter writer = new AsyncFileWriter(out);
+							return ranges(size).flatMap(range -> FileUtils
+									.readFileAsFlux(in, pool, readAhead, range[0], range[1])
+									.flatMap(chunk -> {
+										int length = chunk.size();
+										return writer.writeAt(chunk.buffer(), chunk.position())
+												.doFinally(signal -> chunk.release())
+												.doOnSuccess(done -> copied.addAndGet(length));
+									}, readAhead)
+									.doOnDiscard(FileChunk.class, FileChunk::release), parallelism)
+								.then(writer.flush());
+						}, FileCopyEngine::closeQuietly),
+				FileCopyEngine::closeQuietly);
+	}
+
+	private static Mono<Void> checkComplete(long copied, long size) {
+		return copied < size ? Mono.error(new EOFException("source ended after " + copied + " of " + size + " bytes"))
+				: Mono.empty();
+	}
+
+	/** Split {@code [0, size)} into at most {@code parallelism} chunk-aligned ranges. */
+	private Flux<long[]> ranges(long size) {
+		int count = (int) Math.max(1, Math.min(parallelism, size / MIN_RANGE_SIZE));
+		long rangeSize = (size + count - 1) / count;
+		rangeSize = ((rangeSize + chunkSize - 1) / chunkSize) * chunkSize;
+		long step = Math.max(rangeSize, 1);
+		return Flux.range(0, count).map(i -> new long[] { i * step, Math.min(size, (i + 1) * step) })
+				.filter(range -> range[0] < range[1]);
+	}
+
+	private static CopyProgress progress(long copied, long total, long startNanos, boolean done) {
+		double seconds = Math.max(System.nanoTime() - startNanos, 1) / 1_000_000_000.0;
+		return new CopyProgress(copied, total, copied / seconds / (1024 * 1024), done);
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		try {
+			closeable.close();
+		} catch (IOException e) {
+			// nothing useful to do, the copy result has already been decided
+		}
+	}
+}
@@ -3,79 +3,78 @@ package com.reactiveprogramming.reactive_api.utils;
 import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousFileChannel;
 import java.nio.channels.CompletionHandler;
-import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Publisher;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public class FileUtils {
 
+	/** Reads kept in flight when the caller does not choose. */
+	public static final int DEFAULT_READ_AHEAD = 4;
+
 	/**
-	 * Read the file in chunks using AsynchronousFileChannel, emitting a Flux of
-	 * ByteBuffers. We keep reading until we reach the end of the file (indicated by
-	 * read result == -1).
+	 * Read the whole file in chunks of {@code chunkSize}, using a private buffer
+	 * pool sized for the default read-ahead.
 	 */
-	public static Flux<ByteBuffer> readFileAsFlux(AsynchronousFileChannel channel, int chunkSize) {
-		return Flux.create(sink -> {
-			// We'll track the current file position in an AtomicLong
-			AtomicLong position = new AtomicLong(0);
-
-			// A recursive method to schedule each next read
-			class ReadHandler implements CompletionHandler<Integer, ByteBuffer> {
-				@Override
-				public void completed(Integer bytesRead, ByteBuffer buffer) {
-					if (bytesRead == -1) {
-						// End of file
-						sink.complete();
-						return;
-					}
-
-					// Prepare buffer to be emitted
-					buffer.flip();
-					sink.next(buffer);
-
-					// Schedule next chunk read
-					long newPos = position.addAndGet(bytesRead);
-					ByteBuffer nextBuffer = ByteBuffer.allocate(chunkSize);
-					channel.read(nextBuffer, newPos, nextBuffer, this);
-				}
-
-				@Override
-				public void failed(Throwable exc, ByteBuffer attachment) {
-					sink.error(exc);
-				}
-			}
+	public static Flux<FileChunk> readFileAsFlux(AsynchronousFileChannel channel, int chunkSize) {
+		return readFileAsFlux(channel, new ByteBufferPool(chunkSize, DEFAULT_READ_AHEAD * 2), DEFAULT_READ_AHEAD);
+	}
 
-			// Start the first read
-			ByteBuffer firstBuffer = ByteBuffer.allocate(chunkSize);
-			channel.read(firstBuffer, position.get(), firstBuffer, new ReadHandler());
-		});
+	public static Flux<FileChunk> readFileAsFlux(AsynchronousFileChannel channel, ByteBufferPool pool,
+			int readAhead) {
+		return readFileAsFlux(channel, pool, readAhead, 0, Long.MAX_VALUE);
 	}
 
 	/**
-	 * Write a ByteBuffer to the given AsynchronousFileChannel at the current
-	 * position, returning a Mono<Void> that completes when the write finishes.
+	 * Read the bytes in {@code [start, end)} of the file as a Flux of pooled
+	 * chunks. A read is only issued against outstanding subscriber demand, and at
+	 * most {@code readAhead} reads are in flight at once, so a slow consumer holds
+	 * at most {@code readAhead} buffers no matter how large the file is. Pass
+	 * {@code Long.MAX_VALUE} as {@code end} to read up to the current file size.
+	 * <p>
+	 * Every emitted {@link FileChunk} must be released by the consumer. The reader
+	 * itself never drops one, but operators the caller adds ({@code filter},
+	 * {@code take}, the queues of {@code flatMap}) can: add
+	 * {@code doOnDiscard(FileChunk.class, FileChunk::release)} after them so those
+	 * chunks go back to the pool too.
 	 */
-	private static final AtomicLong writePosition = new AtomicLong(0);
-
-	public static Mono<Void> writeFileAsync(AsynchronousFileChannel channel, ByteBuffer buffer) {
-		return Mono.create(sink -> {
-			// Current position to write
-			long pos = writePosition.getAndAdd(buffer.remaining());
+	public static Flux<FileChunk> readFileAsFlux(AsynchronousFileChannel channel, ByteBufferPool pool,
+			int readAhead, long start, long end) {
+		if (readAhead < 1) {
+			throw new IllegalArgumentException("readAhead must be >= 1");
+		}
+		Publisher<FileChunk> reader = subscriber -> new AsyncFileReader(subscriber, channel, pool, readAhead, start,
+				end).start();
+		return Flux.from(reader);
+	}
 
-			channel.write(buffer, pos, null, new CompletionHandler<Integer, Void>() {
-				@Override
-				public void completed(Integer result, Void attachment) {
-					// Signal success
-					sink.success();
+	/**
+	 * Write the remaining bytes of a ByteBuffer to the given AsynchronousFileChannel
+	 * at {@code position}, returning a Mono<Void> that completes once all of them
+	 * have been written. Offsets are the caller's business; use
+	 * {@link AsyncFileWriter} to append to a file with many writes in flight.
+	 */
+	public static Mono<Void> writeFileAsync(AsynchronousFileChannel channel, ByteBuffer buffer, long position) {
+		return Mono.create(sink -> channel.write(buffer, position, position, new CompletionHandler<Integer, Long>() {
+			@Override
+			public void completed(Integer written, Long writtenAt) {
+				if (buffer.hasRemaining()) {
+					// Partial write: continue right after what already landed
+					long next = writtenAt + written;
+					channel.write(buffer, next, next, this);
+					return;
 				}
+				// Signal success
+				sink.success();
+			}
 
-				@Override
-				public void failed(Throwable exc, Void attachment) {
-					sink.error(exc);
-				}
-			});
-		});
+			@Override
+			public void failed(Throwable exc, Long writtenAt) {
+				sink.error(exc);
+			}
+		}));
 	}
 
 }
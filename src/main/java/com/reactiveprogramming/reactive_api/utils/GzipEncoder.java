@@ -0,0 +1,257 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Gzips a stream of {@link DataBuffer}s chunk by chunk, so a large body is
+ * compressed as it is read and never held whole.
+ * <p>
+ * {@link Deflater}s own native zlib state that is costly to set up and is only
+ * freed by {@link Deflater#end()}, so they are pooled: each encoding borrows one
+ * with its output buffer and returns it reset. Input chunks are deflated
+ * straight from their (possibly direct) byte buffers and released; output is
+ * emitted in buffers of {@code outputBufferSize} from the response's factory.
+ * <p>
+ * The stats count bytes in and out and the CPU time spent deflating, for
+ * "bytes saved" and "CPU per MB" metrics.
+ */
+public class GzipEncoder {
+
+	/** Totals since startup. */
+	public record Stats(long bytesIn, long bytesOut, long cpuNanos, long encodings, int deflatersCreated,
+			int deflatersIdle) {
+
+		public double cpuMillisPerMegabyte() {
+			return bytesIn == 0 ? 0 : cpuNanos / 1e6 / (bytesIn / 1048576.0);
+		}
+	}
+
+	private static final byte[] HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+	private final int level;
+
+	private final int outputBufferSize;
+
+	private final int maxPooled;
+
+	private final Queue<PooledDeflater> idle = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger idleCount = new AtomicInteger();
+
+	private final AtomicInteger created = new AtomicInteger();
+
+	private final LongAdder bytesIn = new LongAdder();
+
+	private final LongAdder bytesOut = new LongAdder();
+
+	private final LongAdder cpuNanos = new LongAdder();
+
+	private final LongAdder encodings = new LongAdder();
+
+	public GzipEncoder(int level, int outputBufferSize, int maxPooled) {
+		this.level = level;
+		this.outputBufferSize = outputBufferSize;
+		this.maxPooled = maxPooled;
+	}
+
+	/**
+	 * Gzip {@code source}. Every input buffer is released once deflated; output
+	 * buffers come from {@code bufferFactory} and belong to the subscriber.
+	 */
+	public Flux<DataBuffer> encode(Publisher<? extends DataBuffer> source, DataBufferFactory bufferFactory) {
+		return Flux.defer(() -> {
+			Encoding encoding = new Encoding(bufferFactory);
+			return Flux.from(source)
+					.concatMapIterable(encoding::deflate)
+					.concatWith(Flux.defer(() -> Flux.fromIterable(encoding.finish())))
+					.doFinally(signal -> encoding.close());
+		}).doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+	}
+
+	/**
+	 * Gzip {@code source} into {@code target} at {@code level}, blocking. Meant for
+	 * background work such as precompressing files, so it does not touch the pool.
+	 */
+	public static void compressFile(Path source, Path target, int level) throws IOException {
+		try (OutputStream out = Files.newOutputStream(target);
+				GZIPOutputStream gzip = new GZIPOutputStream(out, 65536) {
+					{
+						def.setLevel(level);
+					}
+				}) {
+			Files.copy(source, gzip);
+		}
+	}
+
+	public Stats stats() {
+		return new Stats(bytesIn.sum(), bytesOut.sum(), cpuNanos.sum(), encodings.sum(), created.get(),
+				idleCount.get());
+	}
+
+	private PooledDeflater acquire() {
+		PooledDeflater deflater = idle.poll();
+		if (deflater != null) {
+			idleCount.decrementAndGet();
+			return deflater;
+		}
+		created.incrementAndGet();
+		// nowrap: raw deflate, the gzip header and trailer are written here
+		return new PooledDeflater(new Deflater(level, true), new byte[outputBufferSize]);
+	}
+
+	private void release(PooledDeflater deflater) {
+		deflater.deflater.reset();
+		if (idleCount.incrementAndGet() <= maxPooled) {
+			idle.offer(deflater);
+		} else {
+			idleCount.decrementAndGet();
+			deflater.deflater.end();
+		}
+	}
+
+	private static long cpuTime() {
+		return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+	}
+
+	private record PooledDeflater(Deflater deflater, byte[] output) {
+	}
+
+	/**
+	 * One response. Synchronized because a cancel may return the deflater from
+	 * another thread while a chunk is being deflated.
+	 */
+	private final class Encoding {
+
+		private final DataBufferFactory bufferFactory;
+
+		private final CRC32 crc = new CRC32();
+
+		private PooledDeflater pooled;
+
+		private int filled;
+
+		private long inputBytes;
+
+		private long outputBytes;
+
+		private boolean closed;
+
+		Encoding(DataBufferFactory bufferFactory) {
+			this.bufferFactory = bufferFactory;
+		}
+
+		synchronized List<DataBuffer> deflate(DataBuffer input) {
+			try {
+				if (closed) {
+					return List.of();
+				}
+				long start = cpuTime();
+				List<DataBuffer> out = new ArrayList<>(2);
+				start(out);
+				try (DataBuffer.ByteBufferIterator buffers = input.readableByteBuffers()) {
+					while (buffers.hasNext()) {
+						ByteBuffer buffer = buffers.next();
+						inputBytes += buffer.remaining();
+						crc.update(buffer.duplicate());
+						pooled.deflater.setInput(buffer);
+						while (!pooled.deflater.needsInput()) {
+							fill(out);
+						}
+					}
+				}
+				cpuNanos.add(cpuTime() - start);
+				return out;
+			} finally {
+				DataBufferUtils.release(input);
+			}
+		}
+
+		synchronized List<DataBuffer> finish() {
+			if (closed) {
+				return List.of();
+			}
+			long start = cpuTime();
+			List<DataBuffer> out = new ArrayList<>(2);
+			start(out);
+			pooled.deflater.finish();
+			while (!pooled.deflater.finished()) {
+				fill(out);
+			}
+			byte[] trailer = new byte[8];
+			writeIntLe(trailer, 0, (int) crc.getValue());
+			writeIntLe(trailer, 4, (int) inputBytes);
+			emit(out);
+			out.add(bufferFactory.wrap(trailer));
+			outputBytes += trailer.length;
+			cpuNanos.add(cpuTime() - start);
+			bytesIn.add(inputBytes);
+			bytesOut.add(outputBytes);
+			encodings.increment();
+			return out;
+		}
+
+		synchronized void close() {
+			if (!closed) {
+				closed = true;
+				if (pooled != null) {
+					release(pooled);
+				}
+			}
+		}
+
+		private void start(List<DataBuffer> out) {
+			if (pooled == null) {
+				pooled = acquire();
+				out.add(bufferFactory.wrap(HEADER.clone()));
+				outputBytes += HEADER.length;
+			}
+		}
+
+		// Deflates into the output buffer, emitting it once full
+		private void fill(List<DataBuffer> out) {
+			filled += pooled.deflater.deflate(pooled.output, filled, pooled.output.length - filled);
+			if (filled == pooled.output.length) {
+				emit(out);
+			}
+		}
+
+		private void emit(List<DataBuffer> out) {
+			if (filled > 0) {
+				out.add(bufferFactory.allocateBuffer(filled).write(pooled.output, 0, filled));
+				outputBytes += filled;
+				filled = 0;
+			}
+		}
+	}
+
+	private static void writeIntLe(byte[] bytes, int offset, int value) {
+		bytes[offset] = (byte) value;
+		bytes[offset + 1] = (byte) (value >>> 8);
+		bytes[offset + 2] = (byte) (value >>> 16);
+		bytes[offset + 3] = (byte) (value >>> 24);
+	}
+}
@@ -0,0 +1,174 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import reactor.core.Disposable;
+
+/**
+ * A hashed timer wheel: one thread, a ring of buckets and a fixed tick. Timers are
+ * hashed into the bucket of the tick they expire on (plus a round count for delays
+ * longer than one turn), so scheduling and cancelling are O(1) and tens of
+ * thousands of periodic timers cost one thread and a few objects each, instead of
+ * one scheduled executor entry (or thread) per timer.
+ * <p>
+ * Precision is one tick. Tasks run on the wheel thread and must be short; a task
+ * that throws is counted in {@link #failures()} and, if periodic, keeps running.
+ */
+public class HashedTimerWheel implements AutoCloseable {
+
+	private final long tickNanos;
+
+	private final int mask;
+
+	private final List<Task>[] wheel;
+
+	private final Queue<Task> pending = new ConcurrentLinkedQueue<>();
+
+	private final Thread worker;
+
+	private final LongAdder failures = new LongAdder();
+
+	private final long startNanos;
+
+	private volatile boolean running = true;
+
+	private long tick;
+
+	@SuppressWarnings("unchecked")
+	public HashedTimerWheel(String name, Duration tickDuration, int wheelSize) {
+		int size = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+		this.tickNanos = tickDuration.toNanos();
+		this.mask = size - 1;
+		this.wheel = (List<Task>[]) new List<?>[size];
+		for (int i = 0; i < size; i++) {
+			wheel[i] = new ArrayList<>();
+		}
+		this.startNanos = System.nanoTime();
+		this.worker = new Thread(this::run, name);
+		this.worker.setDaemon(true);
+		this.worker.start();
+	}
+
+	public Disposable schedule(Runnable action, Duration delay) {
+		return add(action, delay.toNanos(), 0);
+	}
+
+	/** Run {@code action} after {@code initialDelay}, then every {@code period} (at a fixed rate). */
+	public Disposable scheduleAtFixedRate(Runnable action, Duration initialDelay, Duration period) {
+		if (period.isZero() || period.isNegative()) {
+			throw new IllegalArgumentException("period must be positive");
+		}
+		return add(action, initialDelay.toNanos(), period.toNanos());
+	}
+
+	public Duration tickDuration() {
+		return Duration.ofNanos(tickNanos);
+	}
+
+	/** Tasks that threw while running. */
+	public long failures() {
+		return failures.sum();
+	}
+
+	@Override
+	public void close() {
+		running = false;
+		LockSupport.unpark(worker);
+	}
+
+	private Task add(Runnable action, long delayNanos, long periodNanos) {
+		Task task = new Task(action, System.nanoTime() - startNanos + Math.max(0, delayNanos), periodNanos);
+		pending.offer(task);
+		return task;
+	}
+
+	private void run() {
+		List<Task> rescheduled = new ArrayList<>();
+		while (running) {
+			long deadline = startNanos + (tick + 1) * tickNanos;
+			long sleep;
+			while (running && (sleep = deadline - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(this, sleep);
+			}
+			if (!running) {
+				return;
+			}
+
+			Task added;
+			while ((added = pending.poll()) != null) {
+				place(added);
+			}
+
+			List<Task> bucket = wheel[(int) (tick & mask)];
+			int kept = 0;
+			for (int i = 0; i < bucket.size(); i++) {
+				Task task = bucket.get(i);
+				if (task.cancelled) {
+					continue;
+				}
+				if (task.remainingRounds > 0) {
+					task.remainingRounds--;
+					bucket.set(kept++, task);
+					continue;
+				}
+				try {
+					task.action.run();
+				} catch (Throwable t) {
+					failures.increment();
+				}
+				if (task.periodNanos > 0 && !task.cancelled) {
+					task.deadline += task.periodNanos;
+					rescheduled.add(task);
+				}
+			}
+			bucket.subList(kept, bucket.size()).clear();
+
+			tick++;
+			for (Task task : rescheduled) {
+				place(task);
+			}
+			rescheduled.clear();
+		}
+	}
+
+	private void place(Task task) {
+		long expiresOnTick = task.deadline / tickNanos;
+		task.remainingRounds = Math.max(0, (expiresOnTick - tick) / wheel.length);
+		wheel[(int) (Math.max(expiresOnTick, tick) & mask)].add(task);
+	}
+
+	private static final class Task implements Disposable {
+
+		final Runnable action;
+
+		final long periodNanos;
+
+		long deadline;
+
+		long remainingRounds;
+
+		volatile boolean cancelled;
+
+		Task(Runnable action, long deadline, long periodNanos) {
+			this.action = action;
+			this.deadline = deadline;
+			this.periodNanos = periodNanos;
+		}
+
+		@Override
+		public void dispose() {
+			cancelled = true;
+		}
+
+		@Override
+		public boolean isDisposed() {
+			return cancelled;
+		}
+	}
+}
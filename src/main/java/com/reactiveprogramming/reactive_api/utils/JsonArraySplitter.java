@@ -0,0 +1,140 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Splits a streamed top-level JSON array into the raw JSON text of its
+ * elements. Each element is emitted as soon as its last byte arrives, so
+ * memory is bounded by the largest element ({@code maxElementSize}, beyond
+ * which the Flux fails with a {@link DataBufferLimitException}) rather than
+ * by the array. Nothing is parsed into objects. The splitter only tracks nesting
+ * depth and string/escape state per byte, and drops whitespace outside of
+ * strings. Each element therefore comes out as compact single-line JSON, ready
+ * to pass through as NDJSON or to bind with {@code ObjectMapper}.
+ * <p>
+ * Structural characters are all ASCII and UTF-8 continuation bytes never are,
+ * so splitting bytes is safe for any UTF-8 content.
+ */
+public final class JsonArraySplitter {
+
+	private JsonArraySplitter() {
+	}
+
+	/** The elements of the JSON array in {@code body}; every buffer is released. */
+	public static Flux<String> split(Flux<DataBuffer> body, int maxElementSize) {
+		return Flux.defer(() -> {
+			Splitter splitter = new Splitter(maxElementSize);
+			return body.concatMapIterable(buffer -> {
+				try {
+					return splitter.feed(buffer);
+				} finally {
+					DataBufferUtils.release(buffer);
+				}
+			}).concatWith(Mono.fromRunnable(splitter::finish));
+		}).doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+	}
+
+	private static final class Splitter {
+
+		private final int maxElementSize;
+
+		private byte[] element = new byte[256];
+
+		private int length;
+
+		private int depth;
+
+		private boolean inString;
+
+		private boolean escaped;
+
+		private boolean started;
+
+		private boolean ended;
+
+		Splitter(int maxElementSize) {
+			this.maxElementSize = maxElementSize;
+		}
+
+		List<String> feed(DataBuffer buffer) {
+			List<String> elements = new ArrayList<>();
+			for (int i = buffer.readPosition(); i < buffer.writePosition(); i++) {
+				byte b = buffer.getByte(i);
+				if (inString) {
+					append(b);
+					if (escaped) {
+						escaped = false;
+					} else if (b == '\\') {
+						escaped = true;
+					} else if (b == '"') {
+						inString = false;
+						if (depth == 0) {
+							emit(elements); // a string element
+						}
+					}
+				} else if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+					if (depth == 0 && length > 0) {
+						emit(elements); // whitespace ends a number or literal element
+					}
+				} else if (!started) {
+					if (b != '[') {
+						throw new DecodingException("Expected a JSON array but found '" + (char) b + "'");
+					}
+					started = true;
+				} else if (ended) {
+					throw new DecodingException("Unexpected '" + (char) b + "' after the end of the JSON array");
+				} else if (depth == 0 && (b == ',' || b == ']')) {
+					if (length > 0) {
+						emit(elements);
+					}
+					ended = b == ']';
+				} else {
+					append(b);
+					if (b == '{' || b == '[') {
+						depth++;
+					} else if (b == '}' || b == ']') {
+						if (--depth == 0) {
+							emit(elements);
+						}
+					} else if (b == '"') {
+						inString = true;
+					}
+				}
+			}
+			return elements;
+		}
+
+		void finish() {
+			if (!ended) {
+				throw new DecodingException("JSON array ended prematurely");
+			}
+		}
+
+		private void append(byte b) {
+			if (length >= maxElementSize) {
+				throw new DataBufferLimitException(
+						"JSON array element exceeds the limit of " + maxElementSize + " bytes");
+			}
+			if (length == element.length) {
+				element = Arrays.copyOf(element, Math.min(length * 2, maxElementSize));
+			}
+			element[length++] = b;
+		}
+
+		private void emit(List<String> elements) {
+			elements.add(new String(element, 0, length, StandardCharsets.UTF_8));
+			length = 0;
+		}
+	}
+}
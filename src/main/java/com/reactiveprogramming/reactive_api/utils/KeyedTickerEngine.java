@@ -0,0 +1,257 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Moving averages for many symbols at once. Where {@link RealTimeStockTicker}
+ * runs one pipeline (and one buffer timer per window) for a single price
+ * stream, this engine keeps 1-minute, 5-minute and 1-hour {@link SlidingWindow}s
+ * per symbol in primitive state and drives every symbol's emissions from one
+ * shared {@link HashedTimerWheel}.
+ * <p>
+ * {@link #onPrice} is the hot path: a map lookup, a per-symbol lock and three
+ * O(1) window updates, with no allocation. Updates are only built for symbols
+ * that somebody is subscribed to.
+ * <p>
+ * Symbols come from clients, so their state is bounded: at most
+ * {@code maxSymbols} are tracked at once, and a symbol with no subscribers that
+ * has not had a price for {@code idleTimeout} (by default the longest window,
+ * after which its averages are empty anyway) is dropped along with its timer.
+ * Prices are windowed by their own timestamp, so one that is more than a slide
+ * away from the current time is rejected; a missing (zero) timestamp means now.
+ */
+public class KeyedTickerEngine implements AutoCloseable {
+
+	public record PriceTick(String symbol, double price, long timestamp) {
+	}
+
+	public record TickerUpdate(String symbol, double lastPrice, long timestamp, double movingAverage1m,
+			double movingAverage5m, double movingAverage1h) {
+	}
+
+	private static final long[] WINDOWS_MILLIS = { Duration.ofMinutes(1).toMillis(), Duration.ofMinutes(5).toMillis(),
+			Duration.ofHours(1).toMillis() };
+
+	/** The default idle timeout: by then every window of an idle symbol is empty. */
+	public static final Duration LONGEST_WINDOW = Duration.ofMillis(WINDOWS_MILLIS[WINDOWS_MILLIS.length - 1]);
+
+	private final HashedTimerWheel wheel;
+
+	private final Duration slide;
+
+	private final int bucketsPerWindow;
+
+	private final long idleTimeoutMillis;
+
+	private final int maxSymbols;
+
+	private final ConcurrentMap<String, SymbolState> symbols = new ConcurrentHashMap<>();
+
+	private final Disposable evictionTimer;
+
+	private final LongAdder received = new LongAdder();
+
+	private final LongAdder rejected = new LongAdder();
+
+	private final LongAdder evicted = new LongAdder();
+
+	/**
+	 * @param slide            how often each symbol's averages are published
+	 * @param bucketsPerWindow ring size of each window; 60 keeps a symbol's state at a few KB
+	 */
+	public KeyedTickerEngine(HashedTimerWheel wheel, Duration slide, int bucketsPerWindow) {
+		this(wheel, slide, bucketsPerWindow, LONGEST_WINDOW, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param idleTimeout how long a symbol without subscribers is kept after its last price
+	 * @param maxSymbols  symbols tracked at once; prices and subscriptions for new ones are refused beyond it
+	 */
+	public KeyedTickerEngine(HashedTimerWheel wheel, Duration slide, int bucketsPerWindow, Duration idleTimeout,
+			int maxSymbols) {
+		this.wheel = wheel;
+		this.slide = slide;
+		this.bucketsPerWindow = bucketsPerWindow;
+		this.idleTimeoutMillis = idleTimeout.toMillis();
+		this.maxSymbols = maxSymbols;
+		Duration sweep = idleTimeout.compareTo(Duration.ofMinutes(1)) < 0 ? idleTimeout : Duration.ofMinutes(1);
+		this.evictionTimer = wheel.scheduleAtFixedRate(this::evictIdle, sweep, sweep);
+	}
+
+	/** False if the price was refused: its timestamp is too far from now, or there are too many symbols. */
+	public boolean onPrice(PriceTick tick) {
+		return onPrice(tick.symbol(), tick.price(), tick.timestamp());
+	}
+
+	/** @see #onPrice(PriceTick) */
+	public boolean onPrice(String symbol, double price, long timestampMillis) {
+		long now = System.currentTimeMillis();
+		long timestamp = timestampMillis == 0 ? now : timestampMillis;
+		if (Math.abs(timestamp - now) > slide.toMillis()) {
+			rejected.increment();
+			return false;
+		}
+		for (;;) {
+			SymbolState state = state(symbol);
+			if (state == null) {
+				rejected.increment();
+				return false;
+			}
+			synchronized (state) {
+				if (state.evicted) {
+					continue; // lost a race with eviction; the next state() creates a fresh one
+				}
+				for (SlidingWindow window : state.windows) {
+					window.add(price, timestamp);
+				}
+				state.lastPrice = price;
+				state.lastTimestamp = timestamp;
+				state.lastActive = now;
+			}
+			received.increment();
+			return true;
+		}
+	}
+
+	/**
+	 * Live updates for the given symbols, one per symbol per slide while it has
+	 * data. Fails with {@link IllegalStateException} if a symbol would exceed
+	 * {@code maxSymbols}.
+	 */
+	public Flux<TickerUpdate> updates(Collection<String> wanted) {
+		return Flux.fromIterable(wanted).flatMap(this::updates, Math.max(1, wanted.size()));
+	}
+
+	public int symbolCount() {
+		return symbols.size();
+	}
+
+	public long pricesReceived() {
+		return received.sum();
+	}
+
+	public long pricesRejected() {
+		return rejected.sum();
+	}
+
+	public long symbolsEvicted() {
+		return evicted.sum();
+	}
+
+	@Override
+	public void close() {
+		evictionTimer.dispose();
+		symbols.values().forEach(state -> {
+			state.timer.dispose();
+			state.sink.tryEmitComplete();
+		});
+	}
+
+	// Holds the symbol for as long as the subscription lasts, so it cannot be evicted underneath it
+	private Flux<TickerUpdate> updates(String symbol) {
+		return Flux.defer(() -> {
+			for (;;) {
+				SymbolState state = state(symbol);
+				if (state == null) {
+					return Flux.error(new IllegalStateException("Too many ticker symbols, not tracking " + symbol));
+				}
+				synchronized (state) {
+					if (state.evicted) {
+						continue;
+					}
+					state.holders++;
+				}
+				return state.sink.asFlux().doFinally(signal -> state.release());
+			}
+		});
+	}
+
+	// Null when the symbol is new and there are already maxSymbols
+	private SymbolState state(String symbol) {
+		SymbolState state = symbols.get(symbol);
+		if (state != null) {
+			return state;
+		}
+		if (symbols.size() >= maxSymbols) {
+			return null;
+		}
+		return symbols.computeIfAbsent(symbol, SymbolState::new);
+	}
+
+	// Runs on the wheel thread
+	private void evictIdle() {
+		long now = System.currentTimeMillis();
+		for (SymbolState state : symbols.values()) {
+			synchronized (state) {
+				if (state.holders > 0 || now - state.lastActive < idleTimeoutMillis) {
+					continue;
+				}
+				state.evicted = true;
+			}
+			symbols.remove(state.symbol, state);
+			state.timer.dispose();
+			evicted.increment();
+		}
+	}
+
+	private final class SymbolState {
+
+		final String symbol;
+
+		final SlidingWindow[] windows = new SlidingWindow[WINDOWS_MILLIS.length];
+
+		final Sinks.Many<TickerUpdate> sink = Sinks.many().multicast().directBestEffort();
+
+		final Disposable timer;
+
+		// Guarded by this, like the windows
+		double lastPrice = Double.NaN;
+
+		long lastTimestamp;
+
+		// Last price or unsubscription, for eviction
+		long lastActive = System.currentTimeMillis();
+
+		int holders;
+
+		boolean evicted;
+
+		SymbolState(String symbol) {
+			this.symbol = symbol;
+			for (int i = 0; i < windows.length; i++) {
+				windows[i] = new SlidingWindow(WINDOWS_MILLIS[i], slide.toMillis(), bucketsPerWindow);
+			}
+			this.timer = wheel.scheduleAtFixedRate(this::publish, slide, slide);
+		}
+
+		// Runs on the wheel thread, so emissions for one symbol never overlap.
+		void publish() {
+			if (sink.currentSubscriberCount() == 0) {
+				return;
+			}
+			long now = System.currentTimeMillis();
+			TickerUpdate update;
+			synchronized (this) {
+				if (Double.isNaN(lastPrice)) {
+					return;
+				}
+				update = new TickerUpdate(symbol, lastPrice, lastTimestamp, windows[0].mean(now),
+						windows[1].mean(now), windows[2].mean(now));
+			}
+			sink.tryEmitNext(update);
+		}
+
+		synchronized void release() {
+			holders--;
+			lastActive = System.currentTimeMillis();
+		}
+	}
+}
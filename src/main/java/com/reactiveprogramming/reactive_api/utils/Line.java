@@ -0,0 +1,102 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * One line from {@link LineDecoder}, without its terminator. {@link #bytes()}
+ * is a read-only view straight into the pooled chunk the line was read into,
+ * unless the line spanned chunks and had to be stitched together. The chunk goes
+ * back to its pool once every line viewing it has been released, so consumers
+ * must call {@link #release()} (or {@link #releaseAsString()}) exactly as they
+ * would for a {@link FileChunk}. Releasing more than once is harmless.
+ */
+public final class Line {
+
+	/**
+	 * Reference count shared by the lines viewing one chunk. The decoder holds the
+	 * only reference while splitting, then transfers it to the lines it created.
+	 */
+	static final class ChunkRef {
+
+		private final FileChunk chunk;
+
+		private final AtomicInteger refs = new AtomicInteger(1);
+
+		ChunkRef(FileChunk chunk) {
+			this.chunk = chunk;
+		}
+
+		void transfer(int lines) {
+			if (refs.addAndGet(lines - 1) == 0) {
+				chunk.release();
+			}
+		}
+
+		void release() {
+			if (refs.decrementAndGet() == 0) {
+				chunk.release();
+			}
+		}
+	}
+
+	private final long position;
+
+	private final ByteBuffer bytes;
+
+	private final ChunkRef chunk;
+
+	private static final AtomicIntegerFieldUpdater<Line> RELEASED = AtomicIntegerFieldUpdater.newUpdater(Line.class,
+			"released");
+
+	private volatile int released;
+
+	Line(long position, ByteBuffer bytes, ChunkRef chunk) {
+		this.position = position;
+		this.bytes = bytes;
+		this.chunk = chunk;
+	}
+
+	/** File offset of the line's first byte. */
+	public long position() {
+		return position;
+	}
+
+	/** The line's UTF-8 bytes; valid until the line is released. */
+	public ByteBuffer bytes() {
+		return bytes.duplicate();
+	}
+
+	public int length() {
+		return bytes.remaining();
+	}
+
+	public String asString() {
+		// Bulk copy plus the String constructor beats a CharsetDecoder, which has to go through a CharBuffer
+		byte[] utf8 = new byte[bytes.remaining()];
+		bytes.get(bytes.position(), utf8);
+		return new String(utf8, StandardCharsets.UTF_8);
+	}
+
+	/** Decode the line, then release it; for consumers that want a String anyway. */
+	public String releaseAsString() {
+		try {
+			return asString();
+		} finally {
+			release();
+		}
+	}
+
+	public void release() {
+		if (chunk != null && RELEASED.compareAndSet(this, 0, 1)) {
+			chunk.release();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Line[position=" + position + ", length=" + length() + "]";
+	}
+}
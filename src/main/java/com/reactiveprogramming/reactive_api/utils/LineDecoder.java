@@ -0,0 +1,228 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.core.io.buffer.DataBufferLimitException;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.ParallelFlux;
+
+/**
+ * Turns the chunks of {@link FileUtils#readFileAsFlux} into {@link Line}s
+ * without blocking and, for lines that fit in one chunk, without copying: each
+ * line is a view into the pooled chunk buffer. Only a line that spans chunks is
+ * stitched together on the heap.
+ * <p>
+ * Lines are split on {@code '\n'} (a trailing {@code '\r'} is dropped) at the
+ * byte level. {@code '\n'} never occurs inside a multi-byte UTF-8 sequence, so a
+ * character cut in half by a chunk boundary simply stays inside the stitched
+ * line and is decoded whole. A line longer than {@code maxLineLength} bytes
+ * fails the Flux with a {@link DataBufferLimitException}, like Spring's codecs
+ * do, instead of buffering without bound.
+ */
+public final class LineDecoder {
+
+	public static final int DEFAULT_MAX_LINE_LENGTH = 1024 * 1024;
+
+	private LineDecoder() {
+	}
+
+	/** Split {@code chunks} into lines; chunks are released once their lines are. */
+	public static Flux<Line> decode(Flux<FileChunk> chunks, int maxLineLength) {
+		return decode(chunks, maxLineLength, false);
+	}
+
+	/** All lines of {@code path}, read asynchronously in chunks of {@code chunkSize}. */
+	public static Flux<Line> lines(Path path, int chunkSize, int maxLineLength) {
+		return Flux.using(() -> AsynchronousFileChannel.open(path, StandardOpenOption.READ),
+				channel -> decode(FileUtils.readFileAsFlux(channel, chunkSize), maxLineLength),
+				LineDecoder::closeQuietly);
+	}
+
+	/**
+	 * The lines of a newline-delimited file, split into {@code partitions} byte
+	 * ranges that are read and decoded concurrently, one rail each. Every line is
+	 * emitted exactly once, by the partition its first byte falls in: a partition
+	 * skips the tail of the line it starts in and reads past its end to finish its
+	 * last line. Order holds within a rail only. Lines arrive on the I/O
+	 * completion threads; use {@link ParallelFlux#runOn} for heavy per-line work.
+	 * Lines queued downstream of the rails (e.g. by {@code sequential()}) are only
+	 * released on cancel if the caller adds {@code doOnDiscard(Line.class, Line::release)}.
+	 */
+	public static ParallelFlux<Line> partitioned(Path path, int partitions, int chunkSize, int maxLineLength) {
+		int readAhead = FileUtils.DEFAULT_READ_AHEAD;
+		ByteBufferPool pool = new ByteBufferPool(chunkSize, partitions * readAhead * 2);
+		return Mono.fromCallable(() -> Files.size(path))
+				.flatMapMany(size -> Flux.range(0, partitions)
+						.map(i -> new long[] { size * i / partitions, size * (i + 1) / partitions })
+						.filter(range -> range[0] < range[1]))
+				.parallel(partitions)
+				.flatMap(range -> partition(path, pool, readAhead, range[0], range[1], maxLineLength));
+	}
+
+	private static Flux<Line> partition(Path path, ByteBufferPool pool, int readAhead, long start, long end,
+			int maxLineLength) {
+		// Starting one byte early means a partition that begins exactly on a line skips just the previous '\n'.
+		long readFrom = start == 0 ? 0 : start - 1;
+		return Flux.using(() -> AsynchronousFileChannel.open(path, StandardOpenOption.READ),
+				channel -> decode(FileUtils.readFileAsFlux(channel, pool, readAhead, readFrom, Long.MAX_VALUE),
+						maxLineLength, start != 0).<Line>handle((line, sink) -> {
+							if (line.position() < end) {
+								sink.next(line);
+							} else {
+								// First line of the next partition: stop reading
+								line.release();
+								sink.complete();
+							}
+						}),
+				LineDecoder::closeQuietly);
+	}
+
+	private static Flux<Line> decode(Flux<FileChunk> chunks, int maxLineLength, boolean skipFirstLine) {
+		return Flux.defer(() -> {
+			Splitter splitter = new Splitter(maxLineLength, skipFirstLine);
+			// A chunk holds many lines, so a small prefetch still keeps the reader's read-ahead busy
+			return chunks.concatMapIterable(splitter::split, FileUtils.DEFAULT_READ_AHEAD)
+					.concatWith(Mono.fromSupplier(splitter::finish));
+		}).doOnDiscard(Line.class, Line::release).doOnDiscard(FileChunk.class, FileChunk::release);
+	}
+
+	/** Per-subscription splitting state; only ever called serially by concatMapIterable. */
+	private static final class Splitter {
+
+		private static final long NEWLINES = 0x0A0A0A0A0A0A0A0AL;
+
+		private final int maxLineLength;
+
+		private boolean skipping;
+
+		// The start of a line that continues in the next chunk, or null
+		private ByteBuffer carry;
+
+		private long carryPosition;
+
+		Splitter(int maxLineLength, boolean skipFirstLine) {
+			this.maxLineLength = maxLineLength;
+			this.skipping = skipFirstLine;
+		}
+
+		List<Line> split(FileChunk chunk) {
+			ByteBuffer buffer = chunk.buffer();
+			int start = buffer.position();
+			int limit = buffer.limit();
+			// One read-only view per chunk; each line is then a single slice of it
+			ByteBuffer view = buffer.asReadOnlyBuffer();
+			Line.ChunkRef ref = new Line.ChunkRef(chunk);
+			List<Line> lines = new ArrayList<>();
+			int views = 0;
+			try {
+				int lineStart = start;
+				ByteBuffer scan = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+				for (int i = nextNewline(scan, start, limit); i >= 0; i = nextNewline(scan, i + 1, limit)) {
+					if (skipping) {
+						skipping = false;
+					} else if (carry != null) {
+						append(buffer, lineStart, i);
+						lines.add(takeCarry());
+					} else {
+						int end = i > lineStart && buffer.get(i - 1) == '\r' ? i - 1 : i;
+						checkLength(end - lineStart);
+						lines.add(new Line(chunk.position() + (lineStart - start), view.slice(lineStart, end - lineStart),
+								ref));
+						views++;
+					}
+					lineStart = i + 1;
+				}
+				if (lineStart < limit && !skipping) {
+					if (carry == null) {
+						carryPosition = chunk.position() + (lineStart - start);
+					}
+					append(buffer, lineStart, limit);
+				}
+			} catch (RuntimeException e) {
+				// The lines split so far are dropped with the error and never took a reference
+				ref.transfer(0);
+				throw e;
+			}
+			// Hand the chunk over to the lines viewing it (if any), all at once rather than one count per line
+			ref.transfer(views);
+			return lines;
+		}
+
+		/**
+		 * Index of the next '\n' in {@code [from, limit)}, or -1. Looks at eight bytes
+		 * per step: XOR turns newline bytes into zero bytes, and the classic
+		 * has-zero-byte trick flags them, the lowest flag being the first newline.
+		 */
+		private static int nextNewline(ByteBuffer scan, int from, int limit) {
+			int i = from;
+			for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+				long word = scan.getLong(i) ^ NEWLINES;
+				long found = (word - 0x0101010101010101L) & ~word & 0x8080808080808080L;
+				if (found != 0) {
+					return i + (Long.numberOfTrailingZeros(found) >>> 3);
+				}
+			}
+			for (; i < limit; i++) {
+				if (scan.get(i) == '\n') {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		/** The last line, if the file does not end with a newline. */
+		Line finish() {
+			return carry == null ? null : takeCarry();
+		}
+
+		private void append(ByteBuffer buffer, int from, int to) {
+			int size = carry == null ? 0 : carry.position();
+			// Allow one extra byte for a '\r' that gets dropped once the '\n' turns up
+			checkLength(size + (to - from) - 1);
+			if (carry == null || carry.remaining() < to - from) {
+				ByteBuffer grown = ByteBuffer
+						.allocate(Math.max(size + (to - from), Math.min(size * 2, maxLineLength + 1)));
+				if (carry != null) {
+					grown.put(carry.flip());
+				}
+				carry = grown;
+			}
+			carry.put(buffer.duplicate().limit(to).position(from));
+		}
+
+		private Line takeCarry() {
+			ByteBuffer bytes = carry.flip();
+			if (bytes.hasRemaining() && bytes.get(bytes.limit() - 1) == '\r') {
+				bytes.limit(bytes.limit() - 1);
+			}
+			checkLength(bytes.remaining());
+			carry = null;
+			return new Line(carryPosition, bytes.asReadOnlyBuffer(), null);
+		}
+
+		private void checkLength(int length) {
+			if (length > maxLineLength) {
+				throw new DataBufferLimitException("Line exceeds the limit of " + maxLineLength + " bytes");
+			}
+		}
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		try {
+			closeable.close();
+		} catch (IOException e) {
+			// the lines have already been read
+		}
+	}
+}
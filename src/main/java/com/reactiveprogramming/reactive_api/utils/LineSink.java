@@ -0,0 +1,259 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Publisher;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Appends lines to one file that stays open for the lifetime of the sink.
+ * <p>
+ * Lines are batched by count and time ({@code bufferTimeout}) and every batch is
+ * written as one sequential append. Batches from one {@link #write} call land in
+ * the order they were produced; batches from concurrent calls never interleave
+ * inside a batch. With {@code sequenced} set every line is prefixed with a
+ * sink-wide sequence number and a tab, so the global order can be recovered.
+ * <p>
+ * With a positive {@code forceInterval} the sink group-commits: a batch's write
+ * completes only after a force that started once the batch had landed. Forces
+ * start at most once per interval, so every batch that lands in between shares
+ * the next one, and a write waits up to {@code forceInterval} for it.
+ */
+public class LineSink implements Closeable {
+
+	private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+	// Null when the sink was given an open channel
+	private final Path path;
+
+	private final int maxBatchLines;
+
+	private final Duration maxBatchDelay;
+
+	private final Duration forceInterval;
+
+	private final boolean sequenced;
+
+	private final Scheduler blockingScheduler;
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	// Set under the lock on the first write when the sink was opened by path
+	private volatile AsynchronousFileChannel channel;
+
+	private volatile AsyncFileWriter writer;
+
+	// Guarded by this: whether close() has run, when the last force started, the force in progress, and the one
+	// scheduled after it, which every batch landing before it starts waits for
+	private boolean closed;
+
+	private long lastForceNanos;
+
+	private Force runningForce;
+
+	private Force nextForce;
+
+	public LineSink(AsynchronousFileChannel channel, int maxBatchLines, Duration maxBatchDelay,
+			Duration forceInterval, boolean sequenced) throws IOException {
+		this(channel, maxBatchLines, maxBatchDelay, forceInterval, sequenced, Schedulers.boundedElastic());
+	}
+
+	/** @param blockingScheduler where the blocking {@code force} calls of group commit run */
+	public LineSink(AsynchronousFileChannel channel, int maxBatchLines, Duration maxBatchDelay,
+			Duration forceInterval, boolean sequenced, Scheduler blockingScheduler) throws IOException {
+		this((Path) null, maxBatchLines, maxBatchDelay, forceInterval, sequenced, blockingScheduler);
+		this.channel = channel;
+		this.writer = newWriter(channel);
+	}
+
+	private LineSink(Path path, int maxBatchLines, Duration maxBatchDelay, Duration forceInterval,
+			boolean sequenced, Scheduler blockingScheduler) {
+		this.path = path;
+		this.maxBatchLines = maxBatchLines;
+		this.maxBatchDelay = maxBatchDelay;
+		this.forceInterval = forceInterval;
+		this.sequenced = sequenced;
+		this.blockingScheduler = blockingScheduler;
+		// The first batch need not wait for a force
+		this.lastForceNanos = System.nanoTime() - forceInterval.toNanos();
+	}
+
+	/** Append to {@code path}, which is opened (or created) on the first write. */
+	public static LineSink open(Path path, int maxBatchLines, Duration maxBatchDelay, Duration forceInterval,
+			boolean sequenced) {
+		return open(path, maxBatchLines, maxBatchDelay, forceInterval, sequenced, Schedulers.boundedElastic());
+	}
+
+	public static LineSink open(Path path, int maxBatchLines, Duration maxBatchDelay, Duration forceInterval,
+			boolean sequenced, Scheduler blockingScheduler) {
+		return new LineSink(path, maxBatchLines, maxBatchDelay, forceInterval, sequenced, blockingScheduler);
+	}
+
+	/**
+	 * Append every line of {@code lines}. Emits the number of lines written once
+	 * the last batch has landed (and been forced, if group commit is on).
+	 */
+	public Mono<Long> write(Publisher<String> lines) {
+		return Flux.from(lines)
+				// fair backpressure: only pull lines for batches the writes below have asked for
+				.bufferTimeout(maxBatchLines, maxBatchDelay, true)
+				// The offset is reserved when each append is subscribed, which flatMapSequential does in order.
+				.flatMapSequential(this::append, AsyncFileWriter.DEFAULT_MAX_IN_FLIGHT)
+				.reduce(0L, Long::sum);
+	}
+
+	/**
+	 * Append {@code lines} as one batch, whatever its size. The offset is reserved
+	 * on subscription, so appends subscribed in order land in order. Emits the
+	 * number of lines once they have landed (and been forced, if group commit is on).
+	 */
+	public Mono<Long> append(List<String> lines) {
+		return Mono.defer(() -> {
+			AsyncFileWriter target;
+			try {
+				target = writer();
+			} catch (IOException e) {
+				return Mono.error(e);
+			}
+			ByteBuffer encoded = encode(lines);
+			return target.write(encoded).then(awaitForce()).thenReturn((long) lines.size());
+		});
+	}
+
+	/** Completes once every batch handed to the file so far has landed. */
+	public Mono<Void> flush() {
+		return Mono.defer(() -> {
+			AsyncFileWriter current = writer;
+			return current == null ? Mono.empty() : current.flush();
+		});
+	}
+
+	private AsyncFileWriter writer() throws IOException {
+		AsyncFileWriter current = writer;
+		if (current != null) {
+			return current;
+		}
+		synchronized (this) {
+			if (closed) {
+				throw new ClosedChannelException();
+			}
+			if (writer == null) {
+				AsynchronousFileChannel opened = AsynchronousFileChannel.open(path, StandardOpenOption.CREATE,
+						StandardOpenOption.WRITE);
+				try {
+					writer = newWriter(opened);
+				} catch (IOException e) {
+					opened.close();
+					throw e;
+				}
+				channel = opened;
+			}
+			return writer;
+		}
+	}
+
+	private static AsyncFileWriter newWriter(AsynchronousFileChannel channel) throws IOException {
+		return new AsyncFileWriter(channel, channel.size(), AsyncFileWriter.DEFAULT_COALESCE_SIZE,
+				AsyncFileWriter.DEFAULT_MAX_IN_FLIGHT);
+	}
+
+	private ByteBuffer encode(List<String> batch) {
+		List<byte[]> encoded = new ArrayList<>(batch.size());
+		int size = 0;
+		for (String line : batch) {
+			String entry = sequenced ? sequence.getAndIncrement() + "\t" + line : line;
+			byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+			encoded.add(bytes);
+			size += bytes.length + LINE_SEPARATOR.length;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		for (byte[] bytes : encoded) {
+			buffer.put(bytes).put(LINE_SEPARATOR);
+		}
+		return buffer.flip();
+	}
+
+	/** For a batch that has landed: the next force to start, scheduled if there is none yet. */
+	private Mono<Void> awaitForce() {
+		return Mono.defer(() -> {
+			if (forceInterval.isZero() || forceInterval.isNegative()) {
+				return Mono.empty();
+			}
+			synchronized (this) {
+				if (nextForce == null) {
+					long delay = Math.max(0, lastForceNanos + forceInterval.toNanos() - System.nanoTime());
+					nextForce = new Force(runningForce, delay);
+				}
+				return nextForce.done;
+			}
+		});
+	}
+
+	/**
+	 * One group commit: starts {@code delayNanos} from now, but not before the
+	 * previous one ends. It runs once however many batches wait for it, and to the
+	 * end even if they all cancel.
+	 */
+	private final class Force {
+
+		final Mono<Void> done;
+
+		Force(Force previous, long delayNanos) {
+			Mono<Void> after = previous == null ? Mono.empty() : previous.done.onErrorResume(e -> Mono.empty());
+			CompletableFuture<Void> future = Mono.when(after, Mono.delay(Duration.ofNanos(delayNanos)))
+					.then(Mono.defer(this::run))
+					.toFuture();
+			done = Mono.fromFuture(future, true);
+		}
+
+		private Mono<Void> run() {
+			// From here on a landing batch may not be covered, so later ones wait for a new force
+			synchronized (LineSink.this) {
+				nextForce = null;
+				runningForce = this;
+				lastForceNanos = System.nanoTime();
+			}
+			return writer.force(false, blockingScheduler).doFinally(signal -> {
+				synchronized (LineSink.this) {
+					if (runningForce == this) {
+						runningForce = null;
+					}
+				}
+			});
+		}
+	}
+
+	/** Waits for outstanding batches, forces them to disk and closes the file. */
+	@Override
+	public void close() throws IOException {
+		AsyncFileWriter current;
+		synchronized (this) {
+			closed = true;
+			current = writer;
+		}
+		if (current == null) {
+			return;
+		}
+		try {
+			current.force(false, blockingScheduler).block();
+		} finally {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,197 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Gzipped sidecar copies of served files, kept under one directory that
+ * mirrors the absolute paths of their sources ({@code /data/a.txt} becomes
+ * {@code <directory>/data/a.txt.gz}).
+ * <p>
+ * {@link #lookup} never blocks: it answers from memory and, when there is no
+ * sidecar for the current version of the source yet, schedules one to be
+ * generated in the background and returns null so the caller compresses on the
+ * fly meanwhile. A version is the source's size and modification time; the
+ * sidecar carries the same modification time and records the size in its gzip
+ * trailer, so one left over from a previous run is reused instead of
+ * regenerated only if both still match. When the source changes, the old
+ * sidecar is dropped on the next lookup. Sources that do not shrink below
+ * {@code maxRatio} of their size are remembered as not worth compressing.
+ * <p>
+ * A source modified less than {@code minAge} ago is still being written, like
+ * an output file that is appended to, and would only be compressed for the
+ * result to be thrown away: it gets no sidecar until it has been left alone for
+ * that long.
+ */
+public class PrecompressedFiles {
+
+	/** A sidecar ready to be served as is, or {@link #INCOMPRESSIBLE}. */
+	public record Sidecar(Path path, long size) {
+	}
+
+	/** Returned for sources that do not compress well: serve them as they are. */
+	public static final Sidecar INCOMPRESSIBLE = new Sidecar(null, -1);
+
+	/** Totals since startup. */
+	public record Stats(long hits, long misses, long generated, long reused, long invalidations, long incompressible,
+			long tooRecent, long failures) {
+	}
+
+	private record Version(long size, FileTime modified) {
+	}
+
+	private record Entry(Version version, Sidecar sidecar) {
+	}
+
+	private final Path directory;
+
+	private final int level;
+
+	private final double maxRatio;
+
+	private final long minAgeMillis;
+
+	private final Scheduler scheduler;
+
+	private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+
+	private final Set<Path> generating = ConcurrentHashMap.newKeySet();
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder generated = new LongAdder();
+
+	private final LongAdder reused = new LongAdder();
+
+	private final LongAdder invalidations = new LongAdder();
+
+	private final LongAdder incompressible = new LongAdder();
+
+	private final LongAdder tooRecent = new LongAdder();
+
+	private final LongAdder failures = new LongAdder();
+
+	/**
+	 * @param level     gzip level for sidecars; they are written once, so this is usually the highest
+	 * @param minAge    how long a source must have been unmodified to get a sidecar
+	 * @param scheduler where the blocking compression runs
+	 */
+	public PrecompressedFiles(Path directory, int level, double maxRatio, Duration minAge, Scheduler scheduler) {
+		this.directory = directory.toAbsolutePath().normalize();
+		this.level = level;
+		this.maxRatio = maxRatio;
+		this.minAgeMillis = minAge.toMillis();
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * The sidecar for this version of {@code source}, {@link #INCOMPRESSIBLE}, or
+	 * null if there is none (yet). {@code attributes} must be the source's
+	 * current attributes.
+	 */
+	public Sidecar lookup(Path source, BasicFileAttributes attributes) {
+		Path key = source.toAbsolutePath().normalize();
+		Version version = new Version(attributes.size(), attributes.lastModifiedTime());
+		Entry entry = entries.get(key);
+		if (entry != null && entry.version().equals(version)) {
+			if (entry.sidecar() != INCOMPRESSIBLE) {
+				hits.increment();
+			}
+			return entry.sidecar();
+		}
+		if (entry != null && entries.remove(key, entry)) {
+			invalidations.increment();
+		}
+		misses.increment();
+		if (System.currentTimeMillis() - version.modified().toMillis() < minAgeMillis) {
+			tooRecent.increment();
+			return null;
+		}
+		if (generating.add(key)) {
+			Mono.fromRunnable(() -> generate(key, version))
+					.subscribeOn(scheduler)
+					.doFinally(signal -> generating.remove(key))
+					.subscribe(null, e -> failures.increment());
+		}
+		return null;
+	}
+
+	public Stats stats() {
+		return new Stats(hits.sum(), misses.sum(), generated.sum(), reused.sum(), invalidations.sum(),
+				incompressible.sum(), tooRecent.sum(), failures.sum());
+	}
+
+	private void generate(Path source, Version version) {
+		Path sidecar = directory.resolve(source.getRoot().relativize(source).toString() + ".gz");
+		try {
+			if (Files.isRegularFile(sidecar) && Files.getLastModifiedTime(sidecar).equals(version.modified())
+					&& uncompressedSize(sidecar) == (version.size() & 0xFFFFFFFFL)) {
+				reused.increment();
+				entries.put(source, new Entry(version, new Sidecar(sidecar, Files.size(sidecar))));
+				return;
+			}
+			Files.createDirectories(sidecar.getParent());
+			Path temp = Files.createTempFile(sidecar.getParent(), sidecar.getFileName().toString(), ".tmp");
+			try {
+				GzipEncoder.compressFile(source, temp, level);
+				if (!currentVersion(source).equals(version)) {
+					return; // changed while compressing; the next lookup starts over
+				}
+				long size = Files.size(temp);
+				if (size > version.size() * maxRatio) {
+					incompressible.increment();
+					entries.put(source, new Entry(version, INCOMPRESSIBLE));
+					return;
+				}
+				Files.setLastModifiedTime(temp, version.modified());
+				// Readers of the old sidecar keep their open file; new lookups see the complete new one
+				Files.move(temp, sidecar, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+				generated.increment();
+				entries.put(source, new Entry(version, new Sidecar(sidecar, size)));
+			} finally {
+				Files.deleteIfExists(temp);
+			}
+		} catch (IOException e) {
+			failures.increment();
+		}
+	}
+
+	// The gzip trailer's ISIZE: the uncompressed length modulo 2^32, little-endian in the last four bytes
+	private static long uncompressedSize(Path sidecar) throws IOException {
+		try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+			if (channel.size() < 4) {
+				return -1;
+			}
+			ByteBuffer trailer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+			while (trailer.hasRemaining()) {
+				if (channel.read(trailer, channel.size() - trailer.remaining()) < 0) {
+					return -1;
+				}
+			}
+			return trailer.flip().getInt() & 0xFFFFFFFFL;
+		}
+	}
+
+	private static Version currentVersion(Path source) throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+		return new Version(attributes.size(), attributes.lastModifiedTime());
+	}
+}
@@ -4,7 +4,6 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
-import java.util.List;
 import java.util.Random;
 
 public class RealTimeStockTicker {
@@ -18,22 +17,20 @@ public class RealTimeStockTicker {
             .share();
 
         // 1-Minute Moving Average: 60 seconds window, updated every second.
+        // Each price is folded once into a ring of per-second buckets instead of being copied into 60 lists.
         priceStream
-            .buffer(Duration.ofMinutes(1), Duration.ofSeconds(1))
-            .map(RealTimeStockTicker::calculateAverage)
-            .subscribe(avg -> System.out.println("1 Min MA: " + avg));
+            .transform(SlidingWindowAggregator.slidingWindow(Duration.ofMinutes(1), Duration.ofSeconds(1)))
+            .subscribe(stats -> System.out.println("1 Min MA: " + stats.mean()));
 
         // 5-Minute Moving Average: 5 minutes window, updated every second.
         priceStream
-            .buffer(Duration.ofMinutes(5), Duration.ofSeconds(1))
-            .map(RealTimeStockTicker::calculateAverage)
-            .subscribe(avg -> System.out.println("5 Min MA: " + avg));
+            .transform(SlidingWindowAggregator.slidingWindow(Duration.ofMinutes(5), Duration.ofSeconds(1)))
+            .subscribe(stats -> System.out.println("5 Min MA: " + stats.mean()));
 
         // 1-Hour Moving Average: 1 hour window, updated every second.
         priceStream
-            .buffer(Duration.ofHours(1), Duration.ofSeconds(1))
-            .map(RealTimeStockTicker::calculateAverage)
-            .subscribe(avg -> System.out.println("1 Hr MA: " + avg));
+            .transform(SlidingWindowAggregator.slidingWindow(Duration.ofHours(1), Duration.ofSeconds(1)))
+            .subscribe(stats -> System.out.println("1 Hr MA: " + stats.mean()));
 
         // Keep the application running long enough to observe the moving averages.
         Thread.sleep(Duration.ofMinutes(65).toMillis());
@@ -48,14 +45,4 @@ public class RealTimeStockTicker {
         // Simulate network latency of 100 milliseconds.
         return Mono.just(price).delayElement(Duration.ofMillis(100));
     }
-
-    /**
-     * Calculates the average of a list of Double values.
-     */
-    private static double calculateAverage(List<Double> prices) {
-        return prices.stream()
-            .mapToDouble(Double::doubleValue)
-            .average()
-            .orElse(0.0);
-    }
 }
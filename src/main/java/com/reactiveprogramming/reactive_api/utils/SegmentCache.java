@@ -0,0 +1,289 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Keeps hot, aligned segments of files in off-heap memory so that popular
+ * content is served from memory instead of being re-read for every request.
+ * <ul>
+ * <li>Files are cut into {@code segmentSize}-aligned segments, loaded on demand
+ * (single-flight, on the blocking scheduler) into direct buffers or read-only
+ * memory mappings.</li>
+ * <li>Total resident size stays within {@code budgetBytes}. {@link Eviction#LRU}
+ * drops the least recently used segment; {@link Eviction#LFU} drops the least
+ * frequently used among the oldest few, so one pass over a large cold file
+ * cannot flush the popular ones.</li>
+ * <li>Every read checks the file's size and modification time; segments of an
+ * older version are dropped as soon as a change is seen.</li>
+ * </ul>
+ * {@link #read} hands out read-only views over the cached segments, so a range
+ * response is assembled without copying. Evicted segments are never freed
+ * explicitly, only dropped, so a view still being written stays valid.
+ */
+public class SegmentCache {
+
+	public enum Eviction {
+		LRU, LFU
+	}
+
+	public enum Storage {
+
+		/** Copies segments into direct buffers; resident for as long as they are cached. */
+		DIRECT,
+
+		/** Maps segments read-only; pages are shared with the OS page cache. */
+		MAPPED
+	}
+
+	/** Counters plus current size, for metrics. */
+	public record Stats(long hits, long misses, long loads, long evictions, long invalidations, int segments,
+			long residentBytes, long budgetBytes) {
+
+		public double hitRatio() {
+			long lookups = hits + misses;
+			return lookups == 0 ? 0 : (double) hits / lookups;
+		}
+	}
+
+	private record FileVersion(long size, long modifiedMillis) {
+	}
+
+	private record SegmentKey(Path path, FileVersion version, long index) {
+	}
+
+	private static final class Segment {
+
+		final ByteBuffer buffer;
+
+		int frequency = 1;
+
+		Segment(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+	}
+
+	// How many of the least recently used segments LFU eviction chooses from.
+	private static final int LFU_SAMPLE = 16;
+
+	private final long budgetBytes;
+
+	private final int segmentSize;
+
+	private final Eviction eviction;
+
+	private final Storage storage;
+
+	private final Scheduler loadScheduler;
+
+	// Access-ordered, so iteration starts at the least recently used segment. Guarded by "this".
+	private final LinkedHashMap<SegmentKey, Segment> segments = new LinkedHashMap<>(64, 0.75f, true);
+
+	private long residentBytes;
+
+	private final Map<Path, FileVersion> versions = new ConcurrentHashMap<>();
+
+	private final Map<SegmentKey, Mono<ByteBuffer>> inFlight = new ConcurrentHashMap<>();
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder loads = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	private final LongAdder invalidations = new LongAdder();
+
+	public SegmentCache(long budgetBytes, int segmentSize, Eviction eviction, Storage storage,
+			Scheduler loadScheduler) {
+		if (segmentSize <= 0) {
+			throw new IllegalArgumentException("segmentSize must be > 0");
+		}
+		this.budgetBytes = budgetBytes;
+		this.segmentSize = segmentSize;
+		this.eviction = eviction;
+		this.storage = storage;
+		this.loadScheduler = loadScheduler;
+	}
+
+	/**
+	 * Read-only views over bytes {@code [position, position + count)} of
+	 * {@code path}, one per segment touched. The views share memory with the
+	 * cache; don't write to them.
+	 */
+	public Flux<ByteBuffer> read(Path path, long position, long count) {
+		return Mono.fromCallable(() -> currentVersion(path)).flatMapMany(version -> {
+			long end = Math.min(position + count, version.size());
+			if (position >= end) {
+				return Flux.empty();
+			}
+			long first = position / segmentSize;
+			long last = (end - 1) / segmentSize;
+			return Flux.range(0, (int) (last - first + 1)).concatMap(i -> {
+				long index = first + i;
+				long segmentStart = index * segmentSize;
+				int from = (int) (Math.max(position, segmentStart) - segmentStart);
+				int to = (int) (Math.min(end, segmentStart + segmentSize) - segmentStart);
+				return segment(new SegmentKey(path, version, index))
+						.map(buffer -> buffer.duplicate().limit(to).position(from).slice());
+			}, 1);
+		});
+	}
+
+	/** Drop every cached segment of {@code path}. */
+	public void invalidate(Path path) {
+		versions.remove(path);
+		removeSegments(path);
+	}
+
+	public int segmentSize() {
+		return segmentSize;
+	}
+
+	public Stats stats() {
+		synchronized (this) {
+			return new Stats(hits.sum(), misses.sum(), loads.sum(), evictions.sum(), invalidations.sum(),
+					segments.size(), residentBytes, budgetBytes);
+		}
+	}
+
+	// One stat() per request is what makes modification-based invalidation possible.
+	private FileVersion currentVersion(Path path) throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		FileVersion current = new FileVersion(attributes.size(), attributes.lastModifiedTime().toMillis());
+		FileVersion previous = versions.put(path, current);
+		if (previous != null && !previous.equals(current)) {
+			removeSegments(path);
+		}
+		return current;
+	}
+
+	private Mono<ByteBuffer> segment(SegmentKey key) {
+		return Mono.defer(() -> {
+			synchronized (this) {
+				Segment segment = segments.get(key);
+				if (segment != null) {
+					segment.frequency++;
+					hits.increment();
+					return Mono.just(segment.buffer);
+				}
+			}
+			misses.increment();
+			return load(key);
+		});
+	}
+
+	private Mono<ByteBuffer> load(SegmentKey key) {
+		return inFlight.computeIfAbsent(key, k -> {
+			loads.increment();
+			AtomicReference<Mono<ByteBuffer>> self = new AtomicReference<>();
+			Mono<ByteBuffer> shared = Mono.fromCallable(() -> readSegment(k))
+					.subscribeOn(loadScheduler)
+					.doOnNext(buffer -> put(k, buffer))
+					.doFinally(signal -> inFlight.remove(k, self.get()))
+					.cache(value -> Duration.ZERO, error -> Duration.ZERO, () -> Duration.ZERO);
+			self.set(shared);
+			return shared;
+		});
+	}
+
+	private ByteBuffer readSegment(SegmentKey key) throws IOException {
+		long offset = key.index() * segmentSize;
+		int length = (int) Math.min(segmentSize, key.version().size() - offset);
+		try (FileChannel channel = FileChannel.open(key.path(), StandardOpenOption.READ)) {
+			if (storage == Storage.MAPPED) {
+				MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+				// Fault the pages in here, on the blocking scheduler, rather than on the event loop later.
+				mapped.load();
+				return mapped;
+			}
+			ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, offset + buffer.position()) < 0) {
+					throw new IOException(key.path() + " shrank while its segment " + key.index() + " was read");
+				}
+			}
+			return buffer.flip().asReadOnlyBuffer();
+		}
+	}
+
+	private void put(SegmentKey key, ByteBuffer buffer) {
+		int size = buffer.capacity();
+		if (size > budgetBytes || !key.version().equals(versions.get(key.path()))) {
+			// Too big to cache, or the file changed while we were reading it: serve once, don't keep.
+			return;
+		}
+		synchronized (this) {
+			if (segments.putIfAbsent(key, new Segment(buffer)) != null) {
+				return;
+			}
+			residentBytes += size;
+			while (residentBytes > budgetBytes) {
+				evictOne(key);
+			}
+		}
+	}
+
+	// Caller holds the lock.
+	private void evictOne(SegmentKey keep) {
+		Iterator<Map.Entry<SegmentKey, Segment>> eldest = segments.entrySet().iterator();
+		Map.Entry<SegmentKey, Segment> victim = null;
+		int sampled = 0;
+		while (eldest.hasNext() && sampled < (eviction == Eviction.LFU ? LFU_SAMPLE : 1)) {
+			Map.Entry<SegmentKey, Segment> candidate = eldest.next();
+			if (candidate.getKey().equals(keep)) {
+				continue;
+			}
+			sampled++;
+			if (victim == null || candidate.getValue().frequency < victim.getValue().frequency) {
+				victim = candidate;
+			}
+		}
+		if (victim == null) {
+			return;
+		}
+		segments.remove(victim.getKey());
+		residentBytes -= victim.getValue().buffer.capacity();
+		evictions.increment();
+		if (eviction == Eviction.LFU) {
+			// Age the survivors we looked at, so yesterday's favourite can't stay forever.
+			Iterator<Segment> aged = segments.values().iterator();
+			for (int i = 0; i < LFU_SAMPLE && aged.hasNext(); i++) {
+				Segment segment = aged.next();
+				segment.frequency = Math.max(1, segment.frequency / 2);
+			}
+		}
+	}
+
+	private void removeSegments(Path path) {
+		synchronized (this) {
+			Iterator<Map.Entry<SegmentKey, Segment>> it = segments.entrySet().iterator();
+			while (it.hasNext()) {
+				Map.Entry<SegmentKey, Segment> entry = it.next();
+				if (entry.getKey().path().equals(path)) {
+					it.remove();
+					residentBytes -= entry.getValue().buffer.capacity();
+					invalidations.increment();
+				}
+			}
+		}
+	}
+}
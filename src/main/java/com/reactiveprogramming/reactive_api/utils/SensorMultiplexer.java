@@ -0,0 +1,212 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Samples any number of sensors from one periodic task on a shared scheduler
+ * and emits the readings of each tick as primitive {@link SensorBatch}es.
+ * <p>
+ * Where {@link TemperatureSensor#start} costs a scheduled task per sensor and a
+ * boxed {@code Double} per reading, this costs one task per tick (split into
+ * {@code shards} when the fleet is large enough to need several cores) and two
+ * arrays per {@code maxBatchSize} readings. A tick that is still running when
+ * the next one is due is skipped and counted as an overrun rather than queued.
+ * <p>
+ * Sampling only runs while {@link #readings} has subscribers; every subscriber
+ * gets its own bounded buffer, so one slow consumer drops batches (as its
+ * overflow strategy dictates) instead of stalling the others.
+ */
+public class SensorMultiplexer implements AutoCloseable {
+
+	/** Readings taken in one tick: {@code values[i]} came from sensor {@code sensorIds[i]}, for i below size. */
+	public record SensorBatch(long timestampMillis, int[] sensorIds, double[] values, int size) {
+	}
+
+	private final Scheduler scheduler;
+
+	private final Duration tick;
+
+	private final int maxBatchSize;
+
+	private final int shards;
+
+	private final Flux<SensorBatch> batches;
+
+	private final AtomicInteger shardsRunning = new AtomicInteger();
+
+	private final LongAdder ticks = new LongAdder();
+
+	private final LongAdder overruns = new LongAdder();
+
+	private final LongAdder readingsTaken = new LongAdder();
+
+	private final LongAdder droppedBatches = new LongAdder();
+
+	// Guarded by this; tick() takes the array and highWater under the lock and then
+	// samples without it, so a sensor registered mid-tick is picked up on the next one.
+	private volatile DoubleSupplier[] sensors = new DoubleSupplier[1024];
+
+	private int[] freeIds = new int[0];
+
+	private int freeCount;
+
+	private int highWater;
+
+	private int registered;
+
+	private volatile FluxSink<SensorBatch> sink;
+
+	/**
+	 * @param maxBatchSize readings per emitted batch
+	 * @param shards       tasks each tick is split into, run in parallel on {@code scheduler}
+	 */
+	public SensorMultiplexer(Scheduler scheduler, Duration tick, int maxBatchSize, int shards) {
+		this.scheduler = scheduler;
+		this.tick = tick;
+		this.maxBatchSize = maxBatchSize;
+		this.shards = Math.max(1, shards);
+		this.batches = Flux.<SensorBatch>create(this::startTicking).publish().refCount();
+	}
+
+	/** Adds a sensor and returns its id; ids of unregistered sensors are reused. */
+	public synchronized int register(DoubleSupplier sensor) {
+		int id;
+		if (freeCount > 0) {
+			id = freeIds[--freeCount];
+		} else {
+			id = highWater++;
+			if (id == sensors.length) {
+				sensors = Arrays.copyOf(sensors, sensors.length * 2);
+			}
+		}
+		sensors[id] = sensor;
+		registered++;
+		return id;
+	}
+
+	public synchronized void unregister(int id) {
+		if (id < 0 || id >= highWater || sensors[id] == null) {
+			return;
+		}
+		sensors[id] = null;
+		registered--;
+		if (freeCount == freeIds.length) {
+			freeIds = Arrays.copyOf(freeIds, Math.max(16, freeIds.length * 2));
+		}
+		freeIds[freeCount++] = id;
+	}
+
+	/**
+	 * Batches from every registered sensor. At most {@code bufferBatches} are held
+	 * for a subscriber that is not keeping up; after that {@code overflow} applies.
+	 */
+	public Flux<SensorBatch> readings(int bufferBatches, BufferOverflowStrategy overflow) {
+		return batches.onBackpressureBuffer(bufferBatches, dropped -> droppedBatches.increment(), overflow);
+	}
+
+	public synchronized int sensorCount() {
+		return registered;
+	}
+
+	public long ticks() {
+		return ticks.sum();
+	}
+
+	public long overruns() {
+		return overruns.sum();
+	}
+
+	public long readingsTaken() {
+		return readingsTaken.sum();
+	}
+
+	public long droppedBatches() {
+		return droppedBatches.sum();
+	}
+
+	/** Completes the readings of every current subscriber. */
+	@Override
+	public void close() {
+		FluxSink<SensorBatch> current = sink;
+		if (current != null) {
+			current.complete();
+		}
+	}
+
+	private void startTicking(FluxSink<SensorBatch> newSink) {
+		sink = newSink;
+		Disposable ticker = scheduler.schedulePeriodically(() -> tick(newSink), tick.toNanos(), tick.toNanos(),
+				TimeUnit.NANOSECONDS);
+		newSink.onDispose(ticker);
+	}
+
+	private void tick(FluxSink<SensorBatch> target) {
+		if (!shardsRunning.compareAndSet(0, shards)) {
+			overruns.increment();
+			return;
+		}
+		ticks.increment();
+		long now = System.currentTimeMillis();
+		DoubleSupplier[] snapshot;
+		int limit;
+		// Together: register() may grow the array and highWater in between
+		synchronized (this) {
+			snapshot = sensors;
+			limit = highWater;
+		}
+		int perShard = (limit + shards - 1) / shards;
+		for (int shard = 1; shard < shards; shard++) {
+			int from = Math.min(limit, shard * perShard);
+			int to = Math.min(limit, from + perShard);
+			scheduler.schedule(() -> sample(target, snapshot, from, to, now));
+		}
+		sample(target, snapshot, 0, Math.min(limit, perShard), now);
+	}
+
+	private void sample(FluxSink<SensorBatch> target, DoubleSupplier[] snapshot, int from, int to, long now) {
+		try {
+			int[] ids = new int[maxBatchSize];
+			double[] values = new double[maxBatchSize];
+			int size = 0;
+			for (int id = from; id < to && !target.isCancelled(); id++) {
+				DoubleSupplier sensor = snapshot[id];
+				if (sensor == null) {
+					continue;
+				}
+				double value;
+				try {
+					value = sensor.getAsDouble();
+				} catch (RuntimeException e) {
+					// One faulty sensor shouldn't take the whole fleet's stream down.
+					continue;
+				}
+				ids[size] = id;
+				values[size] = value;
+				if (++size == maxBatchSize) {
+					target.next(new SensorBatch(now, ids, values, size));
+					readingsTaken.add(size);
+					ids = new int[maxBatchSize];
+					values = new double[maxBatchSize];
+					size = 0;
+				}
+			}
+			if (size > 0) {
+				target.next(new SensorBatch(now, ids, values, size));
+				readingsTaken.add(size);
+			}
+		} finally {
+			shardsRunning.decrementAndGet();
+		}
+	}
+}
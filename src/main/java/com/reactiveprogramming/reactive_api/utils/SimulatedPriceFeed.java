@@ -0,0 +1,58 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import reactor.core.Disposable;
+
+/**
+ * Feeds random-walk prices for a fixed set of symbols into a
+ * {@link KeyedTickerEngine}, from a periodic task on the engine's timer wheel.
+ * Stands in for a market data connection in demos and load tests.
+ */
+public class SimulatedPriceFeed implements AutoCloseable {
+
+	private final KeyedTickerEngine engine;
+
+	private final String[] symbols;
+
+	private final double[] prices;
+
+	private final double updatesPerTick;
+
+	private final Disposable timer;
+
+	private double carry;
+
+	public SimulatedPriceFeed(KeyedTickerEngine engine, HashedTimerWheel wheel, List<String> symbols,
+			int updatesPerSecond) {
+		this.engine = engine;
+		this.symbols = symbols.toArray(new String[0]);
+		this.prices = new double[this.symbols.length];
+		for (int i = 0; i < prices.length; i++) {
+			// Same range RealTimeStockTicker's callApi() draws from
+			prices[i] = 100 + ThreadLocalRandom.current().nextDouble() * 50;
+		}
+		this.updatesPerTick = updatesPerSecond * wheel.tickDuration().toNanos() / 1_000_000_000.0;
+		this.timer = wheel.scheduleAtFixedRate(this::tick, wheel.tickDuration(), wheel.tickDuration());
+	}
+
+	private void tick() {
+		if (symbols.length == 0) {
+			return;
+		}
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		carry += updatesPerTick;
+		long now = System.currentTimeMillis();
+		for (; carry >= 1; carry--) {
+			int i = random.nextInt(symbols.length);
+			prices[i] = Math.max(1, prices[i] * (1 + random.nextGaussian() * 0.001));
+			engine.onPrice(symbols[i], prices[i], now);
+		}
+	}
+
+	@Override
+	public void close() {
+		timer.dispose();
+	}
+}
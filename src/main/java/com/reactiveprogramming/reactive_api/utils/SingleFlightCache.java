@@ -0,0 +1,175 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * A reactive cache for expensive lookups such as upstream HTTP calls.
+ * <ul>
+ * <li>Single-flight: concurrent misses for the same key share one load.</li>
+ * <li>Bounded by total weight (e.g. bytes), evicting least recently used entries.</li>
+ * <li>Entries are fresh for {@code ttl}. For a further {@code staleWhileRevalidate}
+ * they are still served, while one background load refreshes them.</li>
+ * </ul>
+ * Failed or empty loads are not cached.
+ */
+public class SingleFlightCache<K, V> {
+
+	/** Counters plus current size, for metrics. */
+	public record Stats(long hits, long staleHits, long misses, long loads, long loadFailures, long evictions,
+			int size, long weight) {
+	}
+
+	private static final class Entry<V> {
+
+		final V value;
+
+		final long weight;
+
+		final long expiresAt;
+
+		final long staleUntil;
+
+		Entry(V value, long weight, long expiresAt, long staleUntil) {
+			this.value = value;
+			this.weight = weight;
+			this.expiresAt = expiresAt;
+			this.staleUntil = staleUntil;
+		}
+	}
+
+	private final long maxWeight;
+
+	private final ToLongFunction<? super V> weigher;
+
+	private final long ttlNanos;
+
+	private final long staleNanos;
+
+	// Access-ordered, so iteration starts at the least recently used entry. Guarded by "this".
+	private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long weight;
+
+	private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder staleHits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder loads = new LongAdder();
+
+	private final LongAdder loadFailures = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	public SingleFlightCache(long maxWeight, ToLongFunction<? super V> weigher, Duration ttl,
+			Duration staleWhileRevalidate) {
+		this.maxWeight = maxWeight;
+		this.weigher = weigher;
+		this.ttlNanos = ttl.toNanos();
+		this.staleNanos = staleWhileRevalidate.toNanos();
+	}
+
+	/**
+	 * Return the cached value for {@code key}, loading it with {@code loader} on a
+	 * miss. The loader is only subscribed once per key at a time, however many
+	 * callers are waiting, and keeps running if the caller that started it cancels.
+	 */
+	public Mono<V> get(K key, Function<? super K, Mono<V>> loader) {
+		return Mono.defer(() -> {
+			long now = System.nanoTime();
+			Entry<V> entry = lookup(key, now);
+			if (entry != null) {
+				if (now - entry.expiresAt < 0) {
+					hits.increment();
+					return Mono.just(entry.value);
+				}
+				staleHits.increment();
+				load(key, loader).subscribe(value -> {
+				}, error -> {
+				});
+				return Mono.just(entry.value);
+			}
+			misses.increment();
+			return load(key, loader);
+		});
+	}
+
+	public void invalidate(K key) {
+		synchronized (this) {
+			Entry<V> removed = entries.remove(key);
+			if (removed != null) {
+				weight -= removed.weight;
+			}
+		}
+	}
+
+	public Stats stats() {
+		synchronized (this) {
+			return new Stats(hits.sum(), staleHits.sum(), misses.sum(), loads.sum(), loadFailures.sum(),
+					evictions.sum(), entries.size(), weight);
+		}
+	}
+
+	private Mono<V> load(K key, Function<? super K, Mono<V>> loader) {
+		return inFlight.computeIfAbsent(key, k -> {
+			loads.increment();
+			AtomicReference<Mono<V>> self = new AtomicReference<>();
+			Mono<V> shared = Mono.defer(() -> loader.apply(k))
+					.doOnNext(value -> put(k, value))
+					.doOnError(error -> loadFailures.increment())
+					.doFinally(signal -> inFlight.remove(k, self.get()))
+					.cache(value -> Duration.ZERO, error -> Duration.ZERO, () -> Duration.ZERO);
+			self.set(shared);
+			return shared;
+		});
+	}
+
+	private Entry<V> lookup(K key, long now) {
+		synchronized (this) {
+			Entry<V> entry = entries.get(key);
+			if (entry != null && now - entry.staleUntil >= 0) {
+				entries.remove(key);
+				weight -= entry.weight;
+				evictions.increment();
+				return null;
+			}
+			return entry;
+		}
+	}
+
+	private void put(K key, V value) {
+		long valueWeight = weigher.applyAsLong(value);
+		if (valueWeight > maxWeight) {
+			return;
+		}
+		long now = System.nanoTime();
+		Entry<V> entry = new Entry<>(value, valueWeight, now + ttlNanos, now + ttlNanos + staleNanos);
+		synchronized (this) {
+			Entry<V> previous = entries.put(key, entry);
+			weight += valueWeight - (previous != null ? previous.weight : 0);
+			Iterator<Entry<V>> eldest = entries.values().iterator();
+			while (eldest.hasNext()) {
+				Entry<V> candidate = eldest.next();
+				// Drop anything past its stale window, then least recently used until we fit.
+				if (candidate != entry && (weight > maxWeight || now - candidate.staleUntil >= 0)) {
+					eldest.remove();
+					weight -= candidate.weight;
+					evictions.increment();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+/**
+ * Running statistics over a sliding time window, kept in a ring of primitive
+ * time buckets. Adding a value is O(1): it lands in the current bucket and in
+ * the window totals, and buckets that fall out of the window are subtracted
+ * from the totals as time moves on. Nothing is boxed and no value is stored
+ * twice, however long the window is.
+ * <p>
+ * Count, sum, mean and variance come straight from the totals. Min and max
+ * cannot be un-added, so {@link #snapshot} folds them over the buckets; that is
+ * O(buckets) per snapshot, not per value. The EWMA uses the window length as
+ * its time constant.
+ * <p>
+ * Not thread-safe; callers serialize access.
+ */
+public class SlidingWindow {
+
+	/** Keeps very long windows with short slides from allocating huge rings. */
+	private static final int MAX_BUCKETS = 4096;
+
+	private final long bucketMillis;
+
+	private final int bucketCount;
+
+	private final long[] counts;
+
+	private final double[] sums;
+
+	private final double[] sumsOfSquares;
+
+	private final double[] mins;
+
+	private final double[] maxs;
+
+	private final double windowMillis;
+
+	private long count;
+
+	private double sum;
+
+	private double sumOfSquares;
+
+	private long currentIndex = Long.MIN_VALUE;
+
+	private double ewma = Double.NaN;
+
+	private long lastEwmaMillis;
+
+	public SlidingWindow(long windowMillis, long slideMillis) {
+		this(windowMillis, slideMillis, MAX_BUCKETS);
+	}
+
+	/**
+	 * Use at most {@code maxBuckets} buckets. Fewer buckets make the window edge
+	 * coarser (it moves in steps of {@code window / maxBuckets}) but shrink the
+	 * state, which matters when there is one window per key.
+	 */
+	public SlidingWindow(long windowMillis, long slideMillis, int maxBuckets) {
+		if (windowMillis <= 0 || slideMillis <= 0 || maxBuckets <= 0) {
+			throw new IllegalArgumentException("window, slide and maxBuckets must be positive");
+		}
+		long bucket = Math.max(slideMillis, (windowMillis + maxBuckets - 1) / maxBuckets);
+		this.bucketMillis = bucket;
+		this.bucketCount = (int) Math.max(1, (windowMillis + bucket - 1) / bucket);
+		this.windowMillis = windowMillis;
+		this.counts = new long[bucketCount];
+		this.sums = new double[bucketCount];
+		this.sumsOfSquares = new double[bucketCount];
+		this.mins = new double[bucketCount];
+		this.maxs = new double[bucketCount];
+	}
+
+	public void add(double value, long nowMillis) {
+		advance(nowMillis);
+		int slot = slot(currentIndex);
+		if (counts[slot] == 0) {
+			mins[slot] = value;
+			maxs[slot] = value;
+		} else {
+			mins[slot] = Math.min(mins[slot], value);
+			maxs[slot] = Math.max(maxs[slot], value);
+		}
+		counts[slot]++;
+		sums[slot] += value;
+		sumsOfSquares[slot] += value * value;
+		count++;
+		sum += value;
+		sumOfSquares += value * value;
+
+		if (Double.isNaN(ewma)) {
+			ewma = value;
+		} else {
+			double alpha = 1 - Math.exp(-Math.max(0, nowMillis - lastEwmaMillis) / windowMillis);
+			ewma += alpha * (value - ewma);
+		}
+		lastEwmaMillis = nowMillis;
+	}
+
+	public long count(long nowMillis) {
+		advance(nowMillis);
+		return count;
+	}
+
+	/** Mean of the window, or NaN when it is empty; unlike {@link #snapshot} this allocates nothing. */
+	public double mean(long nowMillis) {
+		advance(nowMillis);
+		return count == 0 ? Double.NaN : sum / count;
+	}
+
+	public WindowStats snapshot(long nowMillis) {
+		advance(nowMillis);
+		if (count == 0) {
+			return new WindowStats(0, Double.NaN, Double.NaN, Double.NaN, Double.NaN, ewma, nowMillis);
+		}
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < bucketCount; i++) {
+			if (counts[i] > 0) {
+				min = Math.min(min, mins[i]);
+				max = Math.max(max, maxs[i]);
+			}
+		}
+		double mean = sum / count;
+		double variance = Math.max(0, sumOfSquares / count - mean * mean);
+		return new WindowStats(count, mean, min, max, variance, ewma, nowMillis);
+	}
+
+	/** Move the ring forward to the bucket containing {@code nowMillis}, expiring what falls out. */
+	private void advance(long nowMillis) {
+		long index = Math.floorDiv(nowMillis, bucketMillis);
+		if (index <= currentIndex) {
+			return;
+		}
+		// Every bucket we step into held data from one window ago; a jump of a whole window or more clears all.
+		long first = currentIndex == Long.MIN_VALUE ? index : Math.max(currentIndex + 1, index - bucketCount + 1);
+		for (long i = first; i <= index; i++) {
+			int slot = slot(i);
+			if (counts[slot] > 0) {
+				count -= counts[slot];
+				sum -= sums[slot];
+				sumOfSquares -= sumsOfSquares[slot];
+				counts[slot] = 0;
+				sums[slot] = 0;
+				sumsOfSquares[slot] = 0;
+			}
+		}
+		if (count == 0) {
+			// Drop accumulated floating point error whenever the window drains
+			sum = 0;
+			sumOfSquares = 0;
+		}
+		currentIndex = index;
+	}
+
+	private int slot(long index) {
+		return (int) Math.floorMod(index, (long) bucketCount);
+	}
+}
@@ -0,0 +1,54 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/*
+ * A replacement for the buffer(window, slide) + average idiom. With
+ * buffer(Duration.ofHours(1), Duration.ofSeconds(1)) there are 3,600 overlapping
+ * lists alive at once, each value is boxed into all of them and every emission
+ * re-averages a full list. Here every value is folded once into a SlidingWindow
+ * and a snapshot is taken every slide:
+ *
+ *   prices.transform(SlidingWindowAggregator.slidingWindow(Duration.ofHours(1), Duration.ofSeconds(1)))
+ *         .subscribe(stats -> System.out.println("1 Hr MA: " + stats.mean()));
+ */
+public class SlidingWindowAggregator {
+
+	public static Function<Flux<? extends Number>, Flux<WindowStats>> slidingWindow(Duration window,
+			Duration slide) {
+		return slidingWindow(window, slide, Schedulers.parallel());
+	}
+
+	/**
+	 * Emit the statistics of the last {@code window} every {@code slide}, skipping
+	 * empty windows. Values are timestamped with {@code scheduler}'s clock, so a
+	 * virtual-time scheduler makes the operator testable.
+	 */
+	public static Function<Flux<? extends Number>, Flux<WindowStats>> slidingWindow(Duration window,
+			Duration slide, Scheduler scheduler) {
+		return source -> Flux.defer(() -> {
+			SlidingWindow state = new SlidingWindow(window.toMillis(), slide.toMillis());
+			return source.publish(shared -> Flux.merge(
+					shared.doOnNext(value -> {
+						synchronized (state) {
+							state.add(value.doubleValue(), scheduler.now(TimeUnit.MILLISECONDS));
+						}
+					}).thenMany(Flux.<WindowStats>empty()),
+					Flux.interval(slide, slide, scheduler)
+							.map(tick -> {
+								synchronized (state) {
+									return state.snapshot(scheduler.now(TimeUnit.MILLISECONDS));
+								}
+							})
+							.filter(stats -> stats.count() > 0)
+							.takeUntilOther(shared.then(Mono.just(true)))));
+		});
+	}
+}
@@ -1,16 +1,25 @@
 package com.reactiveprogramming.reactive_api.utils;
 
 import java.time.Duration;
-import java.util.List;
 
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
 import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
 public class TemperatureMovingAverage {
 
 	// Wrap the sensor's callback-based API into a Flux using Flux.create
 	public static Flux<Double> createTemperatureFlux(TemperatureSensor sensor) {
-		return Flux.create(sink -> {
-			sensor.start(new TemperatureSensor.TemperatureListener() {
+		return createTemperatureFlux(sensor, 256, BufferOverflowStrategy.DROP_OLDEST);
+	}
+
+	// Same, but a subscriber that falls more than bufferSize readings behind loses readings
+	// according to overflow instead of growing an unbounded queue. Cancelling stops the sensor.
+	public static Flux<Double> createTemperatureFlux(TemperatureSensor sensor, int bufferSize,
+			BufferOverflowStrategy overflow) {
+		return Flux.<Double>create(sink -> {
+			Disposable readings = sensor.start(new TemperatureSensor.TemperatureListener() {
 				@Override
 				public void onTemperature(double temperature) {
 					// Use the sink to push new temperature readings into the Flux
@@ -23,7 +32,17 @@ public class TemperatureMovingAverage {
 					sink.error(t);
 				}
 			});
-		});
+			sink.onDispose(readings);
+		}).onBackpressureBuffer(bufferSize, dropped -> {
+		}, overflow);
+	}
+
+	// A whole fleet sampled from one shared tick: primitive batches, no thread or boxed value per sensor
+	public static Flux<SensorMultiplexer.SensorBatch> createFleetFlux(SensorMultiplexer multiplexer, int sensors) {
+		for (int i = 0; i < sensors; i++) {
+			multiplexer.register(new TemperatureSensor()::read);
+		}
+		return multiplexer.readings(64, BufferOverflowStrategy.DROP_OLDEST);
 	}
 
 	public static void main(String[] args) {
@@ -31,15 +50,26 @@ public class TemperatureMovingAverage {
 		Flux<Double> temperatureFlux = createTemperatureFlux(sensor);
 
 		// Option 1: Non-overlapping window every 5 minutes
-		temperatureFlux.buffer(Duration.ofMinutes(5)).map(TemperatureMovingAverage::calculateAverage)
-				.subscribe(avg -> System.out.println("5-minute average (non-overlapping): " + avg));
+		// (a window that slides by its own length is a tumbling window)
+		temperatureFlux.transform(SlidingWindowAggregator.slidingWindow(Duration.ofMinutes(5), Duration.ofMinutes(5)))
+				.subscribe(stats -> System.out.println("5-minute average (non-overlapping): " + stats.mean()));
 
 		// Option 2: Sliding window moving average
 		// This will update the average every 30 seconds with the last 5 minutes of
 		// data.
-		temperatureFlux.buffer(Duration.ofMinutes(5), Duration.ofSeconds(30))
-				.map(TemperatureMovingAverage::calculateAverage)
-				.subscribe(avg -> System.out.println("Sliding 5-minute average (updated every 30 sec): " + avg));
+		temperatureFlux.transform(SlidingWindowAggregator.slidingWindow(Duration.ofMinutes(5), Duration.ofSeconds(30)))
+				.subscribe(stats -> System.out.println("Sliding 5-minute average (updated every 30 sec): " + stats.mean()));
+
+		// Option 3: 100,000 sensors multiplexed onto the parallel scheduler, averaged per tick
+		SensorMultiplexer multiplexer = new SensorMultiplexer(Schedulers.parallel(), Duration.ofSeconds(1), 4096,
+				Schedulers.DEFAULT_POOL_SIZE);
+		createFleetFlux(multiplexer, 100_000).subscribe(batch -> {
+			double sum = 0;
+			for (int i = 0; i < batch.size(); i++) {
+				sum += batch.values()[i];
+			}
+			System.out.println("Fleet batch of " + batch.size() + " readings, average " + sum / batch.size());
+		});
 
 		// Keep the application running (for demonstration purposes, 10 minutes here)
 		try {
@@ -48,13 +78,4 @@ public class TemperatureMovingAverage {
 			Thread.currentThread().interrupt();
 		}
 	}
-
-	// Utility method to calculate the average from a list of Double values.
-	private static double calculateAverage(List<Double> temperatures) {
-		if (temperatures.isEmpty()) {
-			return 0;
-		}
-		double sum = temperatures.stream().mapToDouble(Double::doubleValue).sum();
-		return sum / temperatures.size();
-	}
 }
@@ -1,29 +1,47 @@
 package com.reactiveprogramming.reactive_api.utils;
 
-import java.util.Random;
-import java.util.concurrent.Executors;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
 public class TemperatureSensor {
 
-    private final Random random = new Random();
+    private final Scheduler scheduler;
+
+    private final Duration period;
 
     public interface TemperatureListener {
         void onTemperature(double temperature);
         void onError(Throwable t);
     }
 
-    // Simulate starting the sensor and sending temperature updates
-    public void start(TemperatureListener listener) {
-        Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(() -> {
+    // Readings are driven by a shared scheduler, so a sensor costs a scheduled task rather than a thread
+    public TemperatureSensor() {
+        this(Schedulers.parallel(), Duration.ofSeconds(1));
+    }
+
+    public TemperatureSensor(Scheduler scheduler, Duration period) {
+        this.scheduler = scheduler;
+        this.period = period;
+    }
+
+    // Simulate reading a temperature value between 20 and 30 degrees
+    public double read() {
+        return 20 + ThreadLocalRandom.current().nextDouble() * 10;
+    }
+
+    // Simulate starting the sensor and sending temperature updates until the returned Disposable is disposed
+    public Disposable start(TemperatureListener listener) {
+        return scheduler.schedulePeriodically(() -> {
             try {
-                // Simulate reading a temperature value between 20 and 30 degrees
-                double temperature = 20 + random.nextDouble() * 10;
-                listener.onTemperature(temperature);
+                listener.onTemperature(read());
             } catch (Exception e) {
                 listener.onError(e);
             }
-        }, 0, 1, TimeUnit.SECONDS);
+        }, 0, period.toNanos(), TimeUnit.NANOSECONDS);
     }
 }
-
@@ -0,0 +1,13 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+/**
+ * Statistics of one sliding window at {@code timestampMillis}. Mean, min, max
+ * and variance are NaN for an empty window; the EWMA carries over.
+ */
+public record WindowStats(long count, double mean, double min, double max, double variance, double ewma,
+		long timestampMillis) {
+
+	public double standardDeviation() {
+		return Math.sqrt(variance);
+	}
+}
@@ -0,0 +1,78 @@
+#!/usr/bin/env bash
+#
+# Startup benchmark for ReactiveApiApplication: launches the extracted jar from the fast-startup build
+# (mvn -Pfast-startup package) several times per mode and reports time-to-first-request (launch until the
+# first 200 from /hello) and resident set size right after that request, as medians.
+#
+# Usage: src/startup/startup-benchmark.sh [runs=5] [modes="default aot cds lazy fast-startup"]
+#   default       plain java -jar
+#   aot           -Dspring.aot.enabled=true (precomputed bean definitions)
+#   cds           -XX:SharedArchiveFile (classes from the AppCDS archive)
+#   lazy          -Dspring.main.lazy-initialization=true
+#   fast-startup  all three
+#
+# Environment: JAVA (java on the PATH), PORT (18090), APP_ARGS (extra application arguments).
+# Results also go to target/fast-startup/startup-report.json. RSS is read from /proc, so it is Linux only.
+set -euo pipefail
+
+# The archive records the classpath of the training run as it was given, so launch the same way from the same place
+cd "$(dirname "$0")/../../target/fast-startup" 2>/dev/null || true
+jar=$(ls ./*.jar 2>/dev/null | head -n 1 || true)
+if [[ -z "$jar" || ! -f application.jsa ]]; then
+	echo "No fast-startup build in target/fast-startup; run: mvn -Pfast-startup package" >&2
+	exit 1
+fi
+jar=${jar#./}
+
+runs=${1:-5}
+modes=${2:-"default aot cds lazy fast-startup"}
+java=${JAVA:-java}
+port=${PORT:-18090}
+
+flags() {
+	case "$1" in
+		default) echo "" ;;
+		aot) echo "-Dspring.aot.enabled=true" ;;
+		cds) echo "-XX:SharedArchiveFile=application.jsa" ;;
+		lazy) echo "-Dspring.main.lazy-initialization=true" ;;
+		fast-startup) echo "-XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true -Dspring.main.lazy-initialization=true" ;;
+		*) echo "Unknown mode: $1" >&2; exit 1 ;;
+	esac
+}
+
+median() {
+	sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+# One launch; prints "<ttfr millis> <rss KB>"
+measure() {
+	local start pid ttfr rss
+	start=$(date +%s%N)
+	# shellcheck disable=SC2046
+	"$java" $(flags "$1") -jar "$jar" --server.port="$port" --files.root=. --logging.level.root=WARN \
+		${APP_ARGS:-} >"startup-$1.log" 2>&1 &
+	pid=$!
+	until curl -sf -o /dev/null "http://localhost:$port/hello"; do
+		if ! kill -0 "$pid" 2>/dev/null; then
+			echo "Application exited during startup; see target/fast-startup/startup-$1.log" >&2
+			exit 1
+		fi
+		sleep 0.005
+	done
+	ttfr=$((($(date +%s%N) - start) / 1000000))
+	rss=$(awk '/^VmRSS:/ { print $2 }' "/proc/$pid/status")
+	kill "$pid"
+	wait "$pid" 2>/dev/null || true
+	echo "$ttfr $rss"
+}
+
+printf '%-14s %10s %10s\n' mode ttfr-ms rss-MB
+json=""
+for mode in $modes; do
+	samples=$(for ((i = 0; i < runs; i++)); do measure "$mode"; done)
+	ttfr=$(cut -d' ' -f1 <<<"$samples" | median)
+	rss=$(($(cut -d' ' -f2 <<<"$samples" | median) / 1024))
+	printf '%-14s %10d %10d\n' "$mode" "$ttfr" "$rss"
+	json+="${json:+,}{\"mode\":\"$mode\",\"runs\":$runs,\"ttfrMillis\":$ttfr,\"rssMegabytes\":$rss}"
+done
+echo "[$json]" >startup-report.json
@@ -0,0 +1,171 @@
+package com.reactiveprogramming.reactive_api.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.reactiveprogramming.reactive_api.client.BulkUploader.UploadProgress;
+import com.reactiveprogramming.reactive_api.metrics.MetricsRegistry;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+class BulkUploaderTests {
+
+	// What the stub saw: one entry per request
+	private final Queue<String> contentTypes = new ConcurrentLinkedQueue<>();
+
+	private final Queue<String> bodies = new ConcurrentLinkedQueue<>();
+
+	private final Map<String, List<Long>> attemptNanos = new ConcurrentHashMap<>();
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+
+	private DisposableServer server;
+
+	@AfterEach
+	void stopStub() {
+		if (server != null) {
+			server.disposeNow();
+		}
+	}
+
+	@Test
+	void singleLinesArePostedAsJsonWithBoundedConcurrency() {
+		BulkUploader uploader = uploader(Duration.ofMillis(20), body -> HttpResponseStatus.CREATED, 0,
+				Duration.ofSeconds(10));
+
+		UploadProgress last = uploader.upload(Flux.fromIterable(lines(20)), 1, 4).blockLast();
+
+		assertThat(last).isEqualTo(new UploadProgress(20, 20, 0, 0, last.linesPerSecond(), last.p50Millis(),
+				last.p99Millis(), true));
+		assertThat(bodies).containsExactlyInAnyOrderElementsOf(lines(20));
+		assertThat(contentTypes).hasSize(20).allMatch(type -> type.equals(MediaType.APPLICATION_JSON_VALUE));
+		assertThat(maxInFlight.get()).isBetween(2, 4);
+	}
+
+	@Test
+	void batchesArePostedAsNewlineDelimitedJson() {
+		BulkUploader uploader = uploader(Duration.ZERO, body -> HttpResponseStatus.CREATED, 0, Duration.ofSeconds(10));
+
+		UploadProgress last = uploader.upload(Flux.fromIterable(lines(10)), 4, 2).blockLast();
+
+		assertThat(last.linesSent()).isEqualTo(10);
+		assertThat(last.requestsSucceeded()).isEqualTo(3);
+		assertThat(bodies).containsExactlyInAnyOrder(String.join("\n", lines(10).subList(0, 4)),
+				String.join("\n", lines(10).subList(4, 8)), String.join("\n", lines(10).subList(8, 10)));
+		assertThat(contentTypes).hasSize(3).allMatch(type -> type.equals(MediaType.APPLICATION_NDJSON_VALUE));
+	}
+
+	@Test
+	void serverErrorsAreRetriedWithBackoff() {
+		AtomicInteger attempts = new AtomicInteger();
+		BulkUploader uploader = uploader(Duration.ZERO,
+				body -> attempts.incrementAndGet() <= 2 ? HttpResponseStatus.SERVICE_UNAVAILABLE
+						: HttpResponseStatus.CREATED,
+				3, Duration.ofMillis(50));
+
+		UploadProgress last = uploader.upload(Flux.just("{\"id\":1}"), 1, 1).blockLast();
+
+		assertThat(last.requestsSucceeded()).isEqualTo(1);
+		assertThat(last.requestsFailed()).isZero();
+		assertThat(last.retries()).isEqualTo(2);
+		// Backoff doubles from 50ms, with up to half of it taken off as jitter
+		List<Long> times = attemptNanos.get("{\"id\":1}");
+		assertThat(times).hasSize(3);
+		assertThat(Duration.ofNanos(times.get(1) - times.get(0))).isGreaterThanOrEqualTo(Duration.ofMillis(25));
+		assertThat(Duration.ofNanos(times.get(2) - times.get(1))).isGreaterThanOrEqualTo(Duration.ofMillis(50));
+	}
+
+	@Test
+	void requestsThatStillFailAreCountedAndTheUploadGoesOn() {
+		BulkUploader uploader = uploader(Duration.ZERO, body -> switch (body) {
+			case "\"always-500\"" -> HttpResponseStatus.INTERNAL_SERVER_ERROR;
+			case "\"rejected\"" -> HttpResponseStatus.BAD_REQUEST;
+			default -> HttpResponseStatus.CREATED;
+		}, 2, Duration.ofMillis(5));
+
+		UploadProgress last = uploader
+				.upload(Flux.just("\"a\"", "\"always-500\"", "\"rejected\"", "\"b\""), 1, 1)
+				.blockLast();
+
+		assertThat(last.requestsSucceeded()).isEqualTo(2);
+		assertThat(last.requestsFailed()).isEqualTo(2);
+		assertThat(last.linesSent()).isEqualTo(2);
+		assertThat(last.retries()).isEqualTo(2);
+		// Only 5xx is retried
+		assertThat(attemptNanos.get("\"always-500\"")).hasSize(3);
+		assertThat(attemptNanos.get("\"rejected\"")).hasSize(1);
+		assertThat(attemptNanos.get("\"b\"")).hasSize(1);
+	}
+
+	@Test
+	void progressIsReportedWhileUploadingAndOnceAtTheEnd() {
+		BulkUploader uploader = uploader(Duration.ofMillis(30), body -> HttpResponseStatus.CREATED, 0,
+				Duration.ofMillis(10), Duration.ofMillis(20));
+
+		List<UploadProgress> reports = uploader.upload(Flux.fromIterable(lines(10)), 1, 1).collectList().block();
+
+		assertThat(reports.size()).isGreaterThan(2);
+		List<UploadProgress> ticks = reports.subList(0, reports.size() - 1);
+		assertThat(ticks).noneMatch(UploadProgress::done);
+		assertThat(ticks).extracting(UploadProgress::linesSent).isSorted().allMatch(sent -> sent < 10);
+		UploadProgress last = reports.get(reports.size() - 1);
+		assertThat(last.done()).isTrue();
+		assertThat(last.linesSent()).isEqualTo(10);
+		assertThat(last.p50Millis()).isGreaterThanOrEqualTo(30);
+	}
+
+	private BulkUploader uploader(Duration latency, Function<String, HttpResponseStatus> respond, int maxRetries,
+			Duration retryBackoff) {
+		return uploader(latency, respond, maxRetries, retryBackoff, Duration.ofSeconds(10));
+	}
+
+	/** Starts a stub that answers every POST after {@code latency} with the status {@code respond} picks for its body. */
+	private BulkUploader uploader(Duration latency, Function<String, HttpResponseStatus> respond, int maxRetries,
+			Duration retryBackoff, Duration progressInterval) {
+		server = HttpServer.create()
+				.host("127.0.0.1")
+				.port(0)
+				.route(routes -> routes.post("/posts", (request, response) -> {
+					int current = inFlight.incrementAndGet();
+					maxInFlight.accumulateAndGet(current, Math::max);
+					contentTypes.add(request.requestHeaders().get(HttpHeaders.CONTENT_TYPE));
+					return request.receive().aggregate().asString().flatMap(body -> {
+						attemptNanos.computeIfAbsent(body, key -> new CopyOnWriteArrayList<>()).add(System.nanoTime());
+						HttpResponseStatus status = respond.apply(body);
+						if (status == HttpResponseStatus.CREATED) {
+							bodies.add(body);
+						}
+						return Mono.delay(latency).then(response.status(status).send().then());
+					}).doFinally(signal -> inFlight.decrementAndGet());
+				}))
+				.bindNow();
+		return new BulkUploader(WebClient.create("http://127.0.0.1:" + server.port()), new MetricsRegistry(), "/posts",
+				maxRetries, retryBackoff, progressInterval);
+	}
+
+	private static List<String> lines(int count) {
+		return IntStream.range(0, count).mapToObj(i -> "{\"id\":" + i + "}").toList();
+	}
+}
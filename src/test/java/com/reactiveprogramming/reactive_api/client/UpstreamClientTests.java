@@ -0,0 +1,119 @@
+package com.reactiveprogramming.reactive_api.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactiveprogramming.reactive_api.metrics.MetricsRegistry;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.test.StepVerifier;
+
+class UpstreamClientTests {
+
+	// Each element weighs 2 bytes per character, so 20 of them fill the cache entry limit below
+	private static final List<String> SMALL = elements(5);
+
+	private static final List<String> LARGE = elements(200);
+
+	private static final long MAX_ENTRY_BYTES = 20 * 2 * SMALL.get(0).length();
+
+	private final LongAdder gets = new LongAdder();
+
+	private final AtomicReference<SignalType> largeResponseEnd = new AtomicReference<>();
+
+	private DisposableServer server;
+
+	private UpstreamClient client;
+
+	@BeforeEach
+	void startStub() {
+		server = HttpServer.create()
+				.host("127.0.0.1")
+				.port(0)
+				.route(routes -> routes
+						.get("/small", (request, response) -> {
+							gets.increment();
+							return response.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+									.sendString(Flux.just(array(SMALL)));
+						})
+						// One element per chunk, so the client sees the array arrive piecemeal
+						.get("/large", (request, response) -> {
+							gets.increment();
+							Flux<String> chunks = Flux.range(0, LARGE.size())
+									.map(i -> (i == 0 ? "[" : ",") + LARGE.get(i))
+									.concatWith(Flux.just("]"))
+									.delayElements(Duration.ofMillis(1))
+									.doFinally(largeResponseEnd::set);
+							return response.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+									.sendString(chunks, StandardCharsets.UTF_8);
+						}))
+				.bindNow();
+		client = new UpstreamClient(WebClient.create("http://127.0.0.1:" + server.port()), new ObjectMapper(),
+				new MetricsRegistry(), 4096, 1 << 20, MAX_ENTRY_BYTES, Duration.ofMinutes(1), Duration.ZERO);
+	}
+
+	@AfterEach
+	void stopStub() {
+		server.disposeNow();
+	}
+
+	@Test
+	void smallArraysAreFetchedOnceAndServedFromTheCache() {
+		StepVerifier.create(client.get("/small").collectList()).expectNext(SMALL).verifyComplete();
+		StepVerifier.create(client.get("/small").collectList()).expectNext(SMALL).verifyComplete();
+
+		assertThat(gets.sum()).isEqualTo(1);
+	}
+
+	@Test
+	void theCallThatFindsAnArrayTooLargeToCacheGetsTheWholeOfTheSameResponse() {
+		StepVerifier.create(client.get("/large").collectList()).expectNext(LARGE).verifyComplete();
+		assertThat(gets.sum()).isEqualTo(1);
+
+		// Later calls know not to try caching, and stream straight away
+		StepVerifier.create(client.get("/large").collectList()).expectNext(LARGE).verifyComplete();
+		assertThat(gets.sum()).isEqualTo(2);
+	}
+
+	@Test
+	void cancellingTheCallReleasesTheHandedOverResponse() {
+		int past = (int) (MAX_ENTRY_BYTES / (2 * LARGE.get(0).length())) + 5;
+
+		StepVerifier.create(client.get("/large").take(past)).expectNextSequence(LARGE.subList(0, past))
+				.verifyComplete();
+
+		StepVerifier.create(Flux.interval(Duration.ofMillis(10)).takeUntil(tick -> largeResponseEnd.get() != null))
+				.thenConsumeWhile(tick -> true)
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+		assertThat(largeResponseEnd).hasValue(SignalType.CANCEL);
+		assertThat(gets.sum()).isEqualTo(1);
+	}
+
+	private static List<String> elements(int count) {
+		return IntStream.range(0, count)
+				.mapToObj(i -> String.format("{\"id\":%03d,\"body\":\"%s\"}", i, "x".repeat(40)))
+				.toList();
+	}
+
+	private static String array(List<String> elements) {
+		return "[" + String.join(",", elements) + "]";
+	}
+}
@@ -0,0 +1,80 @@
+package com.reactiveprogramming.reactive_api.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+
+class ContentEncodingTests {
+
+	private final ContentEncoding encoding = new ContentEncoding(true, 1024,
+			List.of(MediaType.parseMediaType("video/*"), MediaType.parseMediaType("application/gzip")), null, null);
+
+	@Test
+	void gzipIsAcceptedWhenListedWithANonZeroQuality() {
+		assertThat(ContentEncoding.acceptsGzip(List.of("gzip"))).isTrue();
+		assertThat(ContentEncoding.acceptsGzip(List.of("deflate, GZIP;q=0.5"))).isTrue();
+		assertThat(ContentEncoding.acceptsGzip(List.of("x-gzip"))).isTrue();
+		assertThat(ContentEncoding.acceptsGzip(List.of("deflate", "gzip"))).isTrue();
+
+		assertThat(ContentEncoding.acceptsGzip(null)).isFalse();
+		assertThat(ContentEncoding.acceptsGzip(List.of("identity"))).isFalse();
+		assertThat(ContentEncoding.acceptsGzip(List.of("gzip;q=0"))).isFalse();
+		assertThat(ContentEncoding.acceptsGzip(List.of("gzip; q=0.000"))).isFalse();
+	}
+
+	@Test
+	void aWildcardCoversGzipUnlessGzipIsListedItself() {
+		assertThat(ContentEncoding.acceptsGzip(List.of("deflate, *"))).isTrue();
+		assertThat(ContentEncoding.acceptsGzip(List.of("*;q=0"))).isFalse();
+
+		assertThat(ContentEncoding.acceptsGzip(List.of("*, gzip;q=0"))).isFalse();
+		assertThat(ContentEncoding.acceptsGzip(List.of("gzip;q=0, *"))).isFalse();
+		assertThat(ContentEncoding.acceptsGzip(List.of("*;q=0, gzip"))).isTrue();
+	}
+
+	@Test
+	void eligibleBodiesVaryOnAcceptEncodingWhetherOrNotTheClientTakesGzip() {
+		MockServerHttpResponse gzipped = new MockServerHttpResponse();
+		assertThat(encoding.negotiate(request("gzip"), gzipped, MediaType.TEXT_PLAIN, 4096)).isTrue();
+		assertThat(gzipped.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+
+		MockServerHttpResponse identity = new MockServerHttpResponse();
+		assertThat(encoding.negotiate(request(null), identity, MediaType.TEXT_PLAIN, 4096)).isFalse();
+		assertThat(identity.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+	}
+
+	@Test
+	void skippedTypesSmallBodiesAndADisabledEncodingAreNeverGzippedNorVary() {
+		MockServerHttpResponse video = new MockServerHttpResponse();
+		assertThat(encoding.negotiate(request("gzip"), video, MediaType.parseMediaType("video/mp4"), 4096)).isFalse();
+		assertThat(video.getHeaders().getVary()).isEmpty();
+
+		MockServerHttpResponse archive = new MockServerHttpResponse();
+		assertThat(encoding.negotiate(request("gzip"), archive, MediaType.parseMediaType("application/gzip"), 4096))
+				.isFalse();
+		assertThat(archive.getHeaders().getVary()).isEmpty();
+
+		MockServerHttpResponse small = new MockServerHttpResponse();
+		assertThat(encoding.negotiate(request("gzip"), small, MediaType.TEXT_PLAIN, 1023)).isFalse();
+		assertThat(small.getHeaders().getVary()).isEmpty();
+
+		ContentEncoding disabled = new ContentEncoding(false, 0, List.of(), null, null);
+		MockServerHttpResponse off = new MockServerHttpResponse();
+		assertThat(disabled.negotiate(request("gzip"), off, MediaType.TEXT_PLAIN, 4096)).isFalse();
+		assertThat(off.getHeaders().getVary()).isEmpty();
+	}
+
+	private static MockServerHttpRequest request(String acceptEncoding) {
+		MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/file");
+		if (acceptEncoding != null) {
+			request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+		}
+		return request.build();
+	}
+}
@@ -0,0 +1,159 @@
+package com.reactiveprogramming.reactive_api.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.reactiveprogramming.reactive_api.metrics.MetricsRegistry;
+
+import io.netty.buffer.UnpooledByteBufAllocator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class SseCoalescingFilterTests {
+
+	private final NettyDataBufferFactory buffers = new NettyDataBufferFactory(UnpooledByteBufAllocator.DEFAULT);
+
+	private final List<DataBuffer> created = new CopyOnWriteArrayList<>();
+
+	private final MetricsRegistry registry = new MetricsRegistry();
+
+	@Test
+	void framesCloseAtMaxEvents() {
+		SseCoalescingFilter filter = new SseCoalescingFilter(true, Duration.ofSeconds(5), 1 << 20, 4, registry);
+
+		List<List<String>> frames = send(filter, Flux.range(0, 10).map(this::event), Function.identity());
+
+		assertThat(frames).extracting(List::size).containsExactly(4, 4, 2);
+		assertCounters(10, 3);
+	}
+
+	@Test
+	void framesCloseOnceTheyHoldMaxBytes() {
+		// Every event is 10 bytes, so the third takes a frame to 25 bytes or more
+		SseCoalescingFilter filter = new SseCoalescingFilter(true, Duration.ofSeconds(5), 25, 100, registry);
+
+		List<List<String>> frames = send(filter, Flux.range(0, 10).map(this::event), Function.identity());
+
+		assertThat(frames).extracting(List::size).containsExactly(3, 3, 3, 1);
+		assertThat(frames.get(0)).containsExactly(text(0), text(1), text(2));
+		assertCounters(10, 4);
+	}
+
+	@Test
+	void aFullFrameDoesNotWaitForMaxDelay() {
+		SseCoalescingFilter filter = new SseCoalescingFilter(true, Duration.ofSeconds(1), 25, 100, registry);
+		Flux<DataBuffer> events = Flux.range(0, 3).map(this::event).concatWith(Mono.delay(Duration.ofSeconds(2))
+				.then(Mono.empty()));
+		AtomicLong firstFrameAt = new AtomicLong();
+
+		long start = System.nanoTime();
+		List<List<String>> frames = send(filter, events,
+				written -> written.doOnNext(frame -> firstFrameAt.compareAndSet(0, System.nanoTime())));
+
+		assertThat(frames).extracting(List::size).containsExactly(3);
+		assertThat(Duration.ofNanos(firstFrameAt.get() - start)).isLessThan(Duration.ofMillis(500));
+	}
+
+	@Test
+	void framesCloseAfterMaxDelay() {
+		SseCoalescingFilter filter = new SseCoalescingFilter(true, Duration.ofMillis(50), 1 << 20, 100, registry);
+		Flux<DataBuffer> events = Flux.concat(Flux.range(0, 3).map(this::event),
+				Mono.delay(Duration.ofMillis(500)).thenMany(Flux.range(3, 2).map(this::event)));
+
+		List<List<String>> frames = send(filter, events, Function.identity());
+
+		assertThat(frames).extracting(List::size).containsExactly(3, 2);
+		assertCounters(5, 2);
+	}
+
+	@Test
+	void withCoalescingOffEveryEventIsAFlush() {
+		SseCoalescingFilter filter = new SseCoalescingFilter(false, Duration.ofMillis(50), 1 << 20, 100, registry);
+
+		List<List<String>> frames = send(filter, Flux.range(0, 6).map(this::event), Function.identity());
+
+		assertThat(frames).hasSize(6).allSatisfy(frame -> assertThat(frame).hasSize(1));
+		assertCounters(6, 6);
+	}
+
+	@Test
+	void eventsLeftBehindByACancelledResponseAreReleased() {
+		SseCoalescingFilter filter = new SseCoalescingFilter(true, Duration.ofSeconds(5), 25, 100, registry);
+
+		List<List<String>> frames = send(filter, Flux.range(0, 50).map(this::event), written -> written.take(1));
+
+		assertThat(frames).hasSize(1);
+		assertThat(created).isNotEmpty()
+				.allSatisfy(buffer -> assertThat(DataBufferUtils.release(buffer)).as("still held").isFalse());
+	}
+
+	/**
+	 * Writes {@code events} through the filter as Spring's SSE writer would, one
+	 * flushed publisher per event, and returns the frames the response received.
+	 * {@code consume} can cut the response short.
+	 */
+	private List<List<String>> send(SseCoalescingFilter filter, Flux<DataBuffer> events,
+			Function<Flux<List<String>>, Flux<List<String>>> consume) {
+		MockServerWebExchange original = MockServerWebExchange.from(MockServerHttpRequest.get("/ticker"));
+		original.getAttributes().put(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE,
+				PathPatternParser.defaultInstance.parse("/ticker"));
+		original.getResponse().getHeaders().setContentType(MediaType.TEXT_EVENT_STREAM);
+		List<List<String>> frames = new CopyOnWriteArrayList<>();
+		ServerWebExchange exchange = original.mutate().response(new ServerHttpResponseDecorator(original.getResponse()) {
+
+			@Override
+			public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+				Flux<List<String>> written = Flux.from(body)
+						.concatMap(frame -> Flux.from(frame).map(SseCoalescingFilterTests::readAndRelease).collectList());
+				return consume.apply(written).doOnNext(frames::add).then();
+			}
+		}).build();
+
+		filter.filter(exchange, ex -> ex.getResponse().writeAndFlushWith(events.map(Mono::just)))
+				.block(Duration.ofSeconds(5));
+		return frames;
+	}
+
+	private void assertCounters(long events, long flushes) {
+		assertThat(registry.counter("sse.ticker.events").sum()).isEqualTo(events);
+		assertThat(registry.counter("sse.ticker.flushes").sum()).isEqualTo(flushes);
+		assertThat(registry.snapshot("sse.ticker.events-per-flush"))
+				.containsEntry("sse.ticker.events-per-flush", (double) events / flushes);
+	}
+
+	private DataBuffer event(int i) {
+		DataBuffer buffer = buffers.wrap(text(i).getBytes(StandardCharsets.UTF_8));
+		created.add(buffer);
+		return buffer;
+	}
+
+	// 10 bytes each
+	private static String text(int i) {
+		return String.format("data:%03d\n\n", i);
+	}
+
+	private static String readAndRelease(DataBuffer buffer) {
+		String text = buffer.toString(StandardCharsets.UTF_8);
+		DataBufferUtils.release(buffer);
+		return text;
+	}
+}
@@ -0,0 +1,100 @@
+package com.reactiveprogramming.reactive_api.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+class VideoStreamingControllerTests {
+
+	// 1000 bytes, each position readable from the content
+	private static final String CONTENT = "0123456789".repeat(100);
+
+	@TempDir
+	Path tempDir;
+
+	private WebTestClient client;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		Path media = Files.createDirectories(tempDir.resolve("media"));
+		Files.writeString(media.resolve("clip.mp4"), CONTENT);
+		Files.writeString(tempDir.resolve("secret.txt"), "not media");
+		ContentEncoding identityOnly = new ContentEncoding(false, 0, List.of(), null, null);
+		client = WebTestClient
+				.bindToController(new VideoStreamingController(media.toString(), 128, false, null, identityOnly))
+				.build();
+	}
+
+	@Test
+	void aSingleRangeIsAPartialResponse() {
+		client.get().uri("/video?name=clip.mp4").header(HttpHeaders.RANGE, "bytes=100-149").exchange()
+				.expectStatus().isEqualTo(HttpStatus.PARTIAL_CONTENT)
+				.expectHeader().contentType("video/mp4")
+				.expectHeader().contentLength(50)
+				.expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes 100-149/1000")
+				.expectBody(String.class).isEqualTo(CONTENT.substring(100, 150));
+	}
+
+	@Test
+	void severalRangesAreFramedAsMultipartByteranges() {
+		EntityExchangeResult<byte[]> result = client.get().uri("/video?name=clip.mp4")
+				.header(HttpHeaders.RANGE, "bytes=0-9,500-504")
+				.exchange()
+				.expectStatus().isEqualTo(HttpStatus.PARTIAL_CONTENT)
+				.expectBody()
+				.returnResult();
+
+		MediaType contentType = result.getResponseHeaders().getContentType();
+		assertThat(contentType.toString()).startsWith("multipart/byteranges");
+		String boundary = contentType.getParameter("boundary");
+		byte[] body = result.getResponseBody();
+		assertThat(result.getResponseHeaders().getContentLength()).isEqualTo(body.length);
+		assertThat(new String(body, StandardCharsets.US_ASCII)).isEqualTo("\r\n--" + boundary + "\r\n"
+				+ "Content-Type: video/mp4\r\n"
+				+ "Content-Range: bytes 0-9/1000\r\n\r\n"
+				+ CONTENT.substring(0, 10)
+				+ "\r\n--" + boundary + "\r\n"
+				+ "Content-Type: video/mp4\r\n"
+				+ "Content-Range: bytes 500-504/1000\r\n\r\n"
+				+ CONTENT.substring(500, 505)
+				+ "\r\n--" + boundary + "--");
+	}
+
+	@Test
+	void unsatisfiableRangesAre416WithTheFileSize() {
+		for (String range : List.of("bytes=1000-1010", "bytes=0-,0-,0-", "bytes=0-599,400-999")) {
+			client.get().uri("/video?name=clip.mp4").header(HttpHeaders.RANGE, range).exchange()
+					.expectStatus().isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+					.expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes */1000");
+		}
+	}
+
+	@Test
+	void namesOutsideTheMediaRootAreNotFound() {
+		client.get().uri(builder -> builder.path("/video").queryParam("name", "../secret.txt").build()).exchange()
+				.expectStatus().isNotFound();
+		client.get().uri("/video?name=missing.mp4").exchange().expectStatus().isNotFound();
+	}
+
+	@Test
+	void withoutARangeTheWholeFileIsServed() {
+		client.get().uri("/video?name=clip.mp4").exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentLength(1000)
+				.expectHeader().valueEquals(HttpHeaders.ACCEPT_RANGES, "bytes")
+				.expectBody(String.class).isEqualTo(CONTENT);
+	}
+}
@@ -0,0 +1,71 @@
+package com.reactiveprogramming.reactive_api.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import reactor.core.publisher.Mono;
+
+class HttpMetricsFilterTests {
+
+	private final MetricsRegistry registry = new MetricsRegistry();
+
+	private final WebTestClient client = WebTestClient.bindToController(new Endpoints())
+			.webFilter(new HttpMetricsFilter(registry))
+			.build();
+
+	@Test
+	void successfulRequestsAreCountedPerRoute() {
+		client.get().uri("/items/1").exchange().expectStatus().isOk().expectBody(String.class).isEqualTo("item 1");
+		client.get().uri("/items/2").exchange().expectStatus().isOk();
+
+		assertThat(registry.counter("http.items.{id}.requests").sum()).isEqualTo(2);
+		assertThat(registry.counter("http.items.{id}.server-errors").sum()).isZero();
+		assertThat(registry.counter("http.items.{id}.bytes").sum()).isEqualTo(12);
+		assertThat(registry.timer("http.items.{id}.latency").count()).isEqualTo(2);
+		assertThat(registry.snapshot("http.in-flight")).containsEntry("http.in-flight", 0);
+	}
+
+	@Test
+	void handlerErrorsCountAsServerErrorsUnlessTheyCarryAClientStatus() {
+		client.get().uri("/boom").exchange().expectStatus().isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+		client.get().uri("/unavailable").exchange().expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+		client.get().uri("/missing").exchange().expectStatus().isNotFound();
+
+		assertThat(registry.counter("http.boom.requests").sum()).isEqualTo(1);
+		assertThat(registry.counter("http.boom.server-errors").sum()).isEqualTo(1);
+		assertThat(registry.counter("http.unavailable.server-errors").sum()).isEqualTo(1);
+		assertThat(registry.counter("http.missing.requests").sum()).isEqualTo(1);
+		assertThat(registry.counter("http.missing.server-errors").sum()).isZero();
+	}
+
+	@RestController
+	static class Endpoints {
+
+		@GetMapping("/items/{id}")
+		Mono<String> item(@PathVariable String id) {
+			return Mono.just("item " + id);
+		}
+
+		@GetMapping("/boom")
+		Mono<String> boom() {
+			return Mono.error(new IllegalStateException("boom"));
+		}
+
+		@GetMapping("/unavailable")
+		Mono<String> unavailable() {
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE);
+		}
+
+		@GetMapping("/missing")
+		Mono<String> missing() {
+			return Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "no such thing"));
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package com.reactiveprogramming.reactive_api.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+class SchedulerMetricsTests {
+
+	@Test
+	void gaugesFollowTheExecutorsOfANamedScheduler() throws InterruptedException {
+		MetricsRegistry registry = new MetricsRegistry();
+		SchedulerMetrics.install();
+		SchedulerMetrics.bindTo(registry);
+		Scheduler scheduler = Schedulers.newParallel("metrics-test", 2);
+		try {
+			CountDownLatch release = new CountDownLatch(1);
+			CountDownLatch running = new CountDownLatch(1);
+			scheduler.schedule(() -> {
+				running.countDown();
+				awaitQuietly(release);
+			});
+			assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+			assertThat(registry.snapshot("scheduler.metrics-test."))
+					.containsEntry("scheduler.metrics-test.executors", 2L)
+					.containsEntry("scheduler.metrics-test.active", 1L);
+
+			release.countDown();
+			for (int i = 0; i < 10; i++) {
+				scheduler.schedule(() -> {
+				});
+			}
+			long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+			while (completed(registry) < 11 && System.nanoTime() < deadline) {
+				Thread.sleep(10);
+			}
+			assertThat(completed(registry)).isEqualTo(11);
+		} finally {
+			scheduler.dispose();
+		}
+
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (executors(registry) > 0 && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(executors(registry)).isZero();
+	}
+
+	@Test
+	void closingStopsMeasuringNewSchedulers() {
+		MetricsRegistry registry = new MetricsRegistry();
+		SchedulerMetrics.install().close();
+		SchedulerMetrics.bindTo(registry);
+		Scheduler scheduler = Schedulers.newParallel("metrics-closed", 1);
+		try {
+			scheduler.schedule(() -> {
+			});
+			assertThat(registry.snapshot("scheduler.metrics-closed.")).isEmpty();
+		} finally {
+			scheduler.dispose();
+		}
+	}
+
+	private static long completed(MetricsRegistry registry) {
+		return (Long) registry.snapshot().get("scheduler.metrics-test.completed");
+	}
+
+	private static long executors(MetricsRegistry registry) {
+		return (Long) registry.snapshot().get("scheduler.metrics-test.executors");
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.reactiveprogramming.reactive_api.metrics.MetricsRegistry;
+import com.reactiveprogramming.reactive_api.utils.AdaptiveBackpressure.Options;
+import com.reactiveprogramming.reactive_api.utils.AdaptiveBackpressure.Policy;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+class AdaptiveBackpressureTests {
+
+	private final MetricsRegistry metrics = new MetricsRegistry();
+
+	@Test
+	void bufferPolicyIsLosslessAndGrowsWhileTheConsumerKeepsUp() {
+		AdaptiveBackpressure<Integer> operator = new AdaptiveBackpressure<>("test",
+				new Options(Policy.BUFFER, 4, 8, 256, Duration.ofSeconds(10)), Schedulers.immediate(), metrics);
+
+		StepVerifier.create(Flux.range(1, 10_000).transform(operator))
+				.expectNextSequence(() -> Flux.range(1, 10_000).toIterable().iterator())
+				.verifyComplete();
+
+		assertThat(metrics.counter("test.dropped").sum()).isZero();
+		assertThat(operator.capacity()).isGreaterThan(8);
+	}
+
+	@Test
+	void dropPolicyCountsWhatItSheds() {
+		Sinks.Many<Integer> hot = Sinks.many().multicast().directBestEffort();
+		AdaptiveBackpressure<Integer> operator = new AdaptiveBackpressure<>("test",
+				new Options(Policy.DROP, 2, 2, 2, Duration.ofSeconds(10)), Schedulers.immediate(), metrics);
+
+		StepVerifier.create(hot.asFlux().transform(operator), 0)
+				.then(() -> {
+					for (int i = 1; i <= 5; i++) {
+						hot.tryEmitNext(i);
+					}
+				})
+				.thenRequest(5)
+				.expectNext(1, 2)
+				.then(hot::tryEmitComplete)
+				.verifyComplete();
+
+		assertThat(metrics.counter("test.dropped").sum()).isEqualTo(3);
+	}
+
+	@Test
+	void conflatePolicyKeepsTheLatestValue() {
+		Sinks.Many<Integer> hot = Sinks.many().multicast().directBestEffort();
+		AdaptiveBackpressure<Integer> operator = new AdaptiveBackpressure<>("test",
+				new Options(Policy.CONFLATE, 1, 1, 1, Duration.ofSeconds(10)), Schedulers.immediate(), metrics);
+
+		StepVerifier.create(hot.asFlux().transform(operator), 0)
+				.then(() -> {
+					for (int i = 1; i <= 5; i++) {
+						hot.tryEmitNext(i);
+					}
+				})
+				.thenRequest(5)
+				.expectNext(5)
+				.then(hot::tryEmitComplete)
+				.verifyComplete();
+
+		assertThat(metrics.counter("test.conflated").sum()).isEqualTo(4);
+	}
+}
@@ -0,0 +1,105 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+class AsyncFileWriterTests {
+
+	private static final int CALLERS = 16;
+
+	private static final int RECORDS = 500;
+
+	// "cc-rrrrrrrr\n"
+	private static final int RECORD_SIZE = 12;
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void concurrentAppendsAndPositionedWritesLandExactly() throws IOException {
+		// writeAt fills [0, head) in chunks while appends go after it
+		byte[] head = new byte[CALLERS * 64 * 1024];
+		new Random(3).nextBytes(head);
+		Path file = tempDir.resolve("out.bin");
+
+		try (AsynchronousFileChannel channel = AsynchronousFileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE)) {
+			AsyncFileWriter writer = new AsyncFileWriter(channel, head.length, 4096, 8);
+			Flux<Void> positioned = Flux.range(0, CALLERS).flatMap(caller -> Flux.range(0, 16)
+					.flatMap(chunk -> {
+						int offset = caller * 64 * 1024 + chunk * 4096;
+						return writer.writeAt(ByteBuffer.wrap(head, offset, 4096).slice(), offset);
+					}, 4)
+					.subscribeOn(Schedulers.parallel()));
+			Flux<Void> appends = Flux.range(0, CALLERS).flatMap(caller -> Flux.range(0, RECORDS)
+					.concatMap(i -> writer.write(ByteBuffer.wrap(record(caller, i))))
+					.subscribeOn(Schedulers.parallel()));
+			Flux<Long> coalesced = Flux.range(0, CALLERS).flatMap(caller -> writer
+					.writeAll(Flux.range(0, RECORDS).map(i -> ByteBuffer.wrap(record(CALLERS + caller, i))))
+					.subscribeOn(Schedulers.parallel()));
+
+			Flux.merge(positioned, appends, coalesced).blockLast(Duration.ofSeconds(30));
+			writer.flush().block(Duration.ofSeconds(5));
+			assertThat(writer.position()).isEqualTo(head.length + 2L * CALLERS * RECORDS * RECORD_SIZE);
+		}
+
+		byte[] content = Files.readAllBytes(file);
+		assertThat(content).hasSize(head.length + 2 * CALLERS * RECORDS * RECORD_SIZE);
+		assertThat(Arrays.copyOf(content, head.length)).isEqualTo(head);
+		// Callers interleave, but each caller's records land whole and in its own order
+		List<List<Integer>> seen = new ArrayList<>();
+		for (int caller = 0; caller < 2 * CALLERS; caller++) {
+			seen.add(new ArrayList<>());
+		}
+		String tail = new String(content, head.length, content.length - head.length, StandardCharsets.US_ASCII);
+		for (String line : tail.split("\n")) {
+			assertThat(line).matches("\\d{2}-\\d{8}");
+			seen.get(Integer.parseInt(line.substring(0, 2))).add(Integer.parseInt(line.substring(3)));
+		}
+		for (List<Integer> records : seen) {
+			assertThat(records).hasSize(RECORDS).isSorted();
+		}
+	}
+
+	@Test
+	void flushWaitsForWritesWhoseCallersCancelled() throws IOException {
+		byte[] data = new byte[256 * 1024];
+		new Random(5).nextBytes(data);
+		Path file = tempDir.resolve("cancelled.bin");
+
+		try (AsynchronousFileChannel channel = AsynchronousFileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE)) {
+			AsyncFileWriter writer = new AsyncFileWriter(channel);
+			for (int offset = 0; offset < data.length; offset += 4096) {
+				Disposable write = writer.writeAt(ByteBuffer.wrap(data, offset, 4096).slice(), offset).subscribe();
+				write.dispose();
+			}
+			writer.flush().block(Duration.ofSeconds(5));
+
+			assertThat(Files.readAllBytes(file)).isEqualTo(data);
+		}
+	}
+
+	private static byte[] record(int caller, int i) {
+		return String.format("%02d-%08d\n", caller, i).getBytes(StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,62 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+
+class BatchingSubscriberTests {
+
+	@Test
+	void deliversEveryItemInBatchesWithFarFewerRequests() {
+		List<Integer> received = new ArrayList<>();
+		List<Integer> batchSizes = new ArrayList<>();
+		boolean[] completed = new boolean[1];
+		BatchingSubscriber<Integer> subscriber = new BatchingSubscriber<>(8, 8, 8, Duration.ofSeconds(1)) {
+
+			@Override
+			protected void hookOnNextBatch(List<Integer> batch) {
+				received.addAll(batch);
+				batchSizes.add(batch.size());
+			}
+
+			@Override
+			protected void hookOnBatchesComplete() {
+				completed[0] = true;
+			}
+		};
+
+		Flux.range(1, 100).subscribe(subscriber);
+
+		assertThat(received).containsExactlyElementsOf(Flux.range(1, 100).toIterable());
+		assertThat(batchSizes).hasSize(13).allMatch(size -> size <= 8);
+		assertThat(completed[0]).isTrue();
+		BatchingSubscriber.DemandStats stats = subscriber.demandStats();
+		assertThat(stats.items()).isEqualTo(100);
+		assertThat(stats.requests()).isLessThan(20);
+	}
+
+	@Test
+	void shrinksBatchesWhenItemsAreSlowToProcess() {
+		BatchingSubscriber<Integer> subscriber = new BatchingSubscriber<>(1, 64, 64, Duration.ofMillis(5)) {
+
+			@Override
+			protected void hookOnNextBatch(List<Integer> batch) {
+				try {
+					Thread.sleep(batch.size());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+
+		Flux.range(1, 200).subscribe(subscriber);
+
+		assertThat(subscriber.demandStats().batchSize()).isLessThan(64);
+	}
+}
@@ -0,0 +1,41 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.reactiveprogramming.reactive_api.utils.BlockingSchedulers.Mode;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+class BlockingSchedulersTests {
+
+	@Test
+	void pipelinesCanOptOutOfTheDefaultMode() {
+		try (BlockingSchedulers schedulers = new BlockingSchedulers(Mode.AUTO,
+				Map.of("copy", Mode.BOUNDED_ELASTIC))) {
+			assertThat(schedulers.forPipeline("copy")).isSameAs(Schedulers.boundedElastic());
+			assertThat(schedulers.modeOf("copy")).isEqualTo(Mode.BOUNDED_ELASTIC);
+		}
+	}
+
+	@Test
+	void virtualModeUsesVirtualThreadsOrFallsBack() {
+		try (BlockingSchedulers schedulers = new BlockingSchedulers(Mode.VIRTUAL, Map.of())) {
+			String thread = Mono.fromCallable(() -> Thread.currentThread().getName())
+					.subscribeOn(schedulers.forPipeline("read-upload"))
+					.block();
+
+			if (BlockingSchedulers.virtualThreadsSupported()) {
+				assertThat(schedulers.modeOf("read-upload")).isEqualTo(Mode.VIRTUAL);
+				assertThat(thread).startsWith("blocking-virtual-");
+			} else {
+				assertThat(schedulers.modeOf("read-upload")).isEqualTo(Mode.BOUNDED_ELASTIC);
+				assertThat(thread).startsWith("boundedElastic-");
+			}
+		}
+	}
+}
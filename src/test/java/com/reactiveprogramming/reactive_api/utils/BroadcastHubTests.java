@@ -0,0 +1,101 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.reactiveprogramming.reactive_api.metrics.MetricsRegistry;
+import com.reactiveprogramming.reactive_api.utils.BroadcastHub.OverflowPolicy;
+
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+class BroadcastHubTests {
+
+	private final Sinks.Many<Integer> source = Sinks.many().multicast().onBackpressureBuffer();
+
+	private final MetricsRegistry metrics = new MetricsRegistry();
+
+	private final BroadcastHub<String, Integer> hub = new BroadcastHub<>("hub", topic -> source.asFlux(), 3,
+			metrics);
+
+	@Test
+	void lateJoinersStartFromTheReplayRing() {
+		hub.subscribe("t", OverflowPolicy.LATEST, 8).subscribe();
+		for (int i = 1; i <= 5; i++) {
+			source.tryEmitNext(i);
+		}
+
+		StepVerifier.create(hub.subscribe("t", OverflowPolicy.LATEST, 8))
+				.expectNext(3, 4, 5)
+				.then(() -> source.tryEmitNext(6))
+				.expectNext(6)
+				.then(source::tryEmitComplete)
+				.verifyComplete();
+	}
+
+	@Test
+	void slowSubscribersLoseTheirOldestEventsWithoutHoldingUpOthers() {
+		StepVerifier.create(hub.subscribe("t", OverflowPolicy.DROP_OLDEST, 2), 0)
+				.then(() -> {
+					hub.subscribe("t", OverflowPolicy.LATEST, 8).subscribe();
+					for (int i = 1; i <= 5; i++) {
+						source.tryEmitNext(i);
+					}
+				})
+				.thenRequest(10)
+				.expectNext(4, 5)
+				.then(() -> {
+					assertThat(metrics.counter("hub.t.published").sum()).isEqualTo(5);
+					assertThat(metrics.counter("hub.t.dropped").sum()).isEqualTo(3);
+				})
+				.then(source::tryEmitComplete)
+				.verifyComplete();
+	}
+
+	@Test
+	void disconnectPolicyFailsSubscribersThatFallBehind() {
+		Disposable keepUp = hub.subscribe("t", OverflowPolicy.LATEST, 8).subscribe();
+		StepVerifier.create(hub.subscribe("t", OverflowPolicy.DISCONNECT, 2), 0)
+				.then(() -> {
+					for (int i = 1; i <= 3; i++) {
+						source.tryEmitNext(i);
+					}
+				})
+				.verifyErrorMatches(Exceptions::isOverflow);
+
+		assertThat(metrics.counter("hub.t.disconnected").sum()).isEqualTo(1);
+		assertThat(hub.subscriberCount()).isEqualTo(1);
+		keepUp.dispose();
+		assertThat(hub.subscriberCount()).isZero();
+	}
+
+	@Test
+	void lastSubscriberLeavingClosesTheTopicAndCancelsItsUpstream() {
+		Sinks.Many<Integer> upstream = Sinks.many().multicast().directBestEffort();
+		BroadcastHub<String, Integer> topics = new BroadcastHub<>("hub", topic -> upstream.asFlux(), 3, metrics);
+
+		Disposable first = topics.subscribe("t", OverflowPolicy.LATEST, 8).subscribe();
+		Disposable second = topics.subscribe("t", OverflowPolicy.LATEST, 8).subscribe();
+		upstream.tryEmitNext(1);
+		assertThat(upstream.currentSubscriberCount()).isEqualTo(1);
+		assertThat(metrics.snapshot("hub.t.")).containsKeys("hub.t.published", "hub.t.subscribers");
+
+		first.dispose();
+		assertThat(topics.topicCount()).isEqualTo(1);
+		second.dispose();
+		assertThat(topics.topicCount()).isZero();
+		assertThat(upstream.currentSubscriberCount()).isZero();
+		assertThat(metrics.snapshot("hub.t.")).isEmpty();
+
+		// A new subscriber starts the topic again, without the old replay ring
+		StepVerifier.create(topics.subscribe("t", OverflowPolicy.LATEST, 8))
+				.then(() -> upstream.tryEmitNext(2))
+				.expectNext(2)
+				.thenCancel()
+				.verify();
+		assertThat(topics.topicCount()).isZero();
+	}
+}
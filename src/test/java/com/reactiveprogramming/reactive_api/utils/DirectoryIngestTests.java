@@ -0,0 +1,114 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DirectoryIngestTests {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void perFileOrderKeepsEachFilesLinesInOrder() throws IOException {
+		Path root = Files.createDirectories(tempDir.resolve("in"));
+		List<String> expected = new ArrayList<>();
+		for (int f = 0; f < 20; f++) {
+			Path dir = Files.createDirectories(root.resolve("d" + f % 3));
+			StringBuilder content = new StringBuilder();
+			for (int i = 0; i < 500; i++) {
+				content.append("f").append(f).append(' ').append(i).append('\n');
+				expected.add("f" + f + " " + i);
+			}
+			Files.writeString(dir.resolve("f" + f + ".txt"), content);
+		}
+		Path output = tempDir.resolve("out.txt");
+		DirectoryIngest ingest = new DirectoryIngest(4, 3, 50, 512, 100);
+
+		List<DirectoryIngest.FileResult> results;
+		try (LineSink sink = LineSink.open(output, 64, Duration.ofMillis(10), Duration.ZERO, false)) {
+			results = ingest.ingest(root, path -> true, (file, record) -> record,
+					DirectoryIngest.Ordering.PER_FILE, sink).collectList().block();
+		}
+
+		List<String> lines = Files.readAllLines(output);
+		assertThat(lines).containsExactlyInAnyOrderElementsOf(expected);
+		for (int f = 0; f < 20; f++) {
+			String prefix = "f" + f + " ";
+			assertThat(lines.stream().filter(line -> line.startsWith(prefix)).collect(Collectors.toList()))
+					.isEqualTo(expected.stream().filter(line -> line.startsWith(prefix)).collect(Collectors.toList()));
+		}
+		assertThat(results).hasSize(20).allSatisfy(result -> {
+			assertThat(result.records()).isEqualTo(500);
+			assertThat(result.error()).isNull();
+		});
+	}
+
+	@Test
+	void perFileOrderHoldsWhenAnIngestBatchSpansManySinkBatches() throws IOException {
+		Path root = Files.createDirectories(tempDir.resolve("in"));
+		List<String> expected = new ArrayList<>();
+		for (int f = 0; f < 4; f++) {
+			StringBuilder content = new StringBuilder();
+			for (int i = 0; i < 20_000; i++) {
+				content.append("f").append(f).append(' ').append(i).append('\n');
+				expected.add("f" + f + " " + i);
+			}
+			Files.writeString(root.resolve("f" + f + ".txt"), content);
+		}
+		Path output = tempDir.resolve("out.txt");
+		// 100 sink batches per ingest batch, far more than the writes a sink keeps in flight
+		DirectoryIngest ingest = new DirectoryIngest(4, 4, 1000, 4096, 100);
+
+		try (LineSink sink = LineSink.open(output, 10, Duration.ofMillis(10), Duration.ZERO, false)) {
+			ingest.ingest(root, path -> true, (file, record) -> record, DirectoryIngest.Ordering.PER_FILE, sink)
+					.blockLast();
+		}
+
+		List<String> lines = Files.readAllLines(output);
+		assertThat(lines).hasSameSizeAs(expected);
+		for (int f = 0; f < 4; f++) {
+			String prefix = "f" + f + " ";
+			assertThat(lines.stream().filter(line -> line.startsWith(prefix)).collect(Collectors.toList()))
+					.isEqualTo(expected.stream().filter(line -> line.startsWith(prefix)).collect(Collectors.toList()));
+		}
+	}
+
+	@Test
+	void transformDropsRecordsAndUnreadableFilesAreReported() throws IOException {
+		Path root = Files.createDirectories(tempDir.resolve("in"));
+		Files.writeString(root.resolve("good.txt"), "keep\n\nkeep too\n");
+		Files.writeString(root.resolve("bad.txt"), "x".repeat(200) + "\n");
+		Files.writeString(root.resolve("skipped.bin"), "not included\n");
+		Path output = tempDir.resolve("out.txt");
+		DirectoryIngest ingest = new DirectoryIngest(2, 2, 10, 64, 100);
+
+		List<DirectoryIngest.FileResult> results;
+		try (LineSink sink = LineSink.open(output, 64, Duration.ofMillis(10), Duration.ZERO, false)) {
+			results = ingest.ingest(root, path -> path.toString().endsWith(".txt"),
+					(file, record) -> record.isEmpty() ? null : file + ":" + record,
+					DirectoryIngest.Ordering.UNORDERED, sink).collectList().block();
+		}
+
+		assertThat(Files.readAllLines(output)).containsExactlyInAnyOrder("good.txt:keep", "good.txt:keep too");
+		assertThat(results).extracting(DirectoryIngest.FileResult::file).containsExactlyInAnyOrder("good.txt",
+				"bad.txt");
+		assertThat(results).filteredOn(result -> result.file().equals("good.txt")).singleElement()
+				.satisfies(result -> {
+					assertThat(result.records()).isEqualTo(3);
+					assertThat(result.written()).isEqualTo(2);
+				});
+		assertThat(results).filteredOn(result -> result.file().equals("bad.txt")).singleElement()
+				.satisfies(result -> assertThat(result.error()).isNotNull());
+		assertThat(ingest.stats().failedFiles()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,52 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import reactor.test.StepVerifier;
+
+class FileCopyEngineTests {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void bothModesCopyEveryByteAcrossRanges() throws IOException {
+		byte[] data = new byte[3 * 1024 * 1024 + 12345];
+		new Random(7).nextBytes(data);
+		Path source = Files.write(tempDir.resolve("in.bin"), data);
+
+		for (FileCopyEngine.Mode mode : new FileCopyEngine.Mode[] { FileCopyEngine.Mode.TRANSFER,
+				FileCopyEngine.Mode.ASYNC }) {
+			Path target = Files.write(tempDir.resolve(mode + ".bin"), new byte[data.length + 100]);
+			FileCopyEngine engine = new FileCopyEngine(4, 64 * 1024, mode, Duration.ofMillis(5));
+
+			FileCopyEngine.CopyProgress last = engine.copy(source, target).blockLast(Duration.ofSeconds(30));
+
+			assertThat(last.done()).isTrue();
+			assertThat(last.bytesCopied()).isEqualTo(data.length);
+			assertThat(Files.readAllBytes(target)).isEqualTo(data);
+		}
+	}
+
+	@Test
+	void copyingAFileOntoItselfIsRejectedAndLeavesItIntact() throws IOException {
+		byte[] data = "keep me\n".repeat(1000).getBytes();
+		Path file = Files.write(tempDir.resolve("same.txt"), data);
+		FileCopyEngine engine = new FileCopyEngine(2, 4096, FileCopyEngine.Mode.TRANSFER, Duration.ofMillis(5));
+
+		StepVerifier.create(engine.copy(file, tempDir.resolve("./same.txt")))
+				.expectError(IllegalArgumentException.class)
+				.verify(Duration.ofSeconds(5));
+
+		assertThat(Files.readAllBytes(file)).isEqualTo(data);
+	}
+}
@@ -0,0 +1,61 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import reactor.test.StepVerifier;
+
+class FileUtilsTests {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void readFileAsFluxEmitsChunksInOrderAndReturnsBuffers() throws IOException {
+		byte[] data = randomBytes(100_003);
+		Path file = Files.write(tempDir.resolve("in.bin"), data);
+		ByteBufferPool pool = new ByteBufferPool(4096, 8);
+		byte[] copy = new byte[data.length];
+
+		try (AsynchronousFileChannel channel = AsynchronousFileChannel.open(file)) {
+			StepVerifier.create(FileUtils.readFileAsFlux(channel, pool, 4).limitRate(3).map(chunk -> {
+				int size = chunk.size();
+				chunk.buffer().get(copy, (int) chunk.position(), size);
+				chunk.release();
+				return size;
+			}).reduce(0, Integer::sum)).expectNext(data.length).verifyComplete();
+		}
+
+		assertThat(copy).isEqualTo(data);
+		assertThat(pool.inUse()).isZero();
+	}
+
+	@Test
+	void readFileAsFluxOnlyReadsAgainstDemand() throws IOException {
+		Path file = Files.write(tempDir.resolve("in.bin"), randomBytes(64 * 1024));
+		ByteBufferPool pool = new ByteBufferPool(1024, 8);
+
+		try (AsynchronousFileChannel channel = AsynchronousFileChannel.open(file)) {
+			StepVerifier.create(FileUtils.readFileAsFlux(channel, pool, 4), 2)
+					.consumeNextWith(FileChunk::release)
+					.consumeNextWith(FileChunk::release)
+					.then(() -> assertThat(pool.allocated()).isLessThanOrEqualTo(2))
+					.thenCancel()
+					.verify();
+		}
+	}
+
+	private static byte[] randomBytes(int size) {
+		byte[] data = new byte[size];
+		new Random(42).nextBytes(data);
+		return data;
+	}
+}
@@ -0,0 +1,122 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+class GzipEncoderTests {
+
+	private final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void encodedChunksDecodeToTheInputAndDeflatersAreReused() throws IOException {
+		GzipEncoder encoder = new GzipEncoder(6, 1024, 4);
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 20_000; i++) {
+			text.append("line ").append(i % 97).append('\n');
+		}
+		byte[] input = text.toString().getBytes(StandardCharsets.UTF_8);
+
+		for (int round = 0; round < 3; round++) {
+			assertThat(gunzip(encode(encoder, input, 777))).isEqualTo(input);
+		}
+		assertThat(gunzip(encode(encoder, new byte[0], 777))).isEmpty();
+
+		GzipEncoder.Stats stats = encoder.stats();
+		assertThat(stats.encodings()).isEqualTo(4);
+		assertThat(stats.bytesIn()).isEqualTo(3L * input.length);
+		assertThat(stats.bytesOut()).isLessThan(stats.bytesIn() / 5);
+		assertThat(stats.deflatersCreated()).isEqualTo(1);
+		assertThat(stats.deflatersIdle()).isEqualTo(1);
+	}
+
+	@Test
+	void sidecarIsGeneratedInTheBackgroundAndDroppedWhenTheSourceChanges() throws Exception {
+		Path source = tempDir.resolve("data.txt");
+		Files.writeString(source, "abc\n".repeat(10_000));
+		Files.setLastModifiedTime(source, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+		PrecompressedFiles sidecars = new PrecompressedFiles(tempDir.resolve("gzip"), 9, 0.9, Duration.ofSeconds(30),
+				Schedulers.immediate());
+
+		assertThat(sidecars.lookup(source, attributes(source))).isNull();
+		PrecompressedFiles.Sidecar sidecar = sidecars.lookup(source, attributes(source));
+		assertThat(sidecar).isNotNull().isNotSameAs(PrecompressedFiles.INCOMPRESSIBLE);
+		assertThat(gunzip(Files.readAllBytes(sidecar.path()))).isEqualTo(Files.readAllBytes(source));
+
+		// Still being written: served on the fly, no sidecar yet
+		Files.writeString(source, "changed\n".repeat(10_000));
+		assertThat(sidecars.lookup(source, attributes(source))).isNull();
+		assertThat(sidecars.lookup(source, attributes(source))).isNull();
+		assertThat(sidecars.stats().tooRecent()).isEqualTo(2);
+
+		Files.setLastModifiedTime(source, FileTime.fromMillis(System.currentTimeMillis() - 30_000));
+		assertThat(sidecars.lookup(source, attributes(source))).isNull();
+		assertThat(gunzip(Files.readAllBytes(sidecars.lookup(source, attributes(source)).path())))
+				.isEqualTo(Files.readAllBytes(source));
+
+		Path noise = tempDir.resolve("noise.bin");
+		byte[] random = new byte[10_000];
+		new Random(1).nextBytes(random);
+		Files.write(noise, random);
+		Files.setLastModifiedTime(noise, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+		sidecars.lookup(noise, attributes(noise));
+		assertThat(sidecars.lookup(noise, attributes(noise))).isSameAs(PrecompressedFiles.INCOMPRESSIBLE);
+
+		PrecompressedFiles.Stats stats = sidecars.stats();
+		assertThat(stats.generated()).isEqualTo(2);
+		assertThat(stats.invalidations()).isEqualTo(1);
+		assertThat(stats.incompressible()).isEqualTo(1);
+	}
+
+	private byte[] encode(GzipEncoder encoder, byte[] input, int chunkSize) {
+		List<DataBuffer> chunks = new ArrayList<>();
+		for (int offset = 0; offset < input.length; offset += chunkSize) {
+			int length = Math.min(chunkSize, input.length - offset);
+			chunks.add(bufferFactory.allocateBuffer(length).write(input, offset, length));
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		encoder.encode(Flux.fromIterable(chunks), bufferFactory)
+				.doOnNext(buffer -> {
+					byte[] bytes = new byte[buffer.readableByteCount()];
+					buffer.read(bytes);
+					out.writeBytes(bytes);
+					DataBufferUtils.release(buffer);
+				})
+				.blockLast(Duration.ofSeconds(10));
+		return out.toByteArray();
+	}
+
+	private static byte[] gunzip(byte[] gzipped) throws IOException {
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+			return in.readAllBytes();
+		}
+	}
+
+	private static BasicFileAttributes attributes(Path file) throws IOException {
+		return Files.readAttributes(file, BasicFileAttributes.class);
+	}
+}
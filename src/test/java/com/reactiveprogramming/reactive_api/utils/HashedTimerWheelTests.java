@@ -0,0 +1,43 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.Disposable;
+
+class HashedTimerWheelTests {
+
+	@Test
+	void runsTasksBeyondOneRotationAndStopsDisposedOnes() throws InterruptedException {
+		try (HashedTimerWheel wheel = new HashedTimerWheel("test-wheel", Duration.ofMillis(5), 8)) {
+			CountDownLatch fired = new CountDownLatch(1);
+			long start = System.nanoTime();
+			// 100ms is several rotations of an 8-slot, 5ms wheel
+			wheel.schedule(fired::countDown, Duration.ofMillis(100));
+			AtomicInteger cancelled = new AtomicInteger();
+			wheel.schedule(cancelled::incrementAndGet, Duration.ofMillis(20)).dispose();
+
+			assertThat(fired.await(2, TimeUnit.SECONDS)).isTrue();
+			assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+			assertThat(cancelled.get()).isZero();
+		}
+	}
+
+	@Test
+	void repeatsPeriodicTasksUntilDisposed() throws InterruptedException {
+		try (HashedTimerWheel wheel = new HashedTimerWheel("test-wheel", Duration.ofMillis(5), 8)) {
+			CountDownLatch ticks = new CountDownLatch(5);
+			Disposable task = wheel.scheduleAtFixedRate(ticks::countDown, Duration.ofMillis(10), Duration.ofMillis(10));
+
+			assertThat(ticks.await(2, TimeUnit.SECONDS)).isTrue();
+			task.dispose();
+			assertThat(task.isDisposed()).isTrue();
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+class JsonArraySplitterTests {
+
+	private static final String ARRAY = "[ {\"id\": 1, \"title\": \"a ] } , \\\" [\"},\n"
+			+ "  {\"id\": 2, \"tags\": [\"x\", {\"y\": null}]}, 42, \"text\", true ]";
+
+	@Test
+	void elementsMaySpanBuffers() {
+		List<String> expected = List.of("{\"id\":1,\"title\":\"a ] } , \\\" [\"}",
+				"{\"id\":2,\"tags\":[\"x\",{\"y\":null}]}", "42", "\"text\"", "true");
+		byte[] bytes = ARRAY.getBytes(StandardCharsets.UTF_8);
+
+		// Cut the body at every possible position
+		for (int cut = 0; cut <= bytes.length; cut++) {
+			Flux<DataBuffer> body = Flux.just(wrap(bytes, 0, cut), wrap(bytes, cut, bytes.length));
+			assertThat(JsonArraySplitter.split(body, 1024).collectList().block()).isEqualTo(expected);
+		}
+	}
+
+	@Test
+	void largeElementsFailTheFlux() {
+		Flux<DataBuffer> body = Flux.just(wrap("[{\"id\":1},"), wrap("{\"body\":\"" + "x".repeat(100) + "\"}]"));
+
+		StepVerifier.create(JsonArraySplitter.split(body, 64))
+				.expectNext("{\"id\":1}")
+				.verifyError(DataBufferLimitException.class);
+	}
+
+	@Test
+	void incompleteArraysFailTheFlux() {
+		StepVerifier.create(JsonArraySplitter.split(Flux.just(wrap("[{\"id\":1},{\"id\"")), 64))
+				.expectNext("{\"id\":1}")
+				.verifyError(DecodingException.class);
+		StepVerifier.create(JsonArraySplitter.split(Flux.just(wrap("{\"id\":1}")), 64))
+				.verifyError(DecodingException.class);
+	}
+
+	private static DataBuffer wrap(String text) {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		return wrap(bytes, 0, bytes.length);
+	}
+
+	private static DataBuffer wrap(byte[] bytes, int from, int to) {
+		return DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(bytes, from, to));
+	}
+}
@@ -0,0 +1,52 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+class KeyedTickerEngineTests {
+
+	@Test
+	void pricesOutsideOneSlideOfNowAreRejected() {
+		try (HashedTimerWheel wheel = new HashedTimerWheel("test-wheel", Duration.ofMillis(10), 64);
+				KeyedTickerEngine engine = new KeyedTickerEngine(wheel, Duration.ofSeconds(1), 60)) {
+			long now = System.currentTimeMillis();
+
+			assertThat(engine.onPrice("AAPL", 100, now)).isTrue();
+			assertThat(engine.onPrice("AAPL", 100, 0)).isTrue();
+			assertThat(engine.onPrice("AAPL", 100, now / 1000)).isFalse();
+			assertThat(engine.onPrice("AAPL", 100, now + 60_000)).isFalse();
+			assertThat(engine.onPrice("AAPL", 100, now - 60_000)).isFalse();
+
+			assertThat(engine.pricesReceived()).isEqualTo(2);
+			assertThat(engine.pricesRejected()).isEqualTo(3);
+		}
+	}
+
+	@Test
+	void idleSymbolsAreEvictedUnlessSubscribedAndNewOnesAreCapped() throws InterruptedException {
+		try (HashedTimerWheel wheel = new HashedTimerWheel("test-wheel", Duration.ofMillis(10), 64);
+				KeyedTickerEngine engine = new KeyedTickerEngine(wheel, Duration.ofMillis(50), 10,
+						Duration.ofSeconds(1), 2)) {
+			Disposable watching = engine.updates(List.of("B")).subscribe();
+			assertThat(engine.onPrice("A", 1, 0)).isTrue();
+			assertThat(engine.onPrice("C", 1, 0)).isFalse();
+			StepVerifier.create(engine.updates(List.of("C"))).expectError(IllegalStateException.class).verify();
+
+			Thread.sleep(2500);
+			assertThat(engine.symbolCount()).isEqualTo(1);
+			assertThat(engine.symbolsEvicted()).isEqualTo(1);
+
+			watching.dispose();
+			Thread.sleep(2500);
+			assertThat(engine.symbolCount()).isZero();
+			assertThat(engine.onPrice("C", 1, 0)).isTrue();
+		}
+	}
+}
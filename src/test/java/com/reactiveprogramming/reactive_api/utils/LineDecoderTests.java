@@ -0,0 +1,70 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+
+import reactor.test.StepVerifier;
+
+class LineDecoderTests {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void linesAndCharactersMaySpanChunks() throws IOException {
+		// 7-byte chunks cut both lines and multi-byte characters in half
+		Path file = Files.writeString(tempDir.resolve("in.txt"), "héllo wörld\r\n\n日本語 😀\nlast",
+				StandardCharsets.UTF_8);
+		ByteBufferPool pool = new ByteBufferPool(7, 8);
+
+		try (AsynchronousFileChannel channel = AsynchronousFileChannel.open(file)) {
+			StepVerifier.create(LineDecoder.decode(FileUtils.readFileAsFlux(channel, pool, 4), 100)
+					.map(Line::releaseAsString))
+					.expectNext("héllo wörld", "", "日本語 😀", "last")
+					.verifyComplete();
+		}
+
+		assertThat(pool.inUse()).isZero();
+	}
+
+	@Test
+	void tooLongLinesFailTheFlux() throws IOException {
+		Path file = Files.writeString(tempDir.resolve("in.txt"), "short\n" + "x".repeat(200) + "\n");
+		ByteBufferPool pool = new ByteBufferPool(64, 8);
+
+		try (AsynchronousFileChannel channel = AsynchronousFileChannel.open(file)) {
+			StepVerifier.create(LineDecoder.decode(FileUtils.readFileAsFlux(channel, pool, 4), 100)
+					.map(Line::releaseAsString))
+					.expectNext("short")
+					.verifyError(DataBufferLimitException.class);
+		}
+	}
+
+	@Test
+	void partitionsEmitEveryLineExactlyOnce() throws IOException {
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 10_000; i++) {
+			content.append("{\"id\":").append(i).append("}\n");
+		}
+		Path file = Files.writeString(tempDir.resolve("in.ndjson"), content);
+		List<String> expected = Files.readAllLines(file);
+
+		List<String> lines = LineDecoder.partitioned(file, 4, 512, 100)
+				.map(Line::releaseAsString)
+				.sequential()
+				.collectList()
+				.block();
+
+		assertThat(lines).containsExactlyInAnyOrderElementsOf(expected);
+	}
+}
@@ -0,0 +1,235 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+class LineSinkTests {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void linesOfOneWriteLandInOrderAcrossManyBatches() throws IOException {
+		Path file = tempDir.resolve("out.txt");
+		List<String> expected = IntStream.range(0, 20_000).mapToObj(i -> "line " + i).collect(Collectors.toList());
+
+		try (LineSink sink = LineSink.open(file, 7, Duration.ofMillis(10), Duration.ZERO, false)) {
+			// Off-thread source, so batches complete out of order
+			Long written = sink.write(Flux.fromIterable(expected).publishOn(Schedulers.parallel(), 32))
+					.block(Duration.ofSeconds(30));
+			assertThat(written).isEqualTo(expected.size());
+		}
+
+		assertThat(Files.readAllLines(file)).isEqualTo(expected);
+	}
+
+	@Test
+	void aPartialBatchIsWrittenAfterTheBatchDelay() throws IOException, InterruptedException {
+		Path file = tempDir.resolve("out.txt");
+		Files.writeString(file, "existing\n");
+
+		try (LineSink sink = LineSink.open(file, 1000, Duration.ofMillis(20), Duration.ZERO, false)) {
+			sink.write(Flux.just("a", "b", "c").concatWith(Flux.<String>never().take(Duration.ofSeconds(2))))
+					.subscribe();
+			Thread.sleep(500);
+
+			// Appended after what was there, long before the source completes
+			assertThat(Files.readAllLines(file)).containsExactly("existing", "a", "b", "c");
+		}
+	}
+
+	@Test
+	void sequencedLinesAreNumberedAcrossConcurrentWrites() throws IOException {
+		Path file = tempDir.resolve("out.txt");
+
+		try (LineSink sink = LineSink.open(file, 16, Duration.ofMillis(10), Duration.ZERO, true)) {
+			Flux.range(0, 8)
+					.flatMap(writer -> sink.write(Flux.range(0, 1000).map(i -> writer + "-" + i))
+							.subscribeOn(Schedulers.parallel()))
+					.blockLast(Duration.ofSeconds(30));
+		}
+
+		List<String> lines = Files.readAllLines(file);
+		assertThat(lines).hasSize(8000);
+		Set<Long> sequences = new HashSet<>();
+		long[] lastPerWriter = new long[8];
+		Arrays.fill(lastPerWriter, -1);
+		for (String line : lines) {
+			String[] parts = line.split("\t");
+			long sequence = Long.parseLong(parts[0]);
+			int writer = Integer.parseInt(parts[1].substring(0, parts[1].indexOf('-')));
+			assertThat(sequences.add(sequence)).isTrue();
+			// A write's lines are numbered in the order it produced them
+			assertThat(sequence).isGreaterThan(lastPerWriter[writer]);
+			lastPerWriter[writer] = sequence;
+		}
+		assertThat(sequences).containsAll(LongStream.range(0, 8000).boxed().collect(Collectors.toList()));
+	}
+
+	@Test
+	void aWriteInsideTheForceIntervalCompletesOnlyAfterTheNextForce() throws IOException, InterruptedException {
+		Path file = tempDir.resolve("out.txt");
+		Duration interval = Duration.ofMillis(200);
+
+		try (CountingChannel channel = CountingChannel.open(file);
+				LineSink sink = new LineSink(channel, 10, Duration.ofMillis(5), interval, false)) {
+			assertThat(sink.append(List.of("first")).block(Duration.ofSeconds(5))).isEqualTo(1);
+			assertThat(channel.forces.get()).isEqualTo(1);
+
+			long start = System.nanoTime();
+			Mono<Long> second = sink.append(List.of("second")).cache();
+			second.subscribe();
+			Thread.sleep(100);
+			// Landed, but the next force is not due yet
+			assertThat(Files.readAllLines(file)).containsExactly("first", "second");
+			assertThat(channel.forces.get()).isEqualTo(1);
+
+			assertThat(second.block(Duration.ofSeconds(5))).isEqualTo(1);
+			assertThat(channel.forces.get()).isEqualTo(2);
+			assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(150));
+		}
+	}
+
+	@Test
+	void concurrentWritesShareForcesAndEveryOneCompletes() throws IOException {
+		Path file = tempDir.resolve("out.txt");
+		Duration interval = Duration.ofMillis(50);
+
+		try (CountingChannel channel = CountingChannel.open(file);
+				LineSink sink = new LineSink(channel, 10, Duration.ofMillis(5), interval, false)) {
+			long start = System.nanoTime();
+			List<Long> written = Flux.range(0, 16)
+					.flatMap(writer -> sink.write(Flux.range(0, 500).map(i -> writer + "-" + i))
+							.subscribeOn(Schedulers.parallel()))
+					.collectList()
+					.block(Duration.ofSeconds(30));
+			long elapsed = System.nanoTime() - start;
+
+			assertThat(written).hasSize(16).containsOnly(500L);
+			// 800 batches, but at most one force per interval
+			assertThat(channel.forces.get()).isPositive()
+					.isLessThanOrEqualTo((int) (elapsed / interval.toNanos()) + 2);
+		}
+
+		assertThat(Files.readAllLines(file)).hasSize(16 * 500);
+	}
+
+	@Test
+	void theFileIsOnlyCreatedByTheFirstWrite() throws IOException {
+		Path file = tempDir.resolve("out.txt");
+
+		try (LineSink sink = LineSink.open(file, 10, Duration.ofMillis(5), Duration.ZERO, false)) {
+			assertThat(file).doesNotExist();
+			sink.append(List.of("a")).block(Duration.ofSeconds(5));
+		}
+
+		assertThat(Files.readAllLines(file)).containsExactly("a");
+	}
+
+	/** Counts the forces that reach the file. */
+	private static final class CountingChannel extends AsynchronousFileChannel {
+
+		final AtomicInteger forces = new AtomicInteger();
+
+		private final AsynchronousFileChannel delegate;
+
+		private CountingChannel(AsynchronousFileChannel delegate) {
+			this.delegate = delegate;
+		}
+
+		static CountingChannel open(Path file) throws IOException {
+			return new CountingChannel(
+					AsynchronousFileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE));
+		}
+
+		@Override
+		public void force(boolean metaData) throws IOException {
+			delegate.force(metaData);
+			forces.incrementAndGet();
+		}
+
+		@Override
+		public long size() throws IOException {
+			return delegate.size();
+		}
+
+		@Override
+		public AsynchronousFileChannel truncate(long size) throws IOException {
+			delegate.truncate(size);
+			return this;
+		}
+
+		@Override
+		public <A> void lock(long position, long size, boolean shared, A attachment,
+				CompletionHandler<FileLock, ? super A> handler) {
+			delegate.lock(position, size, shared, attachment, handler);
+		}
+
+		@Override
+		public Future<FileLock> lock(long position, long size, boolean shared) {
+			return delegate.lock(position, size, shared);
+		}
+
+		@Override
+		public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+			return delegate.tryLock(position, size, shared);
+		}
+
+		@Override
+		public <A> void read(ByteBuffer dst, long position, A attachment,
+				CompletionHandler<Integer, ? super A> handler) {
+			delegate.read(dst, position, attachment, handler);
+		}
+
+		@Override
+		public Future<Integer> read(ByteBuffer dst, long position) {
+			return delegate.read(dst, position);
+		}
+
+		@Override
+		public <A> void write(ByteBuffer src, long position, A attachment,
+				CompletionHandler<Integer, ? super A> handler) {
+			delegate.write(src, position, attachment, handler);
+		}
+
+		@Override
+		public Future<Integer> write(ByteBuffer src, long position) {
+			return delegate.write(src, position);
+		}
+
+		@Override
+		public boolean isOpen() {
+			return delegate.isOpen();
+		}
+
+		@Override
+		public void close() throws IOException {
+			delegate.close();
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import reactor.core.scheduler.Schedulers;
+
+class PrecompressedFilesTests {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void theFirstLookupGeneratesTheSidecarAndLaterOnesServeIt() throws IOException {
+		Path source = write("data.txt", "abc\n".repeat(10_000), 60_000);
+		PrecompressedFiles sidecars = sidecars(Duration.ZERO);
+
+		assertThat(sidecars.lookup(source, attributes(source))).isNull();
+		PrecompressedFiles.Sidecar sidecar = sidecars.lookup(source, attributes(source));
+
+		assertThat(sidecar.path()).isEqualTo(sidecarDirectory().resolve(source.getRoot().relativize(source) + ".gz"));
+		assertThat(sidecar.size()).isEqualTo(Files.size(sidecar.path()));
+		assertThat(gunzip(sidecar.path())).isEqualTo(Files.readAllBytes(source));
+		PrecompressedFiles.Stats stats = sidecars.stats();
+		assertThat(stats.misses()).isEqualTo(1);
+		assertThat(stats.hits()).isEqualTo(1);
+		assertThat(stats.generated()).isEqualTo(1);
+	}
+
+	@Test
+	void aSidecarLeftByAnEarlierRunIsReusedWhileItsSourceIsUnchanged() throws IOException {
+		Path source = write("data.txt", "abc\n".repeat(10_000), 60_000);
+		PrecompressedFiles first = sidecars(Duration.ZERO);
+		first.lookup(source, attributes(source));
+		Path path = first.lookup(source, attributes(source)).path();
+		byte[] generated = Files.readAllBytes(path);
+
+		PrecompressedFiles restarted = sidecars(Duration.ZERO);
+		restarted.lookup(source, attributes(source));
+
+		assertThat(restarted.lookup(source, attributes(source)).path()).isEqualTo(path);
+		assertThat(restarted.stats().reused()).isEqualTo(1);
+		assertThat(restarted.stats().generated()).isZero();
+		assertThat(Files.readAllBytes(path)).isEqualTo(generated);
+	}
+
+	@Test
+	void aLeftoverSidecarIsNotReusedWhenTheSourceSizeChangedButItsTimestampDidNot() throws IOException {
+		Path source = write("data.txt", "abc\n".repeat(10_000), 60_000);
+		FileTime modified = Files.getLastModifiedTime(source);
+		PrecompressedFiles first = sidecars(Duration.ZERO);
+		first.lookup(source, attributes(source));
+		first.lookup(source, attributes(source));
+
+		// Rewritten within the file system's timestamp resolution, or restored with its old timestamp
+		Files.writeString(source, "abcd\n".repeat(10_000));
+		Files.setLastModifiedTime(source, modified);
+		PrecompressedFiles restarted = sidecars(Duration.ZERO);
+		restarted.lookup(source, attributes(source));
+
+		assertThat(gunzip(restarted.lookup(source, attributes(source)).path())).isEqualTo(Files.readAllBytes(source));
+		assertThat(restarted.stats().reused()).isZero();
+		assertThat(restarted.stats().generated()).isEqualTo(1);
+	}
+
+	@Test
+	void aChangedSourceDropsItsSidecarAndGetsANewOne() throws IOException {
+		Path source = write("data.txt", "abc\n".repeat(10_000), 60_000);
+		PrecompressedFiles sidecars = sidecars(Duration.ZERO);
+		sidecars.lookup(source, attributes(source));
+		sidecars.lookup(source, attributes(source));
+
+		write("data.txt", "changed\n".repeat(10_000), 30_000);
+
+		assertThat(sidecars.lookup(source, attributes(source))).isNull();
+		assertThat(gunzip(sidecars.lookup(source, attributes(source)).path())).isEqualTo(Files.readAllBytes(source));
+		PrecompressedFiles.Stats stats = sidecars.stats();
+		assertThat(stats.invalidations()).isEqualTo(1);
+		assertThat(stats.generated()).isEqualTo(2);
+	}
+
+	@Test
+	void sourcesThatDoNotCompressAreRememberedAsIncompressible() throws IOException {
+		byte[] random = new byte[10_000];
+		new Random(1).nextBytes(random);
+		Path source = tempDir.resolve("noise.bin");
+		Files.write(source, random);
+		Files.setLastModifiedTime(source, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+		PrecompressedFiles sidecars = sidecars(Duration.ZERO);
+
+		assertThat(sidecars.lookup(source, attributes(source))).isNull();
+		assertThat(sidecars.lookup(source, attributes(source))).isSameAs(PrecompressedFiles.INCOMPRESSIBLE);
+		assertThat(sidecars.lookup(source, attributes(source))).isSameAs(PrecompressedFiles.INCOMPRESSIBLE);
+
+		PrecompressedFiles.Stats stats = sidecars.stats();
+		assertThat(stats.incompressible()).isEqualTo(1);
+		assertThat(stats.misses()).isEqualTo(1);
+		assertThat(stats.hits()).isZero();
+		assertThat(Files.exists(sidecarDirectory().resolve(source.getRoot().relativize(source) + ".gz"))).isFalse();
+	}
+
+	@Test
+	void aRecentlyModifiedSourceGetsNoSidecarUntilItIsMinAgeOld() throws IOException {
+		Path source = write("data.txt", "abc\n".repeat(10_000), 0);
+		PrecompressedFiles sidecars = sidecars(Duration.ofSeconds(30));
+
+		assertThat(sidecars.lookup(source, attributes(source))).isNull();
+		assertThat(sidecars.lookup(source, attributes(source))).isNull();
+		assertThat(sidecars.stats().tooRecent()).isEqualTo(2);
+		assertThat(sidecars.stats().generated()).isZero();
+
+		Files.setLastModifiedTime(source, FileTime.fromMillis(System.currentTimeMillis() - 30_000));
+		assertThat(sidecars.lookup(source, attributes(source))).isNull();
+		assertThat(sidecars.lookup(source, attributes(source))).isNotNull();
+		assertThat(sidecars.stats().generated()).isEqualTo(1);
+	}
+
+	// Generation runs on the calling thread, so a sidecar is ready by the lookup after the one that scheduled it
+	private PrecompressedFiles sidecars(Duration minAge) {
+		return new PrecompressedFiles(sidecarDirectory(), 9, 0.9, minAge, Schedulers.immediate());
+	}
+
+	private Path sidecarDirectory() {
+		return tempDir.resolve("gzip");
+	}
+
+	private Path write(String name, String content, long ageMillis) throws IOException {
+		Path file = tempDir.resolve(name);
+		Files.writeString(file, content);
+		Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - ageMillis));
+		return file;
+	}
+
+	private static byte[] gunzip(Path file) throws IOException {
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+			return in.readAllBytes();
+		}
+	}
+
+	private static BasicFileAttributes attributes(Path file) throws IOException {
+		return Files.readAttributes(file, BasicFileAttributes.class);
+	}
+}
@@ -0,0 +1,88 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.reactiveprogramming.reactive_api.utils.SegmentCache.Eviction;
+import com.reactiveprogramming.reactive_api.utils.SegmentCache.Storage;
+
+import reactor.core.scheduler.Schedulers;
+
+class SegmentCacheTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void rangesSpanningSegmentsAreServedFromTheCache() throws IOException {
+		byte[] content = content(10_000);
+		Path file = Files.write(dir.resolve("video.mp4"), content);
+		SegmentCache cache = new SegmentCache(1 << 20, 4096, Eviction.LRU, Storage.DIRECT,
+				Schedulers.boundedElastic());
+
+		assertThat(read(cache, file, 1000, 6000)).isEqualTo(Arrays.copyOfRange(content, 1000, 7000));
+		assertThat(read(cache, file, 0, 20_000)).isEqualTo(content);
+
+		SegmentCache.Stats stats = cache.stats();
+		assertThat(stats.misses()).isEqualTo(3);
+		assertThat(stats.hits()).isEqualTo(2);
+		assertThat(stats.segments()).isEqualTo(3);
+		assertThat(stats.residentBytes()).isEqualTo(content.length);
+	}
+
+	@Test
+	void residentSizeStaysWithinTheBudget() throws IOException {
+		Path file = Files.write(dir.resolve("big.mp4"), content(64 * 1024));
+		SegmentCache cache = new SegmentCache(16 * 1024, 4096, Eviction.LFU, Storage.MAPPED,
+				Schedulers.boundedElastic());
+
+		read(cache, file, 0, 64 * 1024);
+
+		assertThat(cache.stats().residentBytes()).isLessThanOrEqualTo(16 * 1024);
+		assertThat(cache.stats().evictions()).isEqualTo(12);
+	}
+
+	@Test
+	void modifiedFilesAreReadAgain() throws IOException {
+		Path file = Files.write(dir.resolve("clip.mp4"), content(8192));
+		SegmentCache cache = new SegmentCache(1 << 20, 4096, Eviction.LRU, Storage.DIRECT,
+				Schedulers.boundedElastic());
+		read(cache, file, 0, 8192);
+
+		byte[] replaced = new byte[8192];
+		Arrays.fill(replaced, (byte) 7);
+		Files.write(file, replaced);
+		Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+
+		assertThat(read(cache, file, 0, 8192)).isEqualTo(replaced);
+		assertThat(cache.stats().invalidations()).isEqualTo(2);
+	}
+
+	private static byte[] read(SegmentCache cache, Path file, long position, long count) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		cache.read(file, position, count).map(ByteBuffer::duplicate).doOnNext(view -> {
+			byte[] bytes = new byte[view.remaining()];
+			view.get(bytes);
+			out.writeBytes(bytes);
+		}).blockLast();
+		return out.toByteArray();
+	}
+
+	private static byte[] content(int size) {
+		byte[] content = new byte[size];
+		for (int i = 0; i < size; i++) {
+			content[i] = (byte) (i * 31);
+		}
+		return content;
+	}
+}
@@ -0,0 +1,95 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+class SensorMultiplexerTests {
+
+	@Test
+	void samplesEverySensorOncePerTickInPrimitiveBatches() {
+		VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+		SensorMultiplexer multiplexer = new SensorMultiplexer(scheduler, Duration.ofSeconds(1), 2, 1);
+		multiplexer.register(() -> 1.0);
+		int removed = multiplexer.register(() -> 2.0);
+		multiplexer.register(() -> 3.0);
+		multiplexer.unregister(removed);
+		assertThat(multiplexer.register(() -> 4.0)).isEqualTo(removed);
+
+		StepVerifier.create(multiplexer.readings(8, BufferOverflowStrategy.DROP_OLDEST))
+				.then(() -> scheduler.advanceTimeBy(Duration.ofSeconds(1)))
+				.assertNext(batch -> {
+					assertThat(batch.size()).isEqualTo(2);
+					assertThat(batch.sensorIds()).startsWith(0, 1);
+					assertThat(batch.values()).startsWith(1.0, 4.0);
+				})
+				.assertNext(batch -> {
+					assertThat(batch.size()).isEqualTo(1);
+					assertThat(batch.values()[0]).isEqualTo(3.0);
+				})
+				.then(multiplexer::close)
+				.verifyComplete();
+
+		assertThat(multiplexer.readingsTaken()).isEqualTo(3);
+	}
+
+	@Test
+	void stopsSamplingWhenTheLastSubscriberCancels() {
+		VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+		SensorMultiplexer multiplexer = new SensorMultiplexer(scheduler, Duration.ofSeconds(1), 16, 1);
+		multiplexer.register(() -> 1.0);
+
+		StepVerifier.create(multiplexer.readings(8, BufferOverflowStrategy.DROP_OLDEST))
+				.then(() -> scheduler.advanceTimeBy(Duration.ofSeconds(1)))
+				.expectNextCount(1)
+				.thenCancel()
+				.verify();
+		scheduler.advanceTimeBy(Duration.ofSeconds(10));
+
+		assertThat(multiplexer.ticks()).isEqualTo(1);
+	}
+
+	@Test
+	void sensorsRegisteredWhileTickingAreSampledWithoutKillingTheTicker() throws InterruptedException {
+		Scheduler scheduler = Schedulers.newParallel("sensor-test", 2);
+		SensorMultiplexer multiplexer = new SensorMultiplexer(scheduler, Duration.ofMillis(1), 256, 2);
+		AtomicInteger highestId = new AtomicInteger(-1);
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		Disposable subscription = multiplexer.readings(1024, BufferOverflowStrategy.DROP_OLDEST)
+				.subscribe(batch -> highestId.accumulateAndGet(batch.sensorIds()[batch.size() - 1], Math::max),
+						error::set);
+		try {
+			// Grows the sensor array from 1024 to 8192 slots while ticks are sampling it
+			for (int i = 0; i < 5000; i++) {
+				multiplexer.register(() -> 1.0);
+				if (i % 100 == 0) {
+					Thread.sleep(1);
+				}
+			}
+			long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+			while (highestId.get() < 4999 && System.nanoTime() < deadline) {
+				Thread.sleep(5);
+			}
+			long ticks = multiplexer.ticks();
+			Thread.sleep(50);
+
+			assertThat(highestId.get()).isEqualTo(4999);
+			assertThat(multiplexer.ticks()).isGreaterThan(ticks);
+			assertThat(error.get()).isNull();
+		} finally {
+			subscription.dispose();
+			scheduler.dispose();
+		}
+	}
+}
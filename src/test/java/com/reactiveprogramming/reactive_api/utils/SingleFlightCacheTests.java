@@ -0,0 +1,50 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class SingleFlightCacheTests {
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private final Function<String, Mono<String>> loader = key -> Mono
+			.fromCallable(() -> key + loads.incrementAndGet()).delayElement(Duration.ofMillis(50));
+
+	@Test
+	void concurrentMissesShareOneLoad() {
+		SingleFlightCache<String, String> cache = new SingleFlightCache<>(100, String::length, Duration.ofMinutes(1),
+				Duration.ZERO);
+
+		StepVerifier.create(Flux.range(0, 50).flatMap(i -> cache.get("k", loader)).distinct())
+				.expectNext("k1")
+				.verifyComplete();
+
+		assertThat(loads).hasValue(1);
+		StepVerifier.create(cache.get("k", loader)).expectNext("k1").verifyComplete();
+		assertThat(cache.stats().hits()).isEqualTo(1);
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedWhenOverWeight() {
+		SingleFlightCache<String, String> cache = new SingleFlightCache<>(4, String::length, Duration.ofMinutes(1),
+				Duration.ZERO);
+
+		cache.get("a", loader).block();
+		cache.get("b", loader).block();
+		cache.get("a", loader).block();
+		cache.get("c", loader).block();
+
+		assertThat(cache.stats().evictions()).isEqualTo(1);
+		StepVerifier.create(cache.get("a", loader)).expectNext("a1").verifyComplete();
+		StepVerifier.create(cache.get("b", loader)).expectNext("b4").verifyComplete();
+	}
+}
@@ -0,0 +1,55 @@
+package com.reactiveprogramming.reactive_api.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+class SlidingWindowTests {
+
+	@Test
+	void expiresBucketsAsTheWindowSlides() {
+		SlidingWindow window = new SlidingWindow(10_000, 1_000);
+		for (int second = 0; second < 20; second++) {
+			window.add(second, second * 1_000L);
+		}
+
+		WindowStats full = window.snapshot(19_000);
+		assertThat(full.count()).isEqualTo(10);
+		assertThat(full.mean()).isEqualTo(14.5);
+		assertThat(full.min()).isEqualTo(10);
+		assertThat(full.max()).isEqualTo(19);
+		assertThat(full.variance()).isEqualTo(8.25);
+
+		WindowStats partial = window.snapshot(25_000);
+		assertThat(partial.count()).isEqualTo(4);
+		assertThat(partial.min()).isEqualTo(16);
+
+		assertThat(window.snapshot(100_000).count()).isZero();
+	}
+
+	@Test
+	void operatorEmitsEverySlide() {
+		VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+		// One reading every second, half a second off the slide boundaries: 0 at 0.5s, 1 at 1.5s, ...
+		Flux<Double> readings = Flux.interval(Duration.ofMillis(500), Duration.ofSeconds(1), scheduler)
+				.map(tick -> (double) tick)
+				.take(10);
+
+		StepVerifier.withVirtualTime(() -> readings.transform(
+				SlidingWindowAggregator.slidingWindow(Duration.ofSeconds(4), Duration.ofSeconds(2), scheduler)),
+				() -> scheduler, Long.MAX_VALUE)
+				.thenAwait(Duration.ofSeconds(2))
+				.assertNext(stats -> assertThat(stats.mean()).isEqualTo(0.5))
+				.thenAwait(Duration.ofSeconds(2))
+				.assertNext(stats -> assertThat(stats.mean()).isEqualTo(2.5))
+				.thenAwait(Duration.ofSeconds(10))
+				.expectNextCount(2)
+				.verifyComplete();
+	}
+}